@@ -0,0 +1,143 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * String payloads against their {@link CompactPayload} form, built at setup from the same fields:
+ * the FCM data extraction of the listener services, plus getting the ids and timestamp the
+ * renderer uses, parsed out of the fields for the string form. As recommended in the README, text
+ * longer than {@link #SHORT_STRING_BYTES} stays a plain entry, base64 would make it a third larger.
+ * The FCM size of both forms is printed at setup.
+ */
+@State(Scope.Benchmark)
+public class CompactPayloadBenchmark {
+    private static final int SHORT_STRING_BYTES = 64;
+    private static final String[] TYPED_KEYS = {
+            "id", "notification_type", "wager_id", "group_id", "user_id", "bundle_id", "chat_timestamp",
+            "title", "message", "bundle_title", "sender", "chat_message", "channelId"
+    };
+
+    @Param({"wager", "group-chat"})
+    public String payload;
+
+    private Map<String, String> mStrings;
+    private Map<String, String> mCompact;
+    private String mEncoded;
+
+    @Setup
+    public void setUp() {
+        mStrings = Payloads.fcmData(payload);
+        mCompact = compact(mStrings);
+        mEncoded = mCompact.get(CompactPayload.KEY);
+        System.out.println(payload + ": strings " + size(mStrings) + " bytes, compact " + size(mCompact) + " bytes");
+    }
+
+    @Benchmark
+    public long strings() {
+        MapFields fields = new MapFields();
+        PayloadNormalizer.putData(fields, mStrings);
+        PayloadNormalizer.normalize(fields);
+
+        int notificationType = Integer.parseInt(fields.getString("notification_type"));
+        String entityKey = notificationType == PushMessage.WAGER_TYPE ? "wager_id" : "group_id";
+        String chatTimestamp = fields.getString("chat_timestamp");
+        return Integer.parseInt(fields.getString("id")) + notificationType
+                + Integer.parseInt(fields.getString(entityKey))
+                + (chatTimestamp != null ? Long.parseLong(chatTimestamp) : 0);
+    }
+
+    @Benchmark
+    public long compact() {
+        MapFields fields = new MapFields();
+        PushMessage message = PayloadNormalizer.putCompactData(fields, mCompact);
+        PayloadNormalizer.normalize(fields);
+
+        return message.getId() + message.getNotificationType() + message.getEntityId()
+                + message.getChatTimestamp();
+    }
+
+    @Benchmark
+    public PushMessage decode() {
+        return CompactPayload.decode(mEncoded);
+    }
+
+    /**
+     * Moves the fields the schema has into the compact payload, leaving long text and the others,
+     * such as the {@code data} JSON, as they are.
+     */
+    private static Map<String, String> compact(Map<String, String> strings) {
+        Map<String, String> rest = new HashMap<>(strings);
+        PushMessage message = new PushMessage();
+        Charset utf8 = Charset.forName("UTF-8");
+        for (String key : TYPED_KEYS) {
+            String value = rest.get(key);
+            if (value == null || value.getBytes(utf8).length > SHORT_STRING_BYTES) {
+                continue;
+            }
+            rest.remove(key);
+            switch (key) {
+                case "id":
+                    message.setId(Integer.parseInt(value));
+                    break;
+                case "notification_type":
+                    message.setNotificationType(Integer.parseInt(value));
+                    break;
+                case "wager_id":
+                    message.setWagerId(Integer.parseInt(value));
+                    break;
+                case "group_id":
+                    message.setGroupId(Integer.parseInt(value));
+                    break;
+                case "user_id":
+                    message.setUserId(Integer.parseInt(value));
+                    break;
+                case "bundle_id":
+                    message.setBundleId(Integer.parseInt(value));
+                    break;
+                case "chat_timestamp":
+                    message.setChatTimestamp(Long.parseLong(value));
+                    break;
+                case "title":
+                    message.setTitle(value);
+                    break;
+                case "message":
+                    message.setMessage(value);
+                    break;
+                case "bundle_title":
+                    message.setBundleTitle(value);
+                    break;
+                case "sender":
+                    message.setSender(value);
+                    break;
+                case "chat_message":
+                    message.setChatMessage(value);
+                    break;
+                default:
+                    message.setChannelId(value);
+                    break;
+            }
+        }
+        rest.put(CompactPayload.KEY, CompactPayload.encode(message));
+        return rest;
+    }
+
+    /**
+     * What counts against FCM's 4 KB limit: the keys and values of the data.
+     */
+    private static int size(Map<String, String> data) {
+        Charset utf8 = Charset.forName("UTF-8");
+        int size = 0;
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            size += entry.getKey().getBytes(utf8).length + entry.getValue().getBytes(utf8).length;
+        }
+        return size;
+    }
+}
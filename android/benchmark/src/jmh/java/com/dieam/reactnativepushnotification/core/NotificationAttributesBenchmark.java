@@ -0,0 +1,67 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Persistence and lookup of scheduled notifications: every entry of the store is parsed with
+ * {@code fromJson} and tested with {@code matches} by {@code cancelLocalNotifications}.
+ */
+@State(Scope.Benchmark)
+public class NotificationAttributesBenchmark {
+    @Param({"scheduled-minimal", "scheduled-full"})
+    public String payload;
+
+    private String mJson;
+    private NotificationAttributes mAttributes;
+    private Map<String, Object> mMatchingUserInfo;
+    private Map<String, Object> mOtherUserInfo;
+
+    @Setup
+    public void setUp() throws JSONException {
+        mJson = Payloads.json(payload);
+        mAttributes = NotificationAttributes.fromJson(mJson);
+        mMatchingUserInfo = Collections.<String, Object>singletonMap("id", mAttributes.getId());
+        mOtherUserInfo = Collections.<String, Object>singletonMap("id", "unknown");
+    }
+
+    @Benchmark
+    public NotificationAttributes fromJson() throws JSONException {
+        return NotificationAttributes.fromJson(mJson);
+    }
+
+    @Benchmark
+    public JSONObject toJson() throws JSONException {
+        return mAttributes.toJson();
+    }
+
+    @Benchmark
+    public String toJsonString() throws JSONException {
+        return mAttributes.toJson().toString();
+    }
+
+    @Benchmark
+    public MapFields writeTo() {
+        MapFields fields = new MapFields();
+        mAttributes.writeTo(fields);
+        return fields;
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return mAttributes.matches(mMatchingUserInfo);
+    }
+
+    @Benchmark
+    public boolean matchesOther() {
+        return mAttributes.matches(mOtherUserInfo);
+    }
+}
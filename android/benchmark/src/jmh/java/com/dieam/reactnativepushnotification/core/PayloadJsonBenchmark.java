@@ -0,0 +1,40 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Serialization of a received push before it is emitted to JS, as done by
+ * RNPushNotificationJsDelivery.convertJSONObject and convertJSON.
+ */
+@State(Scope.Benchmark)
+public class PayloadJsonBenchmark {
+    @Param({"small-alert", "wager", "group-chat"})
+    public String payload;
+
+    private MapFields mFields;
+
+    @Setup
+    public void setUp() {
+        mFields = new MapFields();
+        PayloadNormalizer.putData(mFields, Payloads.fcmData(payload));
+        PayloadNormalizer.normalize(mFields);
+        mFields.putBoolean("foreground", true);
+        mFields.putBoolean("userInteraction", false);
+    }
+
+    @Benchmark
+    public JSONObject toJson() throws JSONException {
+        return PayloadJson.toJson(mFields, true);
+    }
+
+    @Benchmark
+    public String toJsonString() throws JSONException {
+        return PayloadJson.toJson(mFields, true).toString();
+    }
+}
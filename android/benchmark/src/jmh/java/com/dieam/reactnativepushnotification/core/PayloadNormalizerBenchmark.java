@@ -0,0 +1,33 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+
+/**
+ * The FCM data extraction done by the listener services for every push.
+ */
+@State(Scope.Benchmark)
+public class PayloadNormalizerBenchmark {
+    @Param({"small-alert", "wager", "group-chat"})
+    public String payload;
+
+    private Map<String, String> mData;
+
+    @Setup
+    public void setUp() {
+        mData = Payloads.fcmData(payload);
+    }
+
+    @Benchmark
+    public MapFields extract() {
+        MapFields fields = new MapFields();
+        PayloadNormalizer.putData(fields, mData);
+        PayloadNormalizer.normalize(fields);
+        return fields;
+    }
+}
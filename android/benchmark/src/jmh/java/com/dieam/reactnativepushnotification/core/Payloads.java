@@ -0,0 +1,62 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Loads the payload corpora from {@code src/jmh/resources/payloads}.
+ */
+final class Payloads {
+    private Payloads() {
+    }
+
+    static String json(String name) {
+        InputStream in = Payloads.class.getResourceAsStream("/payloads/" + name + ".json");
+        if (in == null) {
+            throw new IllegalArgumentException("Unknown payload " + name);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), Charset.forName("UTF-8"));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * The payload as FCM delivers it: a flat map of strings, nested objects such as {@code data}
+     * being JSON encoded.
+     */
+    static Map<String, String> fcmData(String name) {
+        try {
+            JSONObject json = new JSONObject(json(name));
+            Map<String, String> data = new HashMap<>();
+            Iterator<String> keys = json.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                data.put(key, json.get(key).toString());
+            }
+            return data;
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.Charset;
+import java.util.Map;
+
+/**
+ * Full payloads against their template form ({@code <payload>-template}, expanded with
+ * {@code templates.json}): the FCM data extraction of the listener services, plus the expansion
+ * for the template form, and parsing the table, done once per process. The FCM size of both forms
+ * is printed at setup.
+ */
+@State(Scope.Benchmark)
+public class TemplatesBenchmark {
+    @Param({"wager", "group-chat"})
+    public String payload;
+
+    private Map<String, String> mFull;
+    private Map<String, String> mCompact;
+    private String mTable;
+    private Templates mTemplates;
+
+    @Setup
+    public void setUp() throws JSONException {
+        mFull = Payloads.fcmData(payload);
+        mCompact = Payloads.fcmData(payload + "-template");
+        mTable = Payloads.json("templates");
+        mTemplates = Templates.parse(mTable);
+        System.out.println(payload + ": full " + size(mFull) + " bytes, template " + size(mCompact) + " bytes");
+    }
+
+    @Benchmark
+    public MapFields full() {
+        MapFields fields = new MapFields();
+        PayloadNormalizer.putData(fields, mFull);
+        PayloadNormalizer.normalize(fields);
+        return fields;
+    }
+
+    @Benchmark
+    public MapFields template() {
+        MapFields fields = new MapFields();
+        PayloadNormalizer.putData(fields, mCompact);
+        mTemplates.expand(fields);
+        PayloadNormalizer.normalize(fields);
+        return fields;
+    }
+
+    @Benchmark
+    public Templates parseTable() throws JSONException {
+        return Templates.parse(mTable);
+    }
+
+    /**
+     * What counts against FCM's 4 KB limit: the keys and values of the data.
+     */
+    private static int size(Map<String, String> data) {
+        Charset utf8 = Charset.forName("UTF-8");
+        int size = 0;
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            size += entry.getKey().getBytes(utf8).length + entry.getValue().getBytes(utf8).length;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,373 @@
+package com.dieam.reactnativepushnotification.core;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Compact binary form of a remote notification, sent base64 encoded in the single data field
+ * {@link #KEY} instead of one string field per attribute.
+ * <pre>
+ *   byte    schema version, {@link #VERSION}
+ *   then any number of fields, in any order:
+ *   varint  key: field number &lt;&lt; 3 | wire type
+ *           wire type 0: varint, a zigzag encoded int or long
+ *           wire type 2: varint length, then that many bytes of UTF-8 text (at most {@link #MAX_STRING_BYTES})
+ * </pre>
+ * Field numbers:
+ * <pre>
+ *    1 id                 int     10 bundle_title    string
+ *    2 notification_type  int     11 sender          string
+ *    3 wager_id           int     12 chat_message    string
+ *    4 group_id           int     13 channelId       string
+ *    5 user_id            int     14 largeIcon       string
+ *    6 bundle_id          int     15 bigPicture      string
+ *    7 chat_timestamp     long    16 tpl             string
+ *    8 title              string  17 tpl_args        string
+ *    9 message            string
+ * </pre>
+ * Fields with a number the decoder doesn't know are skipped, so new fields can be added without a
+ * new version; a payload of another version isn't decoded. The decoder makes a single pass over
+ * the base64 text and reads the fields out of the result in place, straight into a
+ * {@link PushMessage}: no intermediate map of strings, and numbers are never formatted or parsed.
+ */
+public final class CompactPayload {
+    public static final String KEY = "rnpn";
+    public static final int VERSION = 1;
+    public static final int MAX_STRING_BYTES = 4096;
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_STRING = 2;
+
+    private static final int FIELD_ID = 1;
+    private static final int FIELD_NOTIFICATION_TYPE = 2;
+    private static final int FIELD_WAGER_ID = 3;
+    private static final int FIELD_GROUP_ID = 4;
+    private static final int FIELD_USER_ID = 5;
+    private static final int FIELD_BUNDLE_ID = 6;
+    private static final int FIELD_CHAT_TIMESTAMP = 7;
+    private static final int FIELD_TITLE = 8;
+    private static final int FIELD_MESSAGE = 9;
+    private static final int FIELD_BUNDLE_TITLE = 10;
+    private static final int FIELD_SENDER = 11;
+    private static final int FIELD_CHAT_MESSAGE = 12;
+    private static final int FIELD_CHANNEL_ID = 13;
+    private static final int FIELD_LARGE_ICON = 14;
+    private static final int FIELD_BIG_PICTURE = 15;
+    private static final int FIELD_TEMPLATE = 16;
+    private static final int FIELD_TEMPLATE_ARGS = 17;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    // Sextet of each ASCII character, -1 if it isn't base64; URL-safe characters decode too
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < BASE64.length; i++) {
+            DECODE[BASE64[i]] = (byte) i;
+        }
+        DECODE['-'] = 62;
+        DECODE['_'] = 63;
+    }
+
+    private CompactPayload() {
+    }
+
+    /**
+     * @return the message, or null if the payload is malformed or of another schema version
+     */
+    public static PushMessage decode(String payload) {
+        try {
+            Reader reader = new Reader(decodeBase64(payload));
+            if (reader.readByte() != VERSION) {
+                return null;
+            }
+            PushMessage message = new PushMessage();
+            while (reader.hasMore()) {
+                long key = reader.readVarint();
+                int field = (int) (key >>> 3);
+                int wireType = (int) (key & 7);
+                if (wireType == WIRE_VARINT) {
+                    long value = zigzagDecode(reader.readVarint());
+                    switch (field) {
+                        case FIELD_ID:
+                            message.setId((int) value);
+                            break;
+                        case FIELD_NOTIFICATION_TYPE:
+                            message.setNotificationType((int) value);
+                            break;
+                        case FIELD_WAGER_ID:
+                            message.setWagerId((int) value);
+                            break;
+                        case FIELD_GROUP_ID:
+                            message.setGroupId((int) value);
+                            break;
+                        case FIELD_USER_ID:
+                            message.setUserId((int) value);
+                            break;
+                        case FIELD_BUNDLE_ID:
+                            message.setBundleId((int) value);
+                            break;
+                        case FIELD_CHAT_TIMESTAMP:
+                            message.setChatTimestamp(value);
+                            break;
+                        default:
+                            // Unknown field
+                            break;
+                    }
+                } else if (wireType == WIRE_STRING) {
+                    // Range checked before narrowing, so a length of 2^32 + 5 isn't read as 5
+                    long longLength = reader.readVarint();
+                    if (longLength < 0 || longLength > MAX_STRING_BYTES) {
+                        return null;
+                    }
+                    int length = (int) longLength;
+                    switch (field) {
+                        case FIELD_TITLE:
+                            message.setTitle(reader.readString(length));
+                            break;
+                        case FIELD_MESSAGE:
+                            message.setMessage(reader.readString(length));
+                            break;
+                        case FIELD_BUNDLE_TITLE:
+                            message.setBundleTitle(reader.readString(length));
+                            break;
+                        case FIELD_SENDER:
+                            message.setSender(reader.readString(length));
+                            break;
+                        case FIELD_CHAT_MESSAGE:
+                            message.setChatMessage(reader.readString(length));
+                            break;
+                        case FIELD_CHANNEL_ID:
+                            message.setChannelId(reader.readString(length));
+                            break;
+                        case FIELD_LARGE_ICON:
+                            message.setLargeIcon(reader.readString(length));
+                            break;
+                        case FIELD_BIG_PICTURE:
+                            message.setBigPicture(reader.readString(length));
+                            break;
+                        case FIELD_TEMPLATE:
+                            message.setTemplate(reader.readString(length));
+                            break;
+                        case FIELD_TEMPLATE_ARGS:
+                            message.setTemplateArgs(reader.readString(length));
+                            break;
+                        default:
+                            reader.skip(length);
+                            break;
+                    }
+                } else {
+                    return null;
+                }
+            }
+            return message;
+        } catch (IllegalArgumentException e) {
+            // Truncated, or not base64
+            return null;
+        }
+    }
+
+    /**
+     * Encodes the fields of the message that are set, for servers and tests.
+     */
+    public static String encode(PushMessage message) {
+        Writer writer = new Writer();
+        writer.writeByte(VERSION);
+        if (message.hasId()) {
+            writer.writeVarintField(FIELD_ID, message.getId());
+        }
+        if (message.getNotificationType() != 0) {
+            writer.writeVarintField(FIELD_NOTIFICATION_TYPE, message.getNotificationType());
+        }
+        if (message.getWagerId() != 0) {
+            writer.writeVarintField(FIELD_WAGER_ID, message.getWagerId());
+        }
+        if (message.getGroupId() != 0) {
+            writer.writeVarintField(FIELD_GROUP_ID, message.getGroupId());
+        }
+        if (message.getUserId() != 0) {
+            writer.writeVarintField(FIELD_USER_ID, message.getUserId());
+        }
+        if (message.hasBundleId()) {
+            writer.writeVarintField(FIELD_BUNDLE_ID, message.getBundleId());
+        }
+        if (message.hasChatTimestamp()) {
+            writer.writeVarintField(FIELD_CHAT_TIMESTAMP, message.getChatTimestamp());
+        }
+        writer.writeStringField(FIELD_TITLE, message.getTitle());
+        writer.writeStringField(FIELD_MESSAGE, message.getMessage());
+        writer.writeStringField(FIELD_BUNDLE_TITLE, message.getBundleTitle());
+        writer.writeStringField(FIELD_SENDER, message.getSender());
+        writer.writeStringField(FIELD_CHAT_MESSAGE, message.getChatMessage());
+        writer.writeStringField(FIELD_CHANNEL_ID, message.getChannelId());
+        writer.writeStringField(FIELD_LARGE_ICON, message.getLargeIcon());
+        writer.writeStringField(FIELD_BIG_PICTURE, message.getBigPicture());
+        writer.writeStringField(FIELD_TEMPLATE, message.getTemplate());
+        writer.writeStringField(FIELD_TEMPLATE_ARGS, message.getTemplateArgs());
+        return writer.toBase64();
+    }
+
+    private static long zigzagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long zigzagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Decodes base64 text, standard or URL-safe alphabet, padding optional.
+     *
+     * @throws IllegalArgumentException if the text isn't base64
+     */
+    private static byte[] decodeBase64(String text) {
+        int length = text.length();
+        while (length > 0 && text.charAt(length - 1) == '=') {
+            length--;
+        }
+        if (length % 4 == 1) {
+            throw new IllegalArgumentException("Truncated payload");
+        }
+
+        byte[] bytes = new byte[length * 3 / 4];
+        int out = 0;
+        int i = 0;
+        for (int end = length & ~3; i < end; i += 4) {
+            int quantum = sextet(text.charAt(i)) << 18 | sextet(text.charAt(i + 1)) << 12
+                    | sextet(text.charAt(i + 2)) << 6 | sextet(text.charAt(i + 3));
+            if (quantum < 0) {
+                throw new IllegalArgumentException("Not base64");
+            }
+            bytes[out++] = (byte) (quantum >> 16);
+            bytes[out++] = (byte) (quantum >> 8);
+            bytes[out++] = (byte) quantum;
+        }
+        if (i < length) {
+            // 2 or 3 characters left, for 1 or 2 bytes
+            int quantum = sextet(text.charAt(i)) << 18 | sextet(text.charAt(i + 1)) << 12;
+            if (i + 2 < length) {
+                quantum |= sextet(text.charAt(i + 2)) << 6;
+            }
+            if (quantum < 0) {
+                throw new IllegalArgumentException("Not base64");
+            }
+            bytes[out++] = (byte) (quantum >> 16);
+            if (out < bytes.length) {
+                bytes[out] = (byte) (quantum >> 8);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the sextet of the character, negative if it isn't base64
+     */
+    private static int sextet(char c) {
+        return c < 128 ? DECODE[c] : -1;
+    }
+
+    /**
+     * Reads the fields of a decoded payload in place, strings being the only copies made.
+     */
+    private static final class Reader {
+        private final byte[] mBytes;
+        private int mPosition;
+
+        Reader(byte[] bytes) {
+            mBytes = bytes;
+        }
+
+        boolean hasMore() {
+            return mPosition < mBytes.length;
+        }
+
+        int readByte() {
+            if (mPosition >= mBytes.length) {
+                throw new IllegalArgumentException("Truncated payload");
+            }
+            return mBytes[mPosition++] & 0xff;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        void skip(int length) {
+            if (length > mBytes.length - mPosition) {
+                throw new IllegalArgumentException("Truncated payload");
+            }
+            mPosition += length;
+        }
+
+        String readString(int length) {
+            int start = mPosition;
+            skip(length);
+            return new String(mBytes, start, length, UTF_8);
+        }
+    }
+
+    private static final class Writer {
+        private byte[] mBytes = new byte[256];
+        private int mLength;
+
+        void writeByte(int b) {
+            if (mLength == mBytes.length) {
+                byte[] bytes = new byte[mBytes.length * 2];
+                System.arraycopy(mBytes, 0, bytes, 0, mLength);
+                mBytes = bytes;
+            }
+            mBytes[mLength++] = (byte) b;
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7fL) != 0) {
+                writeByte((int) (value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeVarintField(int field, long value) {
+            writeVarint((field << 3) | WIRE_VARINT);
+            writeVarint(zigzagEncode(value));
+        }
+
+        void writeStringField(int field, String value) {
+            if (value == null) {
+                return;
+            }
+            byte[] utf8 = value.getBytes(UTF_8);
+            if (utf8.length > MAX_STRING_BYTES) {
+                throw new IllegalArgumentException("Field " + field + " is longer than " + MAX_STRING_BYTES + " bytes");
+            }
+            writeVarint((field << 3) | WIRE_STRING);
+            writeVarint(utf8.length);
+            for (byte b : utf8) {
+                writeByte(b);
+            }
+        }
+
+        String toBase64() {
+            StringBuilder out = new StringBuilder((mLength + 2) / 3 * 4);
+            for (int i = 0; i < mLength; i += 3) {
+                int b0 = mBytes[i] & 0xff;
+                int b1 = i + 1 < mLength ? mBytes[i + 1] & 0xff : 0;
+                int b2 = i + 2 < mLength ? mBytes[i + 2] & 0xff : 0;
+                out.append(BASE64[b0 >>> 2]);
+                out.append(BASE64[((b0 & 3) << 4) | (b1 >>> 4)]);
+                out.append(i + 1 < mLength ? BASE64[((b1 & 0xf) << 2) | (b2 >>> 6)] : '=');
+                out.append(i + 2 < mLength ? BASE64[b2 & 0x3f] : '=');
+            }
+            return out.toString();
+        }
+    }
+}
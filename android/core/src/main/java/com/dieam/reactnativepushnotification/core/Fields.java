@@ -0,0 +1,32 @@
+package com.dieam.reactnativepushnotification.core;
+
+import java.util.Set;
+
+/**
+ * The key-value view of a notification the core works on. On Android it is backed by a
+ * {@code Bundle}, on the plain JVM by {@link MapFields}.
+ * <p>
+ * Getters follow {@code Bundle}: a missing key, or a value of another type, reads as null, 0 or
+ * false. {@link #get(String)} returns a nested object as {@code Fields}.
+ */
+public interface Fields {
+    Set<String> keySet();
+
+    boolean containsKey(String key);
+
+    Object get(String key);
+
+    String getString(String key);
+
+    double getDouble(String key);
+
+    boolean getBoolean(String key);
+
+    void putString(String key, String value);
+
+    void putDouble(String key, double value);
+
+    void putBoolean(String key, boolean value);
+
+    void remove(String key);
+}
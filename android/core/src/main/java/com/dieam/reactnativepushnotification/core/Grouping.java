@@ -0,0 +1,45 @@
+package com.dieam.reactnativepushnotification.core;
+
+/**
+ * Decides how a notification is rendered: on its own, folded into the inbox notification of its
+ * bundle (e.g. every update of a wager), or folded into the conversation of a group chat.
+ */
+public final class Grouping {
+    public static final int SINGLE = 0;
+    public static final int GROUPED = 1;
+    public static final int GROUP_CHAT = 2;
+
+    /** The notification_type of group chat messages */
+    public static final int GROUP_CHAT_TYPE = 3;
+
+    private Grouping() {
+    }
+
+    /**
+     * @param groupingSupported whether the platform can fold messages, i.e. Android M and later
+     */
+    public static int classify(Fields payload, int notificationType, boolean groupingSupported) {
+        if (!groupingSupported || payload.getString("bundle_id") == null) {
+            return SINGLE;
+        }
+        if (notificationType == GROUP_CHAT_TYPE
+                && payload.getString("bundle_title") != null
+                && payload.getString("sender") != null
+                && payload.getString("chat_message") != null
+                && payload.getString("chat_timestamp") != null) {
+            return GROUP_CHAT;
+        }
+        if (payload.getString("message") != null && payload.getString("title") != null) {
+            return GROUPED;
+        }
+        return SINGLE;
+    }
+
+    /**
+     * The id the notification is posted with: folded messages replace the notification of their
+     * bundle.
+     */
+    public static int postedId(int kind, Fields payload, int notificationID) {
+        return kind == SINGLE ? notificationID : Integer.parseInt(payload.getString("bundle_id"));
+    }
+}
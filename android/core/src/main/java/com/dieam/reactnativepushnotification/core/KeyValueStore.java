@@ -0,0 +1,16 @@
+package com.dieam.reactnativepushnotification.core;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Persistent key-value storage, {@code SharedPreferences} on Android.
+ */
+public interface KeyValueStore {
+    Map<String, ?> getAll();
+
+    /**
+     * Writes the given values and removes the given keys in one batch.
+     */
+    void edit(Map<String, ?> put, Collection<String> remove);
+}
@@ -0,0 +1,79 @@
+package com.dieam.reactnativepushnotification.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link Fields} backed by a map, for running the core on the plain JVM.
+ */
+public class MapFields implements Fields {
+    private final Map<String, Object> mValues;
+
+    public MapFields() {
+        this(new HashMap<String, Object>());
+    }
+
+    public MapFields(Map<String, Object> values) {
+        mValues = values;
+    }
+
+    public Map<String, Object> asMap() {
+        return mValues;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return mValues.keySet();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return mValues.containsKey(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object get(String key) {
+        Object value = mValues.get(key);
+        return value instanceof Map ? new MapFields((Map<String, Object>) value) : value;
+    }
+
+    @Override
+    public String getString(String key) {
+        Object value = mValues.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    @Override
+    public double getDouble(String key) {
+        Object value = mValues.get(key);
+        return value instanceof Double ? (Double) value : 0.0;
+    }
+
+    @Override
+    public boolean getBoolean(String key) {
+        Object value = mValues.get(key);
+        return value instanceof Boolean && (Boolean) value;
+    }
+
+    @Override
+    public void putString(String key, String value) {
+        mValues.put(key, value);
+    }
+
+    @Override
+    public void putDouble(String key, double value) {
+        mValues.put(key, value);
+    }
+
+    @Override
+    public void putBoolean(String key, boolean value) {
+        mValues.put(key, value);
+    }
+
+    @Override
+    public void remove(String key) {
+        mValues.remove(key);
+    }
+}
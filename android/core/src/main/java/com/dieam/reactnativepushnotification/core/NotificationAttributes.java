@@ -0,0 +1,348 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+
+/**
+ * The attributes of a scheduled notification, and their JSON codec for the store of scheduled
+ * notifications.
+ */
+public class NotificationAttributes {
+    private static final String ID = "id";
+    private static final String MESSAGE = "message";
+    private static final String FIRE_DATE = "fireDate";
+    private static final String TITLE = "title";
+    private static final String TICKER = "ticker";
+    private static final String AUTO_CANCEL = "autoCancel";
+    private static final String LARGE_ICON = "largeIcon";
+    private static final String BIG_PICTURE = "bigPicture";
+    private static final String SMALL_ICON = "smallIcon";
+    private static final String BIG_TEXT = "bigText";
+    private static final String SUB_TEXT = "subText";
+    private static final String NUMBER = "number";
+    private static final String SOUND = "sound";
+    private static final String COLOR = "color";
+    private static final String GROUP = "group";
+    private static final String USER_INTERACTION = "userInteraction";
+    private static final String PLAY_SOUND = "playSound";
+    private static final String VIBRATE = "vibrate";
+    private static final String VIBRATION = "vibration";
+    private static final String ACTIONS = "actions";
+    private static final String TAG = "tag";
+    private static final String REPEAT_TYPE = "repeatType";
+    private static final String REPEAT_TIME = "repeatTime";
+    private static final String ONGOING = "ongoing";
+
+    private final String id;
+    private final String message;
+    private final double fireDate;
+    private final String title;
+    private final String ticker;
+    private final boolean autoCancel;
+    private final String largeIcon;
+    private final String bigPicture;
+    private final String smallIcon;
+    private final String bigText;
+    private final String subText;
+    private final String number;
+    private final String sound;
+    private final String color;
+    private final String group;
+    private final boolean userInteraction;
+    private final boolean playSound;
+    private final boolean vibrate;
+    private final double vibration;
+    private final String actions;
+    private final String tag;
+    private final String repeatType;
+    private final double repeatTime;
+    private final boolean ongoing;
+
+    public NotificationAttributes(Fields fields) {
+        id = fields.getString(ID);
+        message = fields.getString(MESSAGE);
+        fireDate = fields.getDouble(FIRE_DATE);
+        title = fields.getString(TITLE);
+        ticker = fields.getString(TICKER);
+        autoCancel = fields.getBoolean(AUTO_CANCEL);
+        largeIcon = fields.getString(LARGE_ICON);
+        bigPicture = fields.getString(BIG_PICTURE);
+        smallIcon = fields.getString(SMALL_ICON);
+        bigText = fields.getString(BIG_TEXT);
+        subText = fields.getString(SUB_TEXT);
+        number = fields.getString(NUMBER);
+        sound = fields.getString(SOUND);
+        color = fields.getString(COLOR);
+        group = fields.getString(GROUP);
+        userInteraction = fields.getBoolean(USER_INTERACTION);
+        playSound = fields.getBoolean(PLAY_SOUND);
+        vibrate = fields.getBoolean(VIBRATE);
+        vibration = fields.getDouble(VIBRATION);
+        actions = fields.getString(ACTIONS);
+        tag = fields.getString(TAG);
+        repeatType = fields.getString(REPEAT_TYPE);
+        repeatTime = fields.getDouble(REPEAT_TIME);
+        ongoing = fields.getBoolean(ONGOING);
+    }
+
+    private NotificationAttributes(JSONObject jsonObject) {
+        try {
+            id = jsonObject.has(ID) ? jsonObject.getString(ID) : null;
+            message = jsonObject.has(MESSAGE) ? jsonObject.getString(MESSAGE) : null;
+            fireDate = jsonObject.has(FIRE_DATE) ? jsonObject.getDouble(FIRE_DATE) : 0.0;
+            title = jsonObject.has(TITLE) ? jsonObject.getString(TITLE) : null;
+            ticker = jsonObject.has(TICKER) ? jsonObject.getString(TICKER) : null;
+            autoCancel = jsonObject.has(AUTO_CANCEL) ? jsonObject.getBoolean(AUTO_CANCEL) : true;
+            largeIcon = jsonObject.has(LARGE_ICON) ? jsonObject.getString(LARGE_ICON) : null;
+            bigPicture = jsonObject.has(BIG_PICTURE) ? jsonObject.getString(BIG_PICTURE) : null;
+            smallIcon = jsonObject.has(SMALL_ICON) ? jsonObject.getString(SMALL_ICON) : null;
+            bigText = jsonObject.has(BIG_TEXT) ? jsonObject.getString(BIG_TEXT) : null;
+            subText = jsonObject.has(SUB_TEXT) ? jsonObject.getString(SUB_TEXT) : null;
+            number = jsonObject.has(NUMBER) ? jsonObject.getString(NUMBER) : null;
+            sound = jsonObject.has(SOUND) ? jsonObject.getString(SOUND) : null;
+            color = jsonObject.has(COLOR) ? jsonObject.getString(COLOR) : null;
+            group = jsonObject.has(GROUP) ? jsonObject.getString(GROUP) : null;
+            userInteraction = jsonObject.has(USER_INTERACTION) ? jsonObject.getBoolean(USER_INTERACTION) : false;
+            playSound = jsonObject.has(PLAY_SOUND) ? jsonObject.getBoolean(PLAY_SOUND) : true;
+            vibrate = jsonObject.has(VIBRATE) ? jsonObject.getBoolean(VIBRATE) : true;
+            vibration = jsonObject.has(VIBRATION) ? jsonObject.getDouble(VIBRATION) : 1000;
+            actions = jsonObject.has(ACTIONS) ? jsonObject.getString(ACTIONS) : null;
+            tag = jsonObject.has(TAG) ? jsonObject.getString(TAG) : null;
+            repeatType = jsonObject.has(REPEAT_TYPE) ? jsonObject.getString(REPEAT_TYPE) : null;
+            repeatTime = jsonObject.has(REPEAT_TIME) ? jsonObject.getDouble(REPEAT_TIME) : 0.0;
+            ongoing = jsonObject.has(ONGOING) ? jsonObject.getBoolean(ONGOING) : false;
+        } catch (JSONException e) {
+            throw new IllegalStateException("Exception while initializing NotificationAttributes from JSON", e);
+        }
+    }
+
+    public static NotificationAttributes fromJson(String notificationAttributesJson) throws JSONException {
+        return new NotificationAttributes(new JSONObject(notificationAttributesJson));
+    }
+
+    public void writeTo(Fields fields) {
+        fields.putString(ID, id);
+        fields.putString(MESSAGE, message);
+        fields.putDouble(FIRE_DATE, fireDate);
+        fields.putString(TITLE, title);
+        fields.putString(TICKER, ticker);
+        fields.putBoolean(AUTO_CANCEL, autoCancel);
+        fields.putString(LARGE_ICON, largeIcon);
+        fields.putString(BIG_PICTURE, bigPicture);
+        fields.putString(SMALL_ICON, smallIcon);
+        fields.putString(BIG_TEXT, bigText);
+        fields.putString(SUB_TEXT, subText);
+        fields.putString(NUMBER, number);
+        fields.putString(SOUND, sound);
+        fields.putString(COLOR, color);
+        fields.putString(GROUP, group);
+        fields.putBoolean(USER_INTERACTION, userInteraction);
+        fields.putBoolean(PLAY_SOUND, playSound);
+        fields.putBoolean(VIBRATE, vibrate);
+        fields.putDouble(VIBRATION, vibration);
+        fields.putString(ACTIONS, actions);
+        fields.putString(TAG, tag);
+        fields.putString(REPEAT_TYPE, repeatType);
+        fields.putDouble(REPEAT_TIME, repeatTime);
+        fields.putBoolean(ONGOING, ongoing);
+    }
+
+    public JSONObject toJson() throws JSONException {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put(ID, id);
+        jsonObject.put(MESSAGE, message);
+        jsonObject.put(FIRE_DATE, fireDate);
+        jsonObject.put(TITLE, title);
+        jsonObject.put(TICKER, ticker);
+        jsonObject.put(AUTO_CANCEL, autoCancel);
+        jsonObject.put(LARGE_ICON, largeIcon);
+        jsonObject.put(BIG_PICTURE, bigPicture);
+        jsonObject.put(SMALL_ICON, smallIcon);
+        jsonObject.put(BIG_TEXT, bigText);
+        jsonObject.put(SUB_TEXT, subText);
+        jsonObject.put(NUMBER, number);
+        jsonObject.put(SOUND, sound);
+        jsonObject.put(COLOR, color);
+        jsonObject.put(GROUP, group);
+        jsonObject.put(USER_INTERACTION, userInteraction);
+        jsonObject.put(PLAY_SOUND, playSound);
+        jsonObject.put(VIBRATE, vibrate);
+        jsonObject.put(VIBRATION, vibration);
+        jsonObject.put(ACTIONS, actions);
+        jsonObject.put(TAG, tag);
+        jsonObject.put(REPEAT_TYPE, repeatType);
+        jsonObject.put(REPEAT_TIME, repeatTime);
+        jsonObject.put(ONGOING, ongoing);
+        return jsonObject;
+    }
+
+    /**
+     * Used to find notifications. Compares like the fields written by {@link #writeTo(Fields)}
+     * would be compared to a JS object, without writing them.
+     *
+     * @param userInfo fields to match: null, Boolean, Number or String values
+     * @return true if all fields in userInfo match, false otherwise
+     */
+    public boolean matches(Map<String, ?> userInfo) {
+        for (Map.Entry<String, ?> entry : userInfo.entrySet()) {
+            String key = entry.getKey();
+            Object expected = entry.getValue();
+            if (!has(key)) {
+                return false;
+            }
+            Object actual = get(key);
+
+            if (expected == null) {
+                if (actual != null) {
+                    return false;
+                }
+            } else if (expected instanceof Boolean) {
+                if ((Boolean) expected != (actual instanceof Boolean && (Boolean) actual)) {
+                    return false;
+                }
+            } else if (expected instanceof Number) {
+                // Numbers are stored as doubles, reading one as an int gives 0
+                double number = ((Number) expected).doubleValue();
+                if (number != (actual instanceof Double ? (Double) actual : 0.0) && (int) number != 0) {
+                    return false;
+                }
+            } else if (expected instanceof String) {
+                if (!expected.equals(actual instanceof String ? actual : null)) {
+                    return false;
+                }
+            } else {
+                // There are no maps or arrays in the attributes
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean has(String key) {
+        switch (key) {
+            case ID:
+            case MESSAGE:
+            case FIRE_DATE:
+            case TITLE:
+            case TICKER:
+            case AUTO_CANCEL:
+            case LARGE_ICON:
+            case BIG_PICTURE:
+            case SMALL_ICON:
+            case BIG_TEXT:
+            case SUB_TEXT:
+            case NUMBER:
+            case SOUND:
+            case COLOR:
+            case GROUP:
+            case USER_INTERACTION:
+            case PLAY_SOUND:
+            case VIBRATE:
+            case VIBRATION:
+            case ACTIONS:
+            case TAG:
+            case REPEAT_TYPE:
+            case REPEAT_TIME:
+            case ONGOING:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private Object get(String key) {
+        switch (key) {
+            case ID:
+                return id;
+            case MESSAGE:
+                return message;
+            case FIRE_DATE:
+                return fireDate;
+            case TITLE:
+                return title;
+            case TICKER:
+                return ticker;
+            case AUTO_CANCEL:
+                return autoCancel;
+            case LARGE_ICON:
+                return largeIcon;
+            case BIG_PICTURE:
+                return bigPicture;
+            case SMALL_ICON:
+                return smallIcon;
+            case BIG_TEXT:
+                return bigText;
+            case SUB_TEXT:
+                return subText;
+            case NUMBER:
+                return number;
+            case SOUND:
+                return sound;
+            case COLOR:
+                return color;
+            case GROUP:
+                return group;
+            case USER_INTERACTION:
+                return userInteraction;
+            case PLAY_SOUND:
+                return playSound;
+            case VIBRATE:
+                return vibrate;
+            case VIBRATION:
+                return vibration;
+            case ACTIONS:
+                return actions;
+            case TAG:
+                return tag;
+            case REPEAT_TYPE:
+                return repeatType;
+            case REPEAT_TIME:
+                return repeatTime;
+            case ONGOING:
+                return ongoing;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    // For debugging
+    public String toString() {
+        return "NotificationAttributes{" +
+                "id='" + id + '\'' +
+                ", message='" + message + '\'' +
+                ", fireDate=" + fireDate +
+                ", title='" + title + '\'' +
+                ", ticker='" + ticker + '\'' +
+                ", autoCancel=" + autoCancel +
+                ", largeIcon='" + largeIcon + '\'' +
+                ", bigPicture='" + bigPicture + '\'' +
+                ", smallIcon='" + smallIcon + '\'' +
+                ", bigText='" + bigText + '\'' +
+                ", subText='" + subText + '\'' +
+                ", number='" + number + '\'' +
+                ", sound='" + sound + '\'' +
+                ", color='" + color + '\'' +
+                ", group='" + group + '\'' +
+                ", userInteraction=" + userInteraction +
+                ", playSound=" + playSound +
+                ", vibrate=" + vibrate +
+                ", vibration=" + vibration +
+                ", actions='" + actions + '\'' +
+                ", tag='" + tag + '\'' +
+                ", repeatType='" + repeatType + '\'' +
+                ", repeatTime=" + repeatTime +
+                ", ongoing=" + ongoing +
+                '}';
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public double getFireDate() {
+        return fireDate;
+    }
+}
@@ -0,0 +1,44 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The JSON form of a notification emitted to JS as {@code dataJSON}, done for every push that
+ * reaches JS.
+ */
+public final class PayloadJson {
+    private PayloadJson() {
+    }
+
+    public static JSONObject toJson(Fields fields, boolean wrapValues) throws JSONException {
+        return toJson(fields, Collections.<String>emptySet(), wrapValues);
+    }
+
+    /**
+     * @param omittedKeys top-level keys left out of the JSON
+     * @param wrapValues  whether to convert values with {@code JSONObject.wrap}, which Android only
+     *                    has from API 19; otherwise they are put as they are
+     */
+    public static JSONObject toJson(Fields fields, Collection<String> omittedKeys, boolean wrapValues)
+            throws JSONException {
+        JSONObject json = new JSONObject();
+        for (String key : fields.keySet()) {
+            if (omittedKeys.contains(key)) {
+                continue;
+            }
+            Object value = fields.get(key);
+            if (value instanceof Fields) {
+                json.put(key, toJson((Fields) value, Collections.<String>emptySet(), wrapValues));
+            } else if (wrapValues) {
+                json.put(key, JSONObject.wrap(value));
+            } else {
+                json.put(key, value);
+            }
+        }
+        return json;
+    }
+}
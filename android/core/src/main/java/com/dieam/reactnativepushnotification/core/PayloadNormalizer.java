@@ -0,0 +1,88 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.json.JSONObject;
+
+import java.util.Map;
+
+/**
+ * Turns the data of a remote message into the fields handed to JS and rendered.
+ */
+public final class PayloadNormalizer {
+    private PayloadNormalizer() {
+    }
+
+    /**
+     * Copies the data of an FCM message, overriding the title and body of its notification part.
+     */
+    public static void putData(Fields fields, Map<String, String> data) {
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            fields.putString(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Like {@link #putData(Fields, Map)}, but decodes the {@link CompactPayload#KEY} entry if the
+     * data has one: its fields are written as strings, after the other entries.
+     *
+     * @return the typed fields of the compact payload, or null if the data has none or it can't be
+     * decoded, in which case the entry is copied as it is
+     */
+    public static PushMessage putCompactData(Fields fields, Map<String, String> data) {
+        String payload = data.get(CompactPayload.KEY);
+        PushMessage message = payload != null ? CompactPayload.decode(payload) : null;
+        if (message == null) {
+            putData(fields, data);
+            return null;
+        }
+
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            if (!CompactPayload.KEY.equals(entry.getKey())) {
+                fields.putString(entry.getKey(), entry.getValue());
+            }
+        }
+        message.writeTo(fields);
+        return message;
+    }
+
+    /**
+     * Fills {@code message}, {@code title}, {@code soundName} and {@code color} from the
+     * {@code data} JSON when missing, and copies Twilio's {@code twi_body} to {@code message}.
+     *
+     * @return the badge number set in the {@code data} JSON, or -1
+     */
+    public static int normalize(Fields fields) {
+        JSONObject data = getPushData(fields.getString("data"));
+        // Copy `twi_body` to `message` to support Twilio
+        if (fields.containsKey("twi_body")) {
+            fields.putString("message", fields.getString("twi_body"));
+        }
+
+        if (data == null) {
+            return -1;
+        }
+        if (!fields.containsKey("message")) {
+            fields.putString("message", data.optString("alert", null));
+        }
+        if (!fields.containsKey("title")) {
+            fields.putString("title", data.optString("title", null));
+        }
+        if (!fields.containsKey("sound")) {
+            fields.putString("soundName", data.optString("sound", null));
+        }
+        if (!fields.containsKey("color")) {
+            fields.putString("color", data.optString("color", null));
+        }
+        return data.optInt("badge", -1);
+    }
+
+    private static JSONObject getPushData(String dataString) {
+        if (dataString == null) {
+            return null;
+        }
+        try {
+            return new JSONObject(dataString);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
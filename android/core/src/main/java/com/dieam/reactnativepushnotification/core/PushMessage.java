@@ -0,0 +1,244 @@
+package com.dieam.reactnativepushnotification.core;
+
+/**
+ * A remote notification with its ids and timestamps already typed, as decoded by
+ * {@link CompactPayload}, so rendering it doesn't parse them out of strings again.
+ * <p>
+ * The payload handed to JS and put in intents keeps the string fields of FCM data, written by
+ * {@link #writeTo(Fields)}.
+ */
+public final class PushMessage {
+    public static final int WAGER_TYPE = 2;
+    public static final int FRIEND_REQUEST_TYPE = 4;
+
+    private boolean hasId;
+    private int id;
+    private int notificationType;
+    private int wagerId;
+    private int groupId;
+    private int userId;
+    private boolean hasBundleId;
+    private int bundleId;
+    private boolean hasChatTimestamp;
+    private long chatTimestamp;
+    private String title;
+    private String message;
+    private String bundleTitle;
+    private String sender;
+    private String chatMessage;
+    private String channelId;
+    private String largeIcon;
+    private String bigPicture;
+    private String template;
+    private String templateArgs;
+
+    public boolean hasId() {
+        return hasId;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+        this.hasId = true;
+    }
+
+    public int getNotificationType() {
+        return notificationType;
+    }
+
+    public void setNotificationType(int notificationType) {
+        this.notificationType = notificationType;
+    }
+
+    public int getWagerId() {
+        return wagerId;
+    }
+
+    public void setWagerId(int wagerId) {
+        this.wagerId = wagerId;
+    }
+
+    public int getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(int groupId) {
+        this.groupId = groupId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public boolean hasBundleId() {
+        return hasBundleId;
+    }
+
+    public int getBundleId() {
+        return bundleId;
+    }
+
+    public void setBundleId(int bundleId) {
+        this.bundleId = bundleId;
+        this.hasBundleId = true;
+    }
+
+    public boolean hasChatTimestamp() {
+        return hasChatTimestamp;
+    }
+
+    public long getChatTimestamp() {
+        return chatTimestamp;
+    }
+
+    public void setChatTimestamp(long chatTimestamp) {
+        this.chatTimestamp = chatTimestamp;
+        this.hasChatTimestamp = true;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getBundleTitle() {
+        return bundleTitle;
+    }
+
+    public void setBundleTitle(String bundleTitle) {
+        this.bundleTitle = bundleTitle;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public void setSender(String sender) {
+        this.sender = sender;
+    }
+
+    public String getChatMessage() {
+        return chatMessage;
+    }
+
+    public void setChatMessage(String chatMessage) {
+        this.chatMessage = chatMessage;
+    }
+
+    public String getChannelId() {
+        return channelId;
+    }
+
+    public void setChannelId(String channelId) {
+        this.channelId = channelId;
+    }
+
+    public String getLargeIcon() {
+        return largeIcon;
+    }
+
+    public void setLargeIcon(String largeIcon) {
+        this.largeIcon = largeIcon;
+    }
+
+    public String getBigPicture() {
+        return bigPicture;
+    }
+
+    public void setBigPicture(String bigPicture) {
+        this.bigPicture = bigPicture;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public void setTemplate(String template) {
+        this.template = template;
+    }
+
+    public String getTemplateArgs() {
+        return templateArgs;
+    }
+
+    public void setTemplateArgs(String templateArgs) {
+        this.templateArgs = templateArgs;
+    }
+
+    /**
+     * @return the id of the wager, group or user the notification is about, 0 for other types
+     */
+    public int getEntityId() {
+        switch (notificationType) {
+            case WAGER_TYPE:
+                return wagerId;
+            case Grouping.GROUP_CHAT_TYPE:
+                return groupId;
+            case FRIEND_REQUEST_TYPE:
+                return userId;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Writes the fields that are set as FCM data would have them, numbers as strings.
+     */
+    public void writeTo(Fields fields) {
+        if (hasId) {
+            fields.putString("id", String.valueOf(id));
+        }
+        if (notificationType != 0) {
+            fields.putString("notification_type", String.valueOf(notificationType));
+        }
+        if (wagerId != 0) {
+            fields.putString("wager_id", String.valueOf(wagerId));
+        }
+        if (groupId != 0) {
+            fields.putString("group_id", String.valueOf(groupId));
+        }
+        if (userId != 0) {
+            fields.putString("user_id", String.valueOf(userId));
+        }
+        if (hasBundleId) {
+            fields.putString("bundle_id", String.valueOf(bundleId));
+        }
+        if (hasChatTimestamp) {
+            fields.putString("chat_timestamp", String.valueOf(chatTimestamp));
+        }
+        putIfSet(fields, "title", title);
+        putIfSet(fields, "message", message);
+        putIfSet(fields, "bundle_title", bundleTitle);
+        putIfSet(fields, "sender", sender);
+        putIfSet(fields, "chat_message", chatMessage);
+        putIfSet(fields, "channelId", channelId);
+        putIfSet(fields, "largeIcon", largeIcon);
+        putIfSet(fields, "bigPicture", bigPicture);
+        putIfSet(fields, Templates.KEY_TEMPLATE, template);
+        putIfSet(fields, Templates.KEY_ARGS, templateArgs);
+    }
+
+    private static void putIfSet(Fields fields, String key, String value) {
+        if (value != null) {
+            fields.putString(key, value);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.dieam.reactnativepushnotification.core;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+/**
+ * Fire dates of repeating scheduled notifications.
+ */
+public final class Recurrence {
+    private static final long ONE_MINUTE = 60 * 1000;
+    private static final long ONE_HOUR = 60 * ONE_MINUTE;
+    private static final long ONE_DAY = 24 * ONE_HOUR;
+    private static final List<String> REPEAT_TYPES = Arrays.asList("time", "month", "week", "day", "hour", "minute");
+
+    private Recurrence() {
+    }
+
+    public static boolean isValidRepeatType(String repeatType) {
+        return REPEAT_TYPES.contains(repeatType);
+    }
+
+    /**
+     * @param repeatTime the interval in ms, for the {@code time} repeat type
+     * @param now        the current time, monthly notifications repeat in the month after it
+     * @return the next fire date, or 0 when the repeat type is invalid or {@code time} has no
+     * interval
+     */
+    public static long nextFireDate(String repeatType, long repeatTime, long fireDate, long now) {
+        if (repeatType == null) {
+            return 0;
+        }
+        switch (repeatType) {
+            case "time":
+                return repeatTime > 0 ? fireDate + repeatTime : 0;
+            case "month":
+                return nextMonth(fireDate, now);
+            case "week":
+                return fireDate + 7 * ONE_DAY;
+            case "day":
+                return fireDate + ONE_DAY;
+            case "hour":
+                return fireDate + ONE_HOUR;
+            case "minute":
+                return fireDate + ONE_MINUTE;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Same day of month, hour and minute as {@code fireDate}, in the month after {@code now},
+     * falling back to the last day of shorter months.
+     */
+    private static long nextMonth(long fireDate, long now) {
+        final int monthsInYear = 11;
+
+        final Calendar fireDateCalendar = new GregorianCalendar();
+        fireDateCalendar.setTime(new Date(fireDate));
+        final int fireDay = fireDateCalendar.get(Calendar.DAY_OF_MONTH);
+        final int fireMinute = fireDateCalendar.get(Calendar.MINUTE);
+        final int fireHour = fireDateCalendar.get(Calendar.HOUR_OF_DAY);
+
+        final Calendar nextEvent = new GregorianCalendar();
+        nextEvent.setTime(new Date(now));
+        final int currentMonth = nextEvent.get(Calendar.MONTH);
+        int nextMonth = currentMonth < monthsInYear ? (currentMonth + 1) : 0;
+        // From the 29th on, setting a shorter month would roll over into the month after it
+        nextEvent.set(Calendar.DAY_OF_MONTH, 1);
+        nextEvent.set(Calendar.YEAR, nextEvent.get(Calendar.YEAR) + (nextMonth == 0 ? 1 : 0));
+        nextEvent.set(Calendar.MONTH, nextMonth);
+        final int maxDay = nextEvent.getActualMaximum(Calendar.DAY_OF_MONTH);
+        nextEvent.set(Calendar.DAY_OF_MONTH, fireDay <= maxDay ? fireDay : maxDay);
+        nextEvent.set(Calendar.HOUR_OF_DAY, fireHour);
+        nextEvent.set(Calendar.MINUTE, fireMinute);
+        nextEvent.set(Calendar.SECOND, 0);
+        return nextEvent.getTimeInMillis();
+    }
+}
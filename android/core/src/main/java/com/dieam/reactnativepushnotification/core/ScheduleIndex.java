@@ -0,0 +1,180 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Scheduled notifications ordered by fire date, so they can be listed page by page without
+ * parsing every entry of the store of scheduled notifications.
+ * <p>
+ * The id to fire date mapping is persisted in its own small store. Entries missing from it (e.g.
+ * scheduled by an older version of the library) are parsed once and added when the index is
+ * first loaded.
+ */
+public class ScheduleIndex {
+    private final KeyValueStore mScheduled;
+    private final KeyValueStore mIndexPersistence;
+    private final TreeSet<Entry> mByFireDate = new TreeSet<>();
+    private final Map<String, Entry> mById = new HashMap<>();
+    private boolean mLoaded;
+
+    /**
+     * @param scheduled        the scheduled notifications, as JSON by id
+     * @param indexPersistence where the fire date of each id is kept
+     */
+    public ScheduleIndex(KeyValueStore scheduled, KeyValueStore indexPersistence) {
+        mScheduled = scheduled;
+        mIndexPersistence = indexPersistence;
+    }
+
+    public synchronized void put(String id, long fireDate) {
+        load();
+        removeFromMemory(id);
+        Entry entry = new Entry(fireDate, id);
+        mByFireDate.add(entry);
+        mById.put(id, entry);
+        mIndexPersistence.edit(Collections.singletonMap(id, fireDate), Collections.<String>emptyList());
+    }
+
+    public synchronized void remove(String id) {
+        load();
+        if (removeFromMemory(id)) {
+            mIndexPersistence.edit(Collections.<String, Object>emptyMap(), Collections.singletonList(id));
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} entries with {@code from <= fireDate <= to}, in fire date order,
+     * starting after {@code cursor} when given.
+     */
+    public synchronized List<Entry> query(long from, long to, String cursor, int limit) {
+        load();
+
+        NavigableSet<Entry> range;
+        Entry after = cursor != null ? Entry.parse(cursor) : null;
+        if (after != null && after.compareTo(new Entry(from, "")) >= 0) {
+            range = mByFireDate.tailSet(after, false);
+        } else {
+            range = mByFireDate.tailSet(new Entry(from, ""), true);
+        }
+
+        List<Entry> page = new ArrayList<>(Math.min(limit, range.size()));
+        for (Entry entry : range) {
+            if (entry.fireDate > to || page.size() == limit) {
+                break;
+            }
+            page.add(entry);
+        }
+        return page;
+    }
+
+    // Must hold the lock
+    private void load() {
+        if (mLoaded) {
+            return;
+        }
+        mLoaded = true;
+
+        Map<String, ?> indexed = mIndexPersistence.getAll();
+        Map<String, Long> added = new HashMap<>();
+        List<String> removed = new ArrayList<>();
+
+        for (Map.Entry<String, ?> scheduled : mScheduled.getAll().entrySet()) {
+            String id = scheduled.getKey();
+            Object fireDate = indexed.get(id);
+            long fireDateLong;
+            if (fireDate instanceof Long) {
+                fireDateLong = (Long) fireDate;
+            } else {
+                if (!(scheduled.getValue() instanceof String)) {
+                    continue;
+                }
+                try {
+                    fireDateLong = (long) new JSONObject((String) scheduled.getValue()).optDouble("fireDate", 0);
+                } catch (JSONException e) {
+                    // Not a scheduled notification, it can't be listed
+                    continue;
+                }
+                added.put(id, fireDateLong);
+            }
+            Entry entry = new Entry(fireDateLong, id);
+            mByFireDate.add(entry);
+            mById.put(id, entry);
+        }
+
+        for (String id : indexed.keySet()) {
+            if (!mById.containsKey(id)) {
+                removed.add(id);
+            }
+        }
+
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            mIndexPersistence.edit(added, removed);
+        }
+    }
+
+    // Must hold the lock
+    private boolean removeFromMemory(String id) {
+        Entry entry = mById.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        mByFireDate.remove(entry);
+        return true;
+    }
+
+    public static final class Entry implements Comparable<Entry> {
+        public final long fireDate;
+        public final String id;
+
+        public Entry(long fireDate, String id) {
+            this.fireDate = fireDate;
+            this.id = id;
+        }
+
+        /**
+         * Opaque cursor handed to JS to continue after this entry.
+         */
+        public String toCursor() {
+            return fireDate + ":" + id;
+        }
+
+        public static Entry parse(String cursor) {
+            int separator = cursor.indexOf(':');
+            if (separator < 0) {
+                return null;
+            }
+            try {
+                return new Entry(Long.parseLong(cursor.substring(0, separator)), cursor.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (fireDate != other.fireDate) {
+                return fireDate < other.fireDate ? -1 : 1;
+            }
+            return id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry && compareTo((Entry) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (int) (fireDate ^ (fireDate >>> 32)) + id.hashCode();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A table of notification templates, so a push can carry a template id and its arguments instead
+ * of the full, localized title and message.
+ * <p>
+ * The table is a JSON object of templates by id; a template maps field names to patterns in which
+ * {@code {0}}, {@code {1}}, ... stand for the arguments, and a doubled opening brace for one brace:
+ * <pre>
+ * {"wager_accepted": {"title": "Wager accepted", "message": "{0} accepted your {1} wager on {2}"}}
+ * </pre>
+ * A push refers to it with {@link #KEY_TEMPLATE} and {@link #KEY_ARGS}, the arguments separated by
+ * {@link #ARG_SEPARATOR}. Patterns are compiled when the table is parsed; expanding one only
+ * allocates the resulting string.
+ */
+public final class Templates {
+    public static final String KEY_TEMPLATE = "tpl";
+    public static final String KEY_ARGS = "tpl_args";
+    /** Unit separator, which doesn't appear in text */
+    public static final char ARG_SEPARATOR = '\u001f';
+
+    private static final Templates EMPTY = new Templates(Collections.<String, Template>emptyMap());
+
+    private final Map<String, Template> mTemplates;
+
+    private Templates(Map<String, Template> templates) {
+        mTemplates = templates;
+    }
+
+    public static Templates empty() {
+        return EMPTY;
+    }
+
+    public static Templates parse(String json) throws JSONException {
+        JSONObject table = new JSONObject(json);
+        Map<String, Template> templates = new HashMap<>();
+        Iterator<String> ids = table.keys();
+        while (ids.hasNext()) {
+            String id = ids.next();
+            JSONObject fields = table.getJSONObject(id);
+            List<String> keys = new ArrayList<>();
+            List<Pattern> patterns = new ArrayList<>();
+            Iterator<String> fieldKeys = fields.keys();
+            while (fieldKeys.hasNext()) {
+                String key = fieldKeys.next();
+                keys.add(key);
+                patterns.add(Pattern.compile(fields.getString(key)));
+            }
+            templates.put(id, new Template(keys.toArray(new String[0]), patterns.toArray(new Pattern[0])));
+        }
+        return new Templates(templates);
+    }
+
+    public int size() {
+        return mTemplates.size();
+    }
+
+    /**
+     * Replaces {@link #KEY_TEMPLATE} and {@link #KEY_ARGS} with the fields of the template. Fields
+     * the payload already has are kept.
+     *
+     * @return false if the fields don't refer to a template or the template is unknown, in which
+     * case they are left as they are
+     */
+    public boolean expand(Fields fields) {
+        String id = fields.getString(KEY_TEMPLATE);
+        if (id == null) {
+            return false;
+        }
+        Template template = mTemplates.get(id);
+        if (template == null) {
+            return false;
+        }
+
+        String args = fields.getString(KEY_ARGS);
+        for (int i = 0; i < template.keys.length; i++) {
+            if (!fields.containsKey(template.keys[i])) {
+                fields.putString(template.keys[i], template.patterns[i].expand(args));
+            }
+        }
+        fields.remove(KEY_TEMPLATE);
+        fields.remove(KEY_ARGS);
+        return true;
+    }
+
+    private static final class Template {
+        final String[] keys;
+        final Pattern[] patterns;
+
+        Template(String[] keys, Pattern[] patterns) {
+            this.keys = keys;
+            this.patterns = patterns;
+        }
+    }
+
+    /**
+     * A pattern as a sequence of literal text and argument references.
+     */
+    static final class Pattern {
+        private final String mLiterals;
+        // Per segment: literal start and end in mLiterals, or -1 and the argument index
+        private final int[] mSegments;
+
+        private Pattern(String literals, int[] segments) {
+            mLiterals = literals;
+            mSegments = segments;
+        }
+
+        static Pattern compile(String pattern) {
+            StringBuilder literals = new StringBuilder(pattern.length());
+            List<Integer> segments = new ArrayList<>();
+            int literalStart = 0;
+            int i = 0;
+            while (i < pattern.length()) {
+                char c = pattern.charAt(i);
+                if (c != '{') {
+                    literals.append(c);
+                    i++;
+                    continue;
+                }
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '{') {
+                    literals.append('{');
+                    i += 2;
+                    continue;
+                }
+                int end = i + 1;
+                while (end < pattern.length() && Character.isDigit(pattern.charAt(end))) {
+                    end++;
+                }
+                if (end == i + 1 || end == pattern.length() || pattern.charAt(end) != '}') {
+                    // Not an argument reference
+                    literals.append(c);
+                    i++;
+                    continue;
+                }
+                if (literals.length() > literalStart) {
+                    segments.add(literalStart);
+                    segments.add(literals.length());
+                    literalStart = literals.length();
+                }
+                segments.add(-1);
+                segments.add(parseIndex(pattern, i + 1, end));
+                i = end + 1;
+            }
+            if (literals.length() > literalStart) {
+                segments.add(literalStart);
+                segments.add(literals.length());
+            }
+
+            int[] array = new int[segments.size()];
+            for (int j = 0; j < array.length; j++) {
+                array[j] = segments.get(j);
+            }
+            return new Pattern(literals.toString(), array);
+        }
+
+        /**
+         * @return the index, Integer.MAX_VALUE if it doesn't fit an int, which like any index past
+         * the last argument expands to nothing
+         */
+        private static int parseIndex(String pattern, int start, int end) {
+            long index = 0;
+            for (int i = start; i < end; i++) {
+                index = index * 10 + Character.digit(pattern.charAt(i), 10);
+                if (index > Integer.MAX_VALUE) {
+                    return Integer.MAX_VALUE;
+                }
+            }
+            return (int) index;
+        }
+
+        /**
+         * @param args the arguments separated by {@link #ARG_SEPARATOR}, missing ones expand to
+         *             nothing
+         */
+        String expand(String args) {
+            StringBuilder out = new StringBuilder(mLiterals.length() + (args != null ? args.length() : 0));
+            for (int i = 0; i < mSegments.length; i += 2) {
+                if (mSegments[i] >= 0) {
+                    out.append(mLiterals, mSegments[i], mSegments[i + 1]);
+                } else if (args != null) {
+                    appendArg(out, args, mSegments[i + 1]);
+                }
+            }
+            return out.toString();
+        }
+
+        private static void appendArg(StringBuilder out, String args, int index) {
+            int start = 0;
+            for (int i = 0; i < index; i++) {
+                start = args.indexOf(ARG_SEPARATOR, start);
+                if (start < 0) {
+                    return;
+                }
+                start++;
+            }
+            int end = args.indexOf(ARG_SEPARATOR, start);
+            out.append(args, start, end >= 0 ? end : args.length());
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompactPayloadTest {
+    private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    // Field keys, field number << 3 | wire type
+    private static final int KEY_ID = 1 << 3;
+    private static final int KEY_CHAT_TIMESTAMP = 7 << 3;
+    private static final int KEY_TITLE = 8 << 3 | 2;
+
+    @Test
+    public void roundTripsEveryField() {
+        PushMessage message = new PushMessage();
+        message.setId(7);
+        message.setNotificationType(PushMessage.WAGER_TYPE);
+        message.setWagerId(12);
+        message.setGroupId(34);
+        message.setUserId(56);
+        message.setBundleId(78);
+        message.setChatTimestamp(1571502112000L);
+        message.setTitle("Rivalbet");
+        message.setMessage("Wager accepted");
+        message.setBundleTitle("Wagers");
+        message.setSender("Alex");
+        message.setChatMessage("gg");
+        message.setChannelId("wagers");
+        message.setLargeIcon("https://example.com/icon.png");
+        message.setBigPicture("https://example.com/picture.png");
+        message.setTemplate("wager_accepted");
+        message.setTemplateArgs("[\"Alex\"]");
+
+        PushMessage decoded = CompactPayload.decode(CompactPayload.encode(message));
+
+        assertEquals(7, decoded.getId());
+        assertEquals(PushMessage.WAGER_TYPE, decoded.getNotificationType());
+        assertEquals(12, decoded.getWagerId());
+        assertEquals(34, decoded.getGroupId());
+        assertEquals(56, decoded.getUserId());
+        assertEquals(78, decoded.getBundleId());
+        assertEquals(1571502112000L, decoded.getChatTimestamp());
+        assertEquals("Rivalbet", decoded.getTitle());
+        assertEquals("Wager accepted", decoded.getMessage());
+        assertEquals("Wagers", decoded.getBundleTitle());
+        assertEquals("Alex", decoded.getSender());
+        assertEquals("gg", decoded.getChatMessage());
+        assertEquals("wagers", decoded.getChannelId());
+        assertEquals("https://example.com/icon.png", decoded.getLargeIcon());
+        assertEquals("https://example.com/picture.png", decoded.getBigPicture());
+        assertEquals("wager_accepted", decoded.getTemplate());
+        assertEquals("[\"Alex\"]", decoded.getTemplateArgs());
+    }
+
+    @Test
+    public void roundTripsNegativeNumbers() {
+        PushMessage message = new PushMessage();
+        message.setId(-1);
+        message.setGroupId(Integer.MIN_VALUE);
+        message.setUserId(Integer.MAX_VALUE);
+        message.setChatTimestamp(Long.MIN_VALUE);
+
+        PushMessage decoded = CompactPayload.decode(CompactPayload.encode(message));
+
+        assertEquals(-1, decoded.getId());
+        assertEquals(Integer.MIN_VALUE, decoded.getGroupId());
+        assertEquals(Integer.MAX_VALUE, decoded.getUserId());
+        assertEquals(Long.MIN_VALUE, decoded.getChatTimestamp());
+    }
+
+    @Test
+    public void decodesZigzagVarints() {
+        // 3 -> -2, 4 -> 2 and a ten byte varint for Long.MAX_VALUE
+        PushMessage decoded = CompactPayload.decode(base64(bytes(CompactPayload.VERSION,
+                KEY_ID, 3,
+                KEY_CHAT_TIMESTAMP, 0xfe, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0x01), true));
+
+        assertEquals(-2, decoded.getId());
+        assertEquals(Long.MAX_VALUE, decoded.getChatTimestamp());
+    }
+
+    @Test
+    public void rejectsOtherVersions() {
+        assertEquals(7, CompactPayload.decode(base64(bytes(CompactPayload.VERSION, KEY_ID, 14), true)).getId());
+        assertNull(CompactPayload.decode(base64(bytes(CompactPayload.VERSION + 1, KEY_ID, 14), true)));
+        assertNull(CompactPayload.decode(base64(bytes(0, KEY_ID, 14), true)));
+    }
+
+    @Test
+    public void rejectsAnEmptyPayload() {
+        assertNull(CompactPayload.decode(""));
+    }
+
+    @Test
+    public void rejectsTruncatedPayloads() {
+        // Cut inside a key
+        assertNull(CompactPayload.decode(base64(bytes(CompactPayload.VERSION, 0x80), true)));
+        // Cut inside a varint value
+        assertNull(CompactPayload.decode(base64(bytes(CompactPayload.VERSION, KEY_ID, 0x80), true)));
+        // Cut before a string length
+        assertNull(CompactPayload.decode(base64(bytes(CompactPayload.VERSION, KEY_TITLE), true)));
+        // Cut inside a string body
+        assertNull(CompactPayload.decode(base64(bytes(CompactPayload.VERSION, KEY_TITLE, 5, 'R', 'i'), true)));
+    }
+
+    @Test
+    public void rejectsEveryPrefixOfAPayloadThatEndsInsideAField() {
+        PushMessage message = new PushMessage();
+        message.setId(300);
+        message.setTitle("Rivalbet");
+        byte[] bytes = bytesOf(message);
+
+        // version, key and two byte varint of id, key, length and 8 bytes of title
+        assertEquals(14, bytes.length);
+        for (int length = 0; length < bytes.length; length++) {
+            if (length == 1 || length == 4) {
+                // Ends between fields
+                continue;
+            }
+            byte[] prefix = new byte[length];
+            System.arraycopy(bytes, 0, prefix, 0, length);
+            assertNull("prefix of " + length + " bytes", CompactPayload.decode(base64(prefix, true)));
+        }
+    }
+
+    @Test
+    public void skipsUnknownFields() {
+        PushMessage decoded = CompactPayload.decode(base64(bytes(CompactPayload.VERSION,
+                // Field 30, varint
+                0xf0, 0x01, 0x96, 0x01,
+                // Field 31, string
+                0xfa, 0x01, 2, 'x', 'y',
+                KEY_ID, 14,
+                // Field 31, empty string
+                0xfa, 0x01, 0), true));
+
+        assertEquals(7, decoded.getId());
+        assertNull(decoded.getTitle());
+    }
+
+    @Test
+    public void rejectsUnknownWireTypes() {
+        // Field 1, wire type 1 (fixed 64 bit), which the schema doesn't use
+        assertNull(CompactPayload.decode(base64(bytes(CompactPayload.VERSION, 1 << 3 | 1, 0, 0, 0, 0, 0, 0, 0, 0), true)));
+    }
+
+    @Test
+    public void rejectsVarintsLongerThan64Bits() {
+        assertNull(CompactPayload.decode(base64(bytes(CompactPayload.VERSION,
+                KEY_ID, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x01), true)));
+    }
+
+    @Test
+    public void decodesUrlSafeAndUnpaddedText() {
+        PushMessage message = new PushMessage();
+        message.setId(7);
+        // Encodes to text with both '+' and '/', and padding
+        message.setTitle("~~~???>>>");
+        String standard = CompactPayload.encode(message);
+        assertTrue(standard, standard.indexOf('+') >= 0 && standard.indexOf('/') >= 0);
+        assertTrue(standard, standard.endsWith("="));
+
+        String urlSafe = standard.replace('+', '-').replace('/', '_');
+        String unpadded = standard.replace("=", "");
+        String urlSafeUnpadded = urlSafe.replace("=", "");
+
+        for (String payload : new String[]{urlSafe, unpadded, urlSafeUnpadded}) {
+            PushMessage decoded = CompactPayload.decode(payload);
+            assertEquals(payload, 7, decoded.getId());
+            assertEquals(payload, "~~~???>>>", decoded.getTitle());
+        }
+    }
+
+    @Test
+    public void rejectsTextThatIsntBase64() {
+        assertNull(CompactPayload.decode("!"));
+        assertNull(CompactPayload.decode("AQgO!A=="));
+        assertNull(CompactPayload.decode("AQg\u00e9"));
+        // One character left over can't hold a byte
+        assertNull(CompactPayload.decode("AQgOA"));
+    }
+
+    @Test
+    public void acceptsStringsUpToTheLimit() {
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < CompactPayload.MAX_STRING_BYTES; i++) {
+            title.append('a');
+        }
+        PushMessage message = new PushMessage();
+        message.setTitle(title.toString());
+
+        assertEquals(title.toString(), CompactPayload.decode(CompactPayload.encode(message)).getTitle());
+    }
+
+    @Test
+    public void rejectsStringsOverTheLimit() {
+        int length = CompactPayload.MAX_STRING_BYTES + 1;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(CompactPayload.VERSION);
+        out.write(KEY_TITLE);
+        out.write(length & 0x7f | 0x80);
+        out.write(length >>> 7);
+        for (int i = 0; i < length; i++) {
+            out.write('a');
+        }
+
+        assertNull(CompactPayload.decode(base64(out.toByteArray(), true)));
+    }
+
+    @Test
+    public void rejectsLengthsThatOnlyFitOnceTruncatedToAnInt() {
+        // 2^32 + 5 would be read as 5 if narrowed before the range check
+        assertNull(CompactPayload.decode(base64(bytes(CompactPayload.VERSION,
+                KEY_TITLE, 0x85, 0x80, 0x80, 0x80, 0x10, 'h', 'e', 'l', 'l', 'o'), true)));
+        // 2^63, negative as a long
+        assertNull(CompactPayload.decode(base64(bytes(CompactPayload.VERSION,
+                KEY_TITLE, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x80, 0x01), true)));
+    }
+
+    @Test
+    public void encodeRejectsStringsOverTheLimit() {
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i <= CompactPayload.MAX_STRING_BYTES; i++) {
+            title.append('a');
+        }
+        PushMessage message = new PushMessage();
+        message.setTitle(title.toString());
+
+        try {
+            CompactPayload.encode(message);
+            fail("encoded a string over the limit");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] bytesOf(PushMessage message) {
+        String text = CompactPayload.encode(message).replace("=", "");
+        byte[] bytes = new byte[text.length() * 3 / 4];
+        int bits = 0;
+        int bitCount = 0;
+        int out = 0;
+        for (int i = 0; i < text.length(); i++) {
+            bits = bits << 6 | new String(BASE64).indexOf(text.charAt(i));
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                bytes[out++] = (byte) (bits >>> bitCount);
+            }
+        }
+        return bytes;
+    }
+
+    private static String base64(byte[] bytes, boolean padded) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < bytes.length; i += 3) {
+            int b0 = bytes[i] & 0xff;
+            int b1 = i + 1 < bytes.length ? bytes[i + 1] & 0xff : 0;
+            int b2 = i + 2 < bytes.length ? bytes[i + 2] & 0xff : 0;
+            out.append(BASE64[b0 >>> 2]);
+            out.append(BASE64[((b0 & 3) << 4) | (b1 >>> 4)]);
+            if (i + 1 < bytes.length) {
+                out.append(BASE64[((b1 & 0xf) << 2) | (b2 >>> 6)]);
+            } else if (padded) {
+                out.append('=');
+            }
+            if (i + 2 < bytes.length) {
+                out.append(BASE64[b2 & 0x3f]);
+            } else if (padded) {
+                out.append('=');
+            }
+        }
+        return out.toString();
+    }
+}
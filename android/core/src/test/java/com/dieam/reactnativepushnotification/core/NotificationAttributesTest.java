@@ -0,0 +1,87 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.json.JSONException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link NotificationAttributes#matches(Map)} compares like the fields written to a JS object
+ * would be compared, for {@code cancelLocalNotifications}.
+ */
+public class NotificationAttributesTest {
+    private NotificationAttributes mAttributes;
+
+    @Before
+    public void setUp() {
+        MapFields fields = new MapFields();
+        fields.putString("id", "42");
+        fields.putString("message", "Your wager was accepted");
+        fields.putDouble("fireDate", 1571502112000.0);
+        fields.putBoolean("ongoing", false);
+        fields.putBoolean("playSound", true);
+        mAttributes = new NotificationAttributes(fields);
+    }
+
+    @Test
+    public void matchesStrings() {
+        assertTrue(mAttributes.matches(userInfo("id", "42")));
+        assertFalse(mAttributes.matches(userInfo("id", "43")));
+    }
+
+    @Test
+    public void matchesBooleans() {
+        assertTrue(mAttributes.matches(userInfo("playSound", true)));
+        assertTrue(mAttributes.matches(userInfo("ongoing", false)));
+        assertFalse(mAttributes.matches(userInfo("ongoing", true)));
+    }
+
+    @Test
+    public void matchesNumbersAsDoubles() {
+        assertTrue(mAttributes.matches(userInfo("fireDate", 1571502112000L)));
+        assertTrue(mAttributes.matches(userInfo("fireDate", 1571502112000.0)));
+        assertFalse(mAttributes.matches(userInfo("fireDate", 1571502113000.0)));
+        // Read as an int by the bridge, 0 matches any number
+        assertTrue(mAttributes.matches(userInfo("fireDate", 0)));
+    }
+
+    @Test
+    public void matchesNullOnlyWhenUnset() {
+        assertTrue(mAttributes.matches(userInfo("title", null)));
+        assertFalse(mAttributes.matches(userInfo("message", null)));
+    }
+
+    @Test
+    public void unknownKeysAndNestedValuesDontMatch() {
+        assertFalse(mAttributes.matches(userInfo("wager_id", "7")));
+        assertFalse(mAttributes.matches(userInfo("id", new HashMap<String, Object>())));
+    }
+
+    @Test
+    public void emptyUserInfoMatchesEverything() {
+        assertTrue(mAttributes.matches(new HashMap<String, Object>()));
+    }
+
+    @Test
+    public void matchesAfterJsonRoundTrip() throws JSONException {
+        NotificationAttributes attributes = NotificationAttributes.fromJson(mAttributes.toJson().toString());
+
+        assertEquals("42", attributes.getId());
+        assertEquals(1571502112000.0, attributes.getFireDate(), 0);
+        Map<String, Object> userInfo = userInfo("id", "42");
+        userInfo.put("message", "Your wager was accepted");
+        assertTrue(attributes.matches(userInfo));
+    }
+
+    private static Map<String, Object> userInfo(String key, Object value) {
+        Map<String, Object> userInfo = new HashMap<>();
+        userInfo.put(key, value);
+        return userInfo;
+    }
+}
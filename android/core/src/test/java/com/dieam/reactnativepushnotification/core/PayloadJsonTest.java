@@ -0,0 +1,69 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PayloadJsonTest {
+    @Test
+    public void convertsEveryField() throws JSONException {
+        MapFields fields = new MapFields();
+        fields.putString("title", "Rivalbet");
+        fields.putDouble("badge", 3);
+        fields.putBoolean("foreground", true);
+
+        JSONObject json = PayloadJson.toJson(fields, true);
+
+        assertEquals("Rivalbet", json.getString("title"));
+        assertEquals(3, json.getDouble("badge"), 0);
+        assertTrue(json.getBoolean("foreground"));
+        assertEquals(3, json.length());
+    }
+
+    @Test
+    public void convertsNestedObjectsAndArrays() throws JSONException {
+        Map<String, Object> data = new HashMap<>();
+        data.put("wager_id", "12");
+        MapFields fields = new MapFields();
+        fields.asMap().put("data", data);
+        fields.asMap().put("senders", new String[]{"Alex", "Sam"});
+
+        JSONObject json = PayloadJson.toJson(fields, true);
+
+        assertEquals("12", json.getJSONObject("data").getString("wager_id"));
+        JSONArray senders = json.getJSONArray("senders");
+        assertEquals("Sam", senders.getString(1));
+    }
+
+    @Test
+    public void leavesOutOmittedKeys() throws JSONException {
+        MapFields fields = new MapFields();
+        fields.putString("id", "7");
+        fields.putBoolean("notificationOpened", true);
+
+        JSONObject json = PayloadJson.toJson(fields, Arrays.asList("notificationOpened", "postedNotificationId"), true);
+
+        assertEquals("7", json.getString("id"));
+        assertFalse(json.has("notificationOpened"));
+    }
+
+    @Test
+    public void putsValuesAsTheyAreWithoutWrapping() throws JSONException {
+        MapFields fields = new MapFields();
+        fields.putString("title", "Rivalbet");
+
+        JSONObject json = PayloadJson.toJson(fields, Collections.<String>emptySet(), false);
+
+        assertEquals("Rivalbet", json.getString("title"));
+    }
+}
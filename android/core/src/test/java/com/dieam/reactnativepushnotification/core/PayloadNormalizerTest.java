@@ -0,0 +1,103 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class PayloadNormalizerTest {
+    @Test
+    public void fillsMissingFieldsFromTheDataJson() {
+        MapFields fields = fields("data", "{\"alert\":\"Hi\",\"title\":\"Rivalbet\",\"sound\":\"ping\",\"color\":\"red\",\"badge\":3}");
+
+        assertEquals(3, PayloadNormalizer.normalize(fields));
+        assertEquals("Hi", fields.getString("message"));
+        assertEquals("Rivalbet", fields.getString("title"));
+        assertEquals("ping", fields.getString("soundName"));
+        assertEquals("red", fields.getString("color"));
+    }
+
+    @Test
+    public void keepsFieldsAlreadySet() {
+        MapFields fields = fields("data", "{\"alert\":\"Hi\",\"title\":\"Rivalbet\"}");
+        fields.putString("message", "Hello");
+        fields.putString("title", "Wager");
+        fields.putString("sound", "default");
+
+        assertEquals(-1, PayloadNormalizer.normalize(fields));
+        assertEquals("Hello", fields.getString("message"));
+        assertEquals("Wager", fields.getString("title"));
+        assertFalse(fields.containsKey("soundName"));
+    }
+
+    @Test
+    public void copiesTwilioBody() {
+        MapFields fields = fields("twi_body", "Your code is 1234");
+
+        assertEquals(-1, PayloadNormalizer.normalize(fields));
+        assertEquals("Your code is 1234", fields.getString("message"));
+    }
+
+    @Test
+    public void ignoresDataThatIsntJson() {
+        MapFields fields = fields("data", "not json");
+
+        assertEquals(-1, PayloadNormalizer.normalize(fields));
+        assertFalse(fields.containsKey("message"));
+    }
+
+    @Test
+    public void putDataCopiesEveryEntry() {
+        Map<String, String> data = new HashMap<>();
+        data.put("id", "7");
+        data.put("message", "Hi");
+        MapFields fields = new MapFields();
+
+        PayloadNormalizer.putData(fields, data);
+
+        assertEquals("7", fields.getString("id"));
+        assertEquals("Hi", fields.getString("message"));
+    }
+
+    @Test
+    public void putCompactDataWritesTheTypedFields() {
+        PushMessage message = new PushMessage();
+        message.setId(7);
+        message.setNotificationType(PushMessage.WAGER_TYPE);
+        message.setWagerId(12);
+        message.setMessage("Hi");
+        Map<String, String> data = new HashMap<>();
+        data.put(CompactPayload.KEY, CompactPayload.encode(message));
+        data.put("data", "{}");
+        MapFields fields = new MapFields();
+
+        PushMessage decoded = PayloadNormalizer.putCompactData(fields, data);
+
+        assertEquals(12, decoded.getWagerId());
+        assertEquals("7", fields.getString("id"));
+        assertEquals("12", fields.getString("wager_id"));
+        assertEquals("Hi", fields.getString("message"));
+        assertEquals("{}", fields.getString("data"));
+        assertFalse(fields.containsKey(CompactPayload.KEY));
+    }
+
+    @Test
+    public void putCompactDataCopiesAnUndecodablePayload() {
+        Map<String, String> data = new HashMap<>();
+        data.put(CompactPayload.KEY, "!");
+        MapFields fields = new MapFields();
+
+        assertNull(PayloadNormalizer.putCompactData(fields, data));
+        assertEquals("!", fields.getString(CompactPayload.KEY));
+    }
+
+    private static MapFields fields(String key, String value) {
+        MapFields fields = new MapFields();
+        fields.putString(key, value);
+        return fields;
+    }
+}
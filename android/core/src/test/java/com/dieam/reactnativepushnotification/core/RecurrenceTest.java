@@ -0,0 +1,58 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecurrenceTest {
+    private static final long FIRE_DATE = 1571502112000L;
+    private static final long ONE_MINUTE = 60 * 1000;
+
+    @Test
+    public void fixedIntervals() {
+        assertEquals(FIRE_DATE + ONE_MINUTE, Recurrence.nextFireDate("minute", 0, FIRE_DATE, FIRE_DATE));
+        assertEquals(FIRE_DATE + 60 * ONE_MINUTE, Recurrence.nextFireDate("hour", 0, FIRE_DATE, FIRE_DATE));
+        assertEquals(FIRE_DATE + 24 * 60 * ONE_MINUTE, Recurrence.nextFireDate("day", 0, FIRE_DATE, FIRE_DATE));
+        assertEquals(FIRE_DATE + 7 * 24 * 60 * ONE_MINUTE, Recurrence.nextFireDate("week", 0, FIRE_DATE, FIRE_DATE));
+    }
+
+    @Test
+    public void customInterval() {
+        assertEquals(FIRE_DATE + 5000, Recurrence.nextFireDate("time", 5000, FIRE_DATE, FIRE_DATE));
+        assertEquals(0, Recurrence.nextFireDate("time", 0, FIRE_DATE, FIRE_DATE));
+    }
+
+    @Test
+    public void invalidRepeatTypes() {
+        assertEquals(0, Recurrence.nextFireDate(null, 0, FIRE_DATE, FIRE_DATE));
+        assertEquals(0, Recurrence.nextFireDate("year", 0, FIRE_DATE, FIRE_DATE));
+        assertFalse(Recurrence.isValidRepeatType("year"));
+        assertTrue(Recurrence.isValidRepeatType("month"));
+    }
+
+    @Test
+    public void monthlyFallsBackToTheLastDayOfShorterMonths() {
+        long fireDate = date(2019, Calendar.JANUARY, 31, 10, 30);
+        long now = date(2019, Calendar.JANUARY, 31, 10, 30);
+
+        assertEquals(date(2019, Calendar.FEBRUARY, 28, 10, 30), Recurrence.nextFireDate("month", 0, fireDate, now));
+    }
+
+    @Test
+    public void monthlyRepeatsInTheMonthAfterNow() {
+        long fireDate = date(2019, Calendar.MARCH, 15, 8, 0);
+        long now = date(2019, Calendar.DECEMBER, 20, 12, 0);
+
+        assertEquals(date(2020, Calendar.JANUARY, 15, 8, 0), Recurrence.nextFireDate("month", 0, fireDate, now));
+    }
+
+    private static long date(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = new GregorianCalendar(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+}
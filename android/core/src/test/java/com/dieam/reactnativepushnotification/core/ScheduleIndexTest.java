@@ -0,0 +1,149 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class ScheduleIndexTest {
+    private MemoryStore mScheduled;
+    private MemoryStore mIndexPersistence;
+
+    @Before
+    public void setUp() {
+        mScheduled = new MemoryStore();
+        mIndexPersistence = new MemoryStore();
+    }
+
+    @Test
+    public void listsInFireDateOrderPageByPage() {
+        ScheduleIndex index = new ScheduleIndex(mScheduled, mIndexPersistence);
+        schedule(index, "3", 3000);
+        schedule(index, "1", 1000);
+        schedule(index, "2", 2000);
+        schedule(index, "2b", 2000);
+
+        List<ScheduleIndex.Entry> first = index.query(0, Long.MAX_VALUE, null, 2);
+        assertEquals(ids("1", "2"), ids(first));
+        List<ScheduleIndex.Entry> second = index.query(0, Long.MAX_VALUE, first.get(1).toCursor(), 2);
+        assertEquals(ids("2b", "3"), ids(second));
+        assertEquals(0, index.query(0, Long.MAX_VALUE, second.get(1).toCursor(), 2).size());
+    }
+
+    @Test
+    public void queriesARange() {
+        ScheduleIndex index = new ScheduleIndex(mScheduled, mIndexPersistence);
+        schedule(index, "1", 1000);
+        schedule(index, "2", 2000);
+        schedule(index, "3", 3000);
+
+        assertEquals(ids("2"), ids(index.query(1500, 2500, null, 10)));
+        // A cursor before the range starts at the range
+        assertEquals(ids("2", "3"), ids(index.query(2000, 3000, new ScheduleIndex.Entry(500, "0").toCursor(), 10)));
+    }
+
+    @Test
+    public void rescheduleMovesTheEntry() {
+        ScheduleIndex index = new ScheduleIndex(mScheduled, mIndexPersistence);
+        schedule(index, "1", 1000);
+        schedule(index, "2", 2000);
+        schedule(index, "1", 3000);
+
+        assertEquals(ids("2", "1"), ids(index.query(0, Long.MAX_VALUE, null, 10)));
+        assertEquals(3000L, mIndexPersistence.getAll().get("1"));
+    }
+
+    @Test
+    public void removeForgetsTheEntry() {
+        ScheduleIndex index = new ScheduleIndex(mScheduled, mIndexPersistence);
+        schedule(index, "1", 1000);
+        index.remove("1");
+
+        assertEquals(0, index.query(0, Long.MAX_VALUE, null, 10).size());
+        assertFalse(mIndexPersistence.getAll().containsKey("1"));
+    }
+
+    @Test
+    public void loadIndexesEntriesMissingFromThePersistedIndex() {
+        // Scheduled by a version without the index
+        mScheduled.put("1", "{\"id\":\"1\",\"fireDate\":2000}");
+        mScheduled.put("2", "not json");
+        mScheduled.put("3", 7L);
+        mIndexPersistence.put("4", 1000L);
+
+        ScheduleIndex index = new ScheduleIndex(mScheduled, mIndexPersistence);
+
+        assertEquals(ids("1"), ids(index.query(0, Long.MAX_VALUE, null, 10)));
+        assertEquals(2000L, mIndexPersistence.getAll().get("1"));
+        assertFalse(mIndexPersistence.getAll().containsKey("4"));
+    }
+
+    @Test
+    public void loadUsesThePersistedFireDate() {
+        mScheduled.put("1", "{\"id\":\"1\",\"fireDate\":2000}");
+        mIndexPersistence.put("1", 5000L);
+
+        ScheduleIndex index = new ScheduleIndex(mScheduled, mIndexPersistence);
+
+        assertEquals(5000, index.query(0, Long.MAX_VALUE, null, 10).get(0).fireDate);
+    }
+
+    @Test
+    public void cursors() {
+        ScheduleIndex.Entry entry = ScheduleIndex.Entry.parse(new ScheduleIndex.Entry(1000, "a:b").toCursor());
+        assertEquals(1000, entry.fireDate);
+        assertEquals("a:b", entry.id);
+        assertNull(ScheduleIndex.Entry.parse("1000"));
+        assertNull(ScheduleIndex.Entry.parse("x:1"));
+    }
+
+    private void schedule(ScheduleIndex index, String id, long fireDate) {
+        mScheduled.put(id, "{\"id\":\"" + id + "\",\"fireDate\":" + fireDate + "}");
+        index.put(id, fireDate);
+    }
+
+    private static List<String> ids(List<ScheduleIndex.Entry> entries) {
+        List<String> ids = new ArrayList<>();
+        for (ScheduleIndex.Entry entry : entries) {
+            ids.add(entry.id);
+        }
+        return ids;
+    }
+
+    private static List<String> ids(String... ids) {
+        List<String> list = new ArrayList<>();
+        for (String id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static class MemoryStore implements KeyValueStore {
+        private final Map<String, Object> mValues = new HashMap<>();
+
+        void put(String key, Object value) {
+            mValues.put(key, value);
+        }
+
+        @Override
+        public Map<String, ?> getAll() {
+            return new HashMap<>(mValues);
+        }
+
+        @Override
+        public void edit(Map<String, ?> put, Collection<String> remove) {
+            mValues.putAll(put);
+            for (String key : remove) {
+                mValues.remove(key);
+            }
+        }
+    }
+}
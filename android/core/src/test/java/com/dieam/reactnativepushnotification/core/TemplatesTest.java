@@ -0,0 +1,121 @@
+package com.dieam.reactnativepushnotification.core;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TemplatesTest {
+    private static final String SEP = String.valueOf(Templates.ARG_SEPARATOR);
+
+    @Test
+    public void substitutesArgumentsByPosition() throws JSONException {
+        Templates templates = Templates.parse("{\"wager_accepted\": {\"title\": \"Wager accepted\","
+                + " \"message\": \"{0} accepted your {1} wager on {2}, {0}!\"}}");
+        MapFields fields = fields("wager_accepted", "Alex" + SEP + "$20" + SEP + "the final");
+
+        assertTrue(templates.expand(fields));
+
+        assertEquals("Wager accepted", fields.getString("title"));
+        assertEquals("Alex accepted your $20 wager on the final, Alex!", fields.getString("message"));
+        assertFalse(fields.containsKey(Templates.KEY_TEMPLATE));
+        assertFalse(fields.containsKey(Templates.KEY_ARGS));
+    }
+
+    @Test
+    public void missingArgumentsExpandToNothing() {
+        assertEquals("Alex vs ", expand("{0} vs {1}", "Alex"));
+        assertEquals(" vs ", expand("{0} vs {1}", null));
+    }
+
+    @Test
+    public void extraArgumentsAreIgnored() {
+        assertEquals("Alex", expand("{0}", "Alex" + SEP + "Sam" + SEP + "Kim"));
+    }
+
+    @Test
+    public void outOfRangeIndexesExpandToNothing() {
+        assertEquals("[]", expand("[{7}]", "Alex" + SEP + "Sam"));
+        assertEquals("[]", expand("[{2147483647}]", "Alex"));
+        // Past Integer.MAX_VALUE
+        assertEquals("[]", expand("[{99999999999}]", "Alex"));
+    }
+
+    @Test
+    public void emptyArgumentsExpandToNothing() {
+        assertEquals("a--c", expand("{0}-{1}-{2}", "a" + SEP + SEP + "c"));
+        assertEquals("-", expand("{0}-{1}", SEP));
+        assertEquals("", expand("{0}", ""));
+    }
+
+    @Test
+    public void doubledOpeningBracesAreLiteral() {
+        assertEquals("{0} is Alex", expand("{{0} is {0}", "Alex"));
+    }
+
+    @Test
+    public void strayAndUnbalancedBracesAreLiteral() {
+        assertEquals("{", expand("{", "Alex"));
+        assertEquals("}", expand("}", "Alex"));
+        assertEquals("a } b", expand("a } b", "Alex"));
+        assertEquals("{0", expand("{0", "Alex"));
+        assertEquals("{0 Alex", expand("{0 {0}", "Alex"));
+        assertEquals("{} {x} {-1} {0x}", expand("{} {x} {-1} {0x}", "Alex"));
+        assertEquals("{0}}", expand("{{0}}", "Alex"));
+    }
+
+    @Test
+    public void unknownTemplatesLeaveTheFieldsAlone() throws JSONException {
+        Templates templates = Templates.parse("{\"wager_accepted\": {\"title\": \"{0}\"}}");
+        MapFields fields = fields("wager_declined", "Alex");
+
+        assertFalse(templates.expand(fields));
+
+        assertEquals("wager_declined", fields.getString(Templates.KEY_TEMPLATE));
+        assertEquals("Alex", fields.getString(Templates.KEY_ARGS));
+        assertFalse(fields.containsKey("title"));
+        assertFalse(Templates.empty().expand(fields));
+    }
+
+    @Test
+    public void fieldsWithoutATemplateAreLeftAlone() throws JSONException {
+        Templates templates = Templates.parse("{\"wager_accepted\": {\"title\": \"{0}\"}}");
+        MapFields fields = new MapFields();
+        fields.putString("title", "Hi");
+
+        assertFalse(templates.expand(fields));
+        assertEquals("Hi", fields.getString("title"));
+        assertNull(fields.getString("message"));
+    }
+
+    @Test
+    public void keepsFieldsThePayloadAlreadyHas() throws JSONException {
+        Templates templates = Templates.parse("{\"wager_accepted\": {\"title\": \"Wager accepted\", \"message\": \"{0}\"}}");
+        MapFields fields = fields("wager_accepted", "Alex");
+        fields.putString("title", "Custom");
+
+        assertTrue(templates.expand(fields));
+
+        assertEquals("Custom", fields.getString("title"));
+        assertEquals("Alex", fields.getString("message"));
+    }
+
+    @Test(expected = JSONException.class)
+    public void rejectsATemplateThatIsntAnObject() throws JSONException {
+        Templates.parse("{\"wager_accepted\": \"{0}\"}");
+    }
+
+    private static String expand(String pattern, String args) {
+        return Templates.Pattern.compile(pattern).expand(args);
+    }
+
+    private static MapFields fields(String template, String args) {
+        MapFields fields = new MapFields();
+        fields.putString(Templates.KEY_TEMPLATE, template);
+        fields.putString(Templates.KEY_ARGS, args);
+        return fields;
+    }
+}
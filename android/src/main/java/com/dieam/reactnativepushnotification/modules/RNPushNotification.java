@@ -2,7 +2,6 @@ package com.dieam.reactnativepushnotification.modules;
 
 import android.app.Activity;
 import android.app.Application;
-import android.app.NotificationManager;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
@@ -10,9 +9,11 @@ import android.content.IntentFilter;
 import android.os.Bundle;
 import androidx.core.app.NotificationManagerCompat;
 
+import com.dieam.reactnativepushnotification.core.ScheduleIndex;
 import com.dieam.reactnativepushnotification.helpers.ApplicationBadgeHelper;
 import com.facebook.react.bridge.ActivityEventListener;
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContext;
@@ -20,36 +21,82 @@ import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Set;
 
 import android.util.Log;
 
-import com.google.firebase.messaging.FirebaseMessaging;
 
-public class RNPushNotification extends ReactContextBaseJavaModule implements ActivityEventListener {
-    public static final String LOG_TAG = "RNPushNotification";// all logging should use this tag
+import org.json.JSONException;
+import org.json.JSONObject;
 
-    private RNPushNotificationHelper mRNPushNotificationHelper;
-    private final Random mRandomNumberGenerator = new Random(System.currentTimeMillis());
-    private RNPushNotificationJsDelivery mJsDelivery;
+public class RNPushNotification extends ReactContextBaseJavaModule implements ActivityEventListener, LifecycleEventListener {
+    public static final String LOG_TAG = "RNPushNotification";// all logging should use this tag
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final String TOKEN_ACTION_SUFFIX = ".RNPushNotificationRegisteredToken";
+    private static final String[] HISTORY_EVENTS = {"unknown", "delivered", "rendered", "tapped", "action", "dismissed"};
+
+    // Created on first use rather than with the module, which is built while React Native starts
+    private volatile RNPushNotificationHelper mRNPushNotificationHelper;
+    private volatile RNPushNotificationJsDelivery mJsDelivery;
+    // Full intent actions of the registered notification actions, guards the fields below
+    private final Set<String> mActions = new HashSet<>();
+    private final BroadcastReceiver mDispatcher = new Dispatcher();
+    private boolean mDispatcherRegistered;
+    private boolean mListeningForToken;
+    private boolean mListeningForRemoteNotifications;
 
     public RNPushNotification(ReactApplicationContext reactContext) {
         super(reactContext);
 
         reactContext.addActivityEventListener(this);
+        reactContext.addLifecycleEventListener(this);
+    }
 
-        Application applicationContext = (Application) reactContext.getApplicationContext();
-
-        // The @ReactNative methods use this
-        mRNPushNotificationHelper = new RNPushNotificationHelper(applicationContext);
-        // This is used to delivery callbacks to JS
-        mJsDelivery = new RNPushNotificationJsDelivery(reactContext);
+    /**
+     * The @ReactNative methods use this. Creating it reads the manifest meta-data and opens the
+     * SharedPreferences, so it's deferred until JS or an intent needs it.
+     */
+    private RNPushNotificationHelper helper() {
+        RNPushNotificationHelper helper = mRNPushNotificationHelper;
+        if (helper == null) {
+            synchronized (this) {
+                helper = mRNPushNotificationHelper;
+                if (helper == null) {
+                    Application applicationContext = (Application) getReactApplicationContext().getApplicationContext();
+                    helper = new RNPushNotificationHelper(applicationContext);
+                    // Create every declared notification channel up front, in one call
+                    RNPushNotificationChannels.getInstance(applicationContext).ensureCreated();
+                    mRNPushNotificationHelper = helper;
+                }
+            }
+        }
+        return helper;
+    }
 
-        registerNotificationsRegistration();
+    /**
+     * This is used to delivery callbacks to JS
+     */
+    private RNPushNotificationJsDelivery jsDelivery() {
+        RNPushNotificationJsDelivery jsDelivery = mJsDelivery;
+        if (jsDelivery == null) {
+            synchronized (this) {
+                jsDelivery = mJsDelivery;
+                if (jsDelivery == null) {
+                    jsDelivery = new RNPushNotificationJsDelivery(getReactApplicationContext());
+                    mJsDelivery = jsDelivery;
+                }
+            }
+        }
+        return jsDelivery;
     }
 
     @Override
@@ -76,48 +123,216 @@ public class RNPushNotification extends ReactContextBaseJavaModule implements Ac
     public void onNewIntent(Intent intent) {
         Bundle bundle = this.getBundleFromIntent(intent);
         if (bundle != null) {
+            onNotificationOpened(intent, bundle);
             bundle.putBoolean("foreground", false);
-            intent.putExtra("notification", bundle);
-            mJsDelivery.notifyNotification(bundle);
+            jsDelivery().notifyNotification(bundle);
+        }
+    }
+
+    /**
+     * Cold and warm launches from a notification don't go through onNewIntent, the tap is in the
+     * intent the activity was started with.
+     */
+    @Override
+    public void onHostResume() {
+        Activity activity = getCurrentActivity();
+        if (activity == null || activity.getIntent() == null) {
+            return;
         }
+        Bundle bundle = this.getBundleFromIntent(activity.getIntent());
+        if (bundle != null) {
+            onNotificationOpened(activity.getIntent(), bundle);
+        }
+    }
+
+    @Override
+    public void onHostPause() {
+    }
+
+    @Override
+    public void onHostDestroy() {
+    }
+
+    /**
+     * Puts the bundle back in the intent, getExtras() returns a copy: the helper marks it so the
+     * tap is only counted once.
+     */
+    private void onNotificationOpened(Intent intent, Bundle bundle) {
+        helper().onNotificationOpened(bundle);
+        intent.putExtra("notification", bundle);
     }
 
+    /**
+     * The token is only broadcast by RNPushNotificationRegistrationService, so the dispatcher
+     * only listens for it once JS has asked for one.
+     */
     private void registerNotificationsRegistration() {
-        IntentFilter intentFilter = new IntentFilter(getReactApplicationContext().getPackageName() + ".RNPushNotificationRegisteredToken");
+        synchronized (mActions) {
+            if (!mListeningForToken) {
+                mListeningForToken = true;
+                updateDispatcher();
+            }
+        }
+    }
 
-        getReactApplicationContext().registerReceiver(new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
+    private void registerNotificationsReceiveNotificationActions(ReadableArray actions) {
+        String packageName = getReactApplicationContext().getPackageName();
+        synchronized (mActions) {
+            boolean added = false;
+            for (int i = 0; i < actions.size(); i++) {
+                added |= mActions.add(packageName + "." + actions.getString(i));
+            }
+            // Already registered actions keep the current filter
+            if (added) {
+                updateDispatcher();
+            }
+        }
+    }
+
+    /**
+     * (Re)registers the dispatcher with a filter for the token, the pushes forwarded by the push
+     * process and every registered action. An IntentFilter can't be changed once registered, so
+     * this is the only way to add actions.
+     */
+    private void updateDispatcher() {
+        String packageName = getReactApplicationContext().getPackageName();
+        IntentFilter intentFilter = new IntentFilter();
+        if (mListeningForToken) {
+            intentFilter.addAction(packageName + TOKEN_ACTION_SUFFIX);
+        }
+        if (mListeningForRemoteNotifications) {
+            intentFilter.addAction(packageName + RNPushNotificationProcess.ACTION_REMOTE_NOTIFICATION_SUFFIX);
+        }
+        for (String action : mActions) {
+            intentFilter.addAction(action);
+        }
+        if (mDispatcherRegistered) {
+            getReactApplicationContext().unregisterReceiver(mDispatcher);
+        }
+        if (mListeningForRemoteNotifications) {
+            // Only the app itself may hand over pushes. It sends the other broadcasts too, so it
+            // holds the permission for those as well.
+            getReactApplicationContext().registerReceiver(mDispatcher, intentFilter,
+                    packageName + RNPushNotificationProcess.PERMISSION_SUFFIX, null);
+        } else {
+            getReactApplicationContext().registerReceiver(mDispatcher, intentFilter);
+        }
+        mDispatcherRegistered = true;
+    }
+
+    /**
+     * Single receiver for the token broadcast and notification actions, so their cost doesn't
+     * grow with the number of registerNotificationActions calls or React reloads.
+     */
+    private class Dispatcher extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String action = intent.getAction();
+            if (action == null) {
+                return;
+            }
+            if (action.equals(context.getPackageName() + TOKEN_ACTION_SUFFIX)) {
                 String token = intent.getStringExtra("token");
                 WritableMap params = Arguments.createMap();
                 params.putString("deviceToken", token);
 
-                mJsDelivery.sendEvent("remoteNotificationsRegistered", params);
+                jsDelivery().sendEvent("remoteNotificationsRegistered", params);
+                return;
+            }
+            if (action.equals(context.getPackageName() + RNPushNotificationProcess.ACTION_REMOTE_NOTIFICATION_SUFFIX)) {
+                onRemoteNotification(intent);
+                return;
+            }
+            synchronized (mActions) {
+                if (!mActions.contains(action)) {
+                    return;
+                }
             }
-        }, intentFilter);
+
+            Bundle bundle = intent.getBundleExtra("notification");
+
+            // Notify the action.
+            jsDelivery().notifyNotificationAction(bundle);
+            helper().recordHistory(RNPushNotificationHistory.EVENT_ACTION, bundle);
+
+            // Dismiss the notification popup.
+            int notificationID = bundle.containsKey(RNPushNotificationHelper.KEY_POSTED_NOTIFICATION_ID)
+                    ? bundle.getInt(RNPushNotificationHelper.KEY_POSTED_NOTIFICATION_ID)
+                    : Integer.parseInt(bundle.getString("id"));
+            helper().clearNotification(notificationID);
+        }
     }
 
-    private void registerNotificationsReceiveNotificationActions(ReadableArray actions) {
-        IntentFilter intentFilter = new IntentFilter();
-        // Add filter for each actions.
-        for (int i = 0; i < actions.size(); i++) {
-            String action = actions.getString(i);
-            intentFilter.addAction(getReactApplicationContext().getPackageName() + "." + action);
+    /**
+     * A push received by the push process, for JS. Rendered here when the push process left it to
+     * the foreground policy.
+     */
+    private void onRemoteNotification(Intent intent) {
+        Bundle bundle = intent.getBundleExtra("notification");
+        if (bundle == null) {
+            return;
         }
-        getReactApplicationContext().registerReceiver(new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
-                Bundle bundle = intent.getBundleExtra("notification");
+        jsDelivery().notifyNotification(bundle);
 
-                // Notify the action.
-                mJsDelivery.notifyNotificationAction(bundle);
+        // If contentAvailable is set to true, then send out a remote fetch event
+        if (bundle.getString("contentAvailable", "false").equalsIgnoreCase("true")) {
+            jsDelivery().notifyRemoteFetch(bundle);
+        }
 
-                // Dismiss the notification popup.
-                NotificationManager manager = (NotificationManager) context.getSystemService(context.NOTIFICATION_SERVICE);
-                int notificationID = Integer.parseInt(bundle.getString("id"));
-                manager.cancel(notificationID);
+        String defaultPolicy = intent.getStringExtra(RNPushNotificationProcess.EXTRA_POLICY);
+        if (defaultPolicy != null) {
+            Application applicationContext = (Application) getReactApplicationContext().getApplicationContext();
+            RNPushNotificationForegroundPolicy.dispatch(applicationContext, bundle, true, defaultPolicy);
+        }
+    }
+
+    @ReactMethod
+    /**
+     * Emits the pushes the push process received while the app wasn't running, oldest first.
+     * Called by JS once its listeners are set up.
+     */
+    public void replayPendingNotifications() {
+        if (!RNPushNotificationProcess.isForwarding(getReactApplicationContext())) {
+            return;
+        }
+        RNPushNotificationProcess.forward(getReactApplicationContext(), RNPushNotificationStateProvider.METHOD_TAKE_PENDING, null,
+                new RNPushNotificationProcess.ResultListener() {
+                    @Override
+                    public void onResult(Bundle result) {
+                        for (String dataJSON : RNPushNotificationStateProvider.toPushes(result)) {
+                            jsDelivery().notifyNotification(dataJSON);
+                        }
+                    }
+                });
+    }
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        // Load the cached token in the background, so requestPermissions can answer from memory
+        RNPushNotificationTokenCache.getInstance(getReactApplicationContext());
+
+        if (RNPushNotificationProcess.isEnabled(getReactApplicationContext())) {
+            synchronized (mActions) {
+                mListeningForRemoteNotifications = true;
+                updateDispatcher();
             }
-        }, intentFilter);
+        }
+    }
+
+    @Override
+    public void onCatalystInstanceDestroy() {
+        super.onCatalystInstanceDestroy();
+        // The module is created again on reload, don't leave the receiver behind
+        synchronized (mActions) {
+            if (mDispatcherRegistered) {
+                getReactApplicationContext().unregisterReceiver(mDispatcher);
+                mDispatcherRegistered = false;
+            }
+            mActions.clear();
+            mListeningForToken = false;
+            mListeningForRemoteNotifications = false;
+        }
     }
 
     @ReactMethod
@@ -130,6 +345,20 @@ public class RNPushNotification extends ReactContextBaseJavaModule implements Ac
     @ReactMethod
     public void requestPermissions(String senderID) {
         ReactContext reactContext = getReactApplicationContext();
+        registerNotificationsRegistration();
+
+        RNPushNotificationTokenCache tokenCache = RNPushNotificationTokenCache.getInstance(reactContext);
+        String token = tokenCache.getCachedToken(senderID);
+        if (token != null) {
+            WritableMap params = Arguments.createMap();
+            params.putString("deviceToken", token);
+            jsDelivery().sendEvent("remoteNotificationsRegistered", params);
+            return;
+        }
+        if (!tokenCache.beginFetch(senderID)) {
+            // The fetch in flight broadcasts the token to the dispatcher
+            return;
+        }
 
         Intent GCMService = new Intent(reactContext, RNPushNotificationRegistrationService.class);
 
@@ -137,33 +366,75 @@ public class RNPushNotification extends ReactContextBaseJavaModule implements Ac
             GCMService.putExtra("senderID", senderID);
             reactContext.startService(GCMService);
         } catch (Exception e) {
+            tokenCache.endFetch(senderID);
             Log.d("EXCEPTION SERVICE::::::", "requestPermissions: " + e);
         }
     }
 
     @ReactMethod
     public void subscribeToTopic(String topic) {
-        FirebaseMessaging.getInstance().subscribeToTopic(topic);
+        RNPushNotificationTopics.getInstance(getReactApplicationContext()).subscribe(topic);
     }
 
     @ReactMethod
-    public void presentLocalNotification(ReadableMap details) {
-        Bundle bundle = Arguments.toBundle(details);
-        // If notification ID is not provided by the user, generate one at random
-        if (bundle.getString("id") == null) {
-            bundle.putString("id", String.valueOf(mRandomNumberGenerator.nextInt()));
+    public void unsubscribeFromTopic(String topic) {
+        RNPushNotificationTopics.getInstance(getReactApplicationContext()).unsubscribe(topic);
+    }
+
+    @ReactMethod
+    /**
+     * Makes the topic subscriptions match topics, only subscribing to new topics and
+     * unsubscribing from the ones no longer listed. Resolves with {subscribed, unsubscribed,
+     * failed}, the topics of each call made.
+     */
+    public void setTopics(ReadableArray topics, final Promise promise) {
+        List<String> wanted = new ArrayList<>();
+        for (int i = 0; i < topics.size(); i++) {
+            wanted.add(topics.getString(i));
         }
-        mRNPushNotificationHelper.sendToNotificationCentre(bundle);
+        RNPushNotificationTopics.getInstance(getReactApplicationContext()).setTopics(wanted, new RNPushNotificationTopics.Listener() {
+            @Override
+            public void onTopicsSet(List<String> subscribed, List<String> unsubscribed, List<String> failed) {
+                WritableMap result = Arguments.createMap();
+                result.putArray("subscribed", toArray(subscribed));
+                result.putArray("unsubscribed", toArray(unsubscribed));
+                result.putArray("failed", toArray(failed));
+                promise.resolve(result);
+            }
+        });
     }
 
     @ReactMethod
-    public void scheduleLocalNotification(ReadableMap details) {
-        Bundle bundle = Arguments.toBundle(details);
-        // If notification ID is not provided by the user, generate one at random
-        if (bundle.getString("id") == null) {
-            bundle.putString("id", String.valueOf(mRandomNumberGenerator.nextInt()));
+    /**
+     * Replaces the notification templates, see RNPushNotificationTemplates. Rejects if the table
+     * isn't valid, keeping the current one.
+     */
+    public void setNotificationTemplates(String json, Promise promise) {
+        try {
+            RNPushNotificationTemplates.set(getReactApplicationContext(), json);
+            promise.resolve(null);
+        } catch (Exception e) {
+            Log.e(LOG_TAG, "Unable to set the notification templates", e);
+            promise.reject("E_TEMPLATES", e);
+        }
+    }
+
+    private static WritableArray toArray(List<String> strings) {
+        WritableArray array = Arguments.createArray();
+        for (String string : strings) {
+            array.pushString(string);
         }
-        mRNPushNotificationHelper.sendNotificationScheduled(bundle);
+        return array;
+    }
+
+    @ReactMethod
+    public void presentLocalNotification(ReadableMap details) {
+        helper().presentLocalNotification(Arguments.toBundle(details));
+    }
+
+    @ReactMethod
+    public void scheduleLocalNotification(ReadableMap details) {
+        helper().scheduleLocalNotification(Arguments.toBundle(details));
     }
 
     @ReactMethod
@@ -173,8 +444,9 @@ public class RNPushNotification extends ReactContextBaseJavaModule implements Ac
         if (activity != null) {
             Bundle bundle = this.getBundleFromIntent(activity.getIntent());
             if (bundle != null) {
+                onNotificationOpened(activity.getIntent(), bundle);
                 bundle.putBoolean("foreground", false);
-                String bundleString = mJsDelivery.convertJSON(bundle);
+                String bundleString = RNPushNotificationJsDelivery.convertJSON(bundle);
                 params.putString("dataJSON", bundleString);
             }
         }
@@ -203,8 +475,8 @@ public class RNPushNotification extends ReactContextBaseJavaModule implements Ac
      *
      */
     public void cancelAllLocalNotifications() {
-        mRNPushNotificationHelper.cancelAllScheduledNotifications();
-        mRNPushNotificationHelper.clearNotifications();
+        helper().cancelAllScheduledNotifications();
+        helper().clearNotifications();
     }
 
     @ReactMethod
@@ -213,7 +485,7 @@ public class RNPushNotification extends ReactContextBaseJavaModule implements Ac
      *
      */
     public void cancelLocalNotifications(ReadableMap userInfo) {
-        mRNPushNotificationHelper.cancelScheduledNotification(userInfo);
+        helper().cancelScheduledNotification(userInfo);
     }
 
     @ReactMethod
@@ -221,11 +493,218 @@ public class RNPushNotification extends ReactContextBaseJavaModule implements Ac
      * Clear notification from the notification centre.
      */
     public void clearLocalNotification(int notificationID) {
-        mRNPushNotificationHelper.clearNotification(notificationID);
+        helper().clearNotification(notificationID);
+    }
+
+    @ReactMethod
+    /**
+     * Clears every notification posted for an entity, e.g. a wager or a group chat.
+     */
+    public void clearNotificationsForEntity(int notificationType, int entityId) {
+        helper().clearNotificationsForEntity(notificationType, entityId);
+    }
+
+    @ReactMethod
+    /**
+     * Lists the notifications in the notification centre, newest first, one page at a time.
+     * options: {offset, limit}
+     */
+    public void getDeliveredNotifications(ReadableMap options, final Promise promise) {
+        final int offset = options != null && options.hasKey("offset") ? Math.max(0, options.getInt("offset")) : 0;
+        final int limit = options != null && options.hasKey("limit") ? Math.max(1, options.getInt("limit")) : DEFAULT_PAGE_SIZE;
+
+        helper().getDeliveredNotifications(new RNPushNotificationHelper.DeliveredListener() {
+            @Override
+            public void onDelivered(RNPushNotificationDeliveredSnapshot.Entry[] delivered) {
+                resolvePage(delivered, offset, limit, promise);
+            }
+        });
+    }
+
+    private static void resolvePage(RNPushNotificationDeliveredSnapshot.Entry[] delivered, int offset, int limit,
+                                    Promise promise) {
+        int end = Math.min(delivered.length, offset + limit);
+
+        WritableArray notifications = Arguments.createArray();
+        for (int i = offset; i < end; i++) {
+            RNPushNotificationDeliveredSnapshot.Entry entry = delivered[i];
+            WritableMap notification = Arguments.createMap();
+            notification.putInt("id", entry.id);
+            notification.putInt("type", entry.type);
+            notification.putInt("entityId", entry.entityId);
+            notification.putString("title", entry.title);
+            notification.putString("message", entry.message);
+            notification.putInt("count", entry.count);
+            notification.putDouble("postTime", entry.postTime);
+            notifications.pushMap(notification);
+        }
+
+        WritableMap result = Arguments.createMap();
+        result.putInt("total", delivered.length);
+        result.putArray("notifications", notifications);
+        if (end < delivered.length) {
+            result.putInt("nextOffset", end);
+        } else {
+            result.putNull("nextOffset");
+        }
+        promise.resolve(result);
+    }
+
+    @ReactMethod
+    /**
+     * Lists scheduled local notifications in fire date order, one page at a time.
+     * query: {from, to, limit, cursor, fields}. Pass the returned cursor to get the next page; it
+     * is null on the last one. fields restricts the attributes returned for each notification.
+     */
+    public void getScheduledLocalNotifications(ReadableMap query, Promise promise) {
+        long from = query != null && query.hasKey("from") && !query.isNull("from") ? (long) query.getDouble("from") : Long.MIN_VALUE;
+        long to = query != null && query.hasKey("to") && !query.isNull("to") ? (long) query.getDouble("to") : Long.MAX_VALUE;
+        int limit = query != null && query.hasKey("limit") ? Math.max(1, query.getInt("limit")) : DEFAULT_PAGE_SIZE;
+        String cursor = query != null && query.hasKey("cursor") && !query.isNull("cursor") ? query.getString("cursor") : null;
+        ReadableArray fields = query != null && query.hasKey("fields") && !query.isNull("fields") ? query.getArray("fields") : null;
+
+        // Ask for one more entry to know whether there is a next page
+        List<ScheduleIndex.Entry> page = helper().queryScheduledNotifications(from, to, cursor, limit + 1);
+        boolean hasMore = page.size() > limit;
+        if (hasMore) {
+            page = page.subList(0, limit);
+        }
+
+        WritableArray notifications = Arguments.createArray();
+        for (ScheduleIndex.Entry entry : page) {
+            String json = helper().getScheduledNotificationJson(entry.id);
+            if (json == null) {
+                continue;
+            }
+            try {
+                notifications.pushMap(projectJson(new JSONObject(json), fields));
+            } catch (JSONException e) {
+                Log.w(LOG_TAG, "Problem reading scheduled notification " + entry.id, e);
+            }
+        }
+
+        WritableMap result = Arguments.createMap();
+        result.putArray("notifications", notifications);
+        if (hasMore && !page.isEmpty()) {
+            result.putString("cursor", page.get(page.size() - 1).toCursor());
+        } else {
+            result.putNull("cursor");
+        }
+        promise.resolve(result);
+    }
+
+    private WritableMap projectJson(JSONObject json, ReadableArray fields) {
+        WritableMap map = Arguments.createMap();
+        if (fields == null) {
+            Iterator<String> keys = json.keys();
+            while (keys.hasNext()) {
+                putJsonValue(map, keys.next(), json);
+            }
+        } else {
+            for (int i = 0; i < fields.size(); i++) {
+                String field = fields.getString(i);
+                if (json.has(field)) {
+                    putJsonValue(map, field, json);
+                }
+            }
+        }
+        return map;
+    }
+
+    private void putJsonValue(WritableMap map, String key, JSONObject json) {
+        Object value = json.opt(key);
+        if (value instanceof String) {
+            map.putString(key, (String) value);
+        } else if (value instanceof Boolean) {
+            map.putBoolean(key, (Boolean) value);
+        } else if (value instanceof Number) {
+            map.putDouble(key, ((Number) value).doubleValue());
+        } else {
+            map.putNull(key);
+        }
+    }
+
+    @ReactMethod
+    /**
+     * Reads the notification history between from and to (ms since epoch), oldest first.
+     * query: {from, to, limit}
+     */
+    public void getNotificationHistory(ReadableMap query, Promise promise) {
+        long from = query != null && query.hasKey("from") && !query.isNull("from") ? (long) query.getDouble("from") : 0;
+        long to = query != null && query.hasKey("to") && !query.isNull("to") ? (long) query.getDouble("to") : Long.MAX_VALUE;
+        final int limit = query != null && query.hasKey("limit") ? Math.max(1, query.getInt("limit")) : RNPushNotificationHistory.CAPACITY;
+
+        final WritableArray records = Arguments.createArray();
+        RNPushNotificationHistory.queryAll(getReactApplicationContext(), from, to, new RNPushNotificationHistory.Visitor() {
+            int count = 0;
+
+            @Override
+            public boolean onRecord(long sequence, long timestamp, int event, int notificationType, int notificationID, int entityId) {
+                WritableMap record = Arguments.createMap();
+                record.putDouble("timestamp", timestamp);
+                record.putString("event", HISTORY_EVENTS[event < HISTORY_EVENTS.length ? event : 0]);
+                record.putInt("type", notificationType);
+                record.putInt("id", notificationID);
+                record.putInt("entityId", entityId);
+                records.pushMap(record);
+                return ++count < limit;
+            }
+        });
+        promise.resolve(records);
+    }
+
+    @ReactMethod
+    /**
+     * Resolves with the latency histograms of each push pipeline stage, per notification type.
+     * With reset, the histograms are cleared after being read.
+     */
+    public void getPipelineMetrics(boolean reset, Promise promise) {
+        promise.resolve(RNPushNotificationMetrics.snapshot(reset));
+    }
+
+    @ReactMethod
+    public void setPipelineMetricsEnabled(boolean enabled) {
+        RNPushNotificationMetrics.setEnabled(enabled);
+    }
+
+    @ReactMethod
+    /**
+     * Resolves with the most recent push pipeline events (received, appended, ignored, rendered,
+     * scheduled, cancelled, overflowed, dropped), oldest first.
+     */
+    public void dumpFlightRecorder(Promise promise) {
+        promise.resolve(RNPushNotificationFlightRecorder.dump());
     }
 
     @ReactMethod
     public void registerNotificationActions(ReadableArray actions) {
         registerNotificationsReceiveNotificationActions(actions);
     }
+
+    @ReactMethod
+    /**
+     * Claims a foreground push so it isn't rendered in the tray. Only has an effect with the
+     * "claim" foreground policy, before the claim deadline.
+     */
+    public void claimNotification(String notificationID, Promise promise) {
+        promise.resolve(RNPushNotificationForegroundPolicy.claim(notificationID));
+    }
+
+    @ReactMethod
+    /**
+     * Registers notification channels, an array of {id, name, description, importance, types}.
+     * Notifications whose type is listed in types are posted to that channel.
+     */
+    public void registerNotificationChannels(ReadableArray channels) {
+        RNPushNotificationChannels.getInstance(getReactApplicationContext()).register(channels);
+    }
+
+    @ReactMethod
+    /**
+     * Resolves with the queue depth, throughput and delivery latency of each notification lane.
+     */
+    public void getNotificationLaneMetrics(Promise promise) {
+        Application applicationContext = (Application) getReactApplicationContext().getApplicationContext();
+        promise.resolve(RNPushNotificationScheduler.getInstance(applicationContext).getMetrics());
+    }
 }
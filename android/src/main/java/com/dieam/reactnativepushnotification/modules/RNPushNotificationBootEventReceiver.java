@@ -21,7 +21,7 @@ public class RNPushNotificationBootEventReceiver extends BroadcastReceiver {
         Log.i(LOG_TAG, "RNPushNotificationBootEventReceiver loading scheduled notifications");
 
         if (intent.getAction().equals("android.intent.action.BOOT_COMPLETED")) {
-            SharedPreferences sharedPreferences = context.getSharedPreferences(RNPushNotificationHelper.PREFERENCES_KEY, Context.MODE_PRIVATE);
+            SharedPreferences sharedPreferences = RNPushNotificationProcess.getSharedPreferences(context, RNPushNotificationHelper.PREFERENCES_KEY);
             Set<String> ids = sharedPreferences.getAll().keySet();
 
             Application applicationContext = (Application) context.getApplicationContext();
@@ -0,0 +1,69 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.os.Bundle;
+
+import com.dieam.reactnativepushnotification.core.Fields;
+
+import java.util.Set;
+
+/**
+ * {@link Fields} backed by a Bundle, so the core works on Bundles in place.
+ */
+class RNPushNotificationBundleFields implements Fields {
+    private final Bundle mBundle;
+
+    RNPushNotificationBundleFields(Bundle bundle) {
+        mBundle = bundle;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return mBundle.keySet();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return mBundle.containsKey(key);
+    }
+
+    @Override
+    public Object get(String key) {
+        Object value = mBundle.get(key);
+        return value instanceof Bundle ? new RNPushNotificationBundleFields((Bundle) value) : value;
+    }
+
+    @Override
+    public String getString(String key) {
+        return mBundle.getString(key);
+    }
+
+    @Override
+    public double getDouble(String key) {
+        return mBundle.getDouble(key);
+    }
+
+    @Override
+    public boolean getBoolean(String key) {
+        return mBundle.getBoolean(key);
+    }
+
+    @Override
+    public void putString(String key, String value) {
+        mBundle.putString(key, value);
+    }
+
+    @Override
+    public void putDouble(String key, double value) {
+        mBundle.putDouble(key, value);
+    }
+
+    @Override
+    public void putBoolean(String key, boolean value) {
+        mBundle.putBoolean(key, value);
+    }
+
+    @Override
+    public void remove(String key) {
+        mBundle.remove(key);
+    }
+}
@@ -0,0 +1,446 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.dieam.reactnativepushnotification.core.CompactPayload;
+import com.dieam.reactnativepushnotification.core.PushMessage;
+import com.dieam.reactnativepushnotification.core.Templates;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
+
+/**
+ * Captures the FCM data maps received by {@link RNPushNotificationListenerService}, anonymized,
+ * so production traffic can be replayed with its original timing, e.g. by the render harness.
+ * Enabled with the {@code capture_payloads} manifest meta-data.
+ * <p>
+ * Anonymization keeps what drives the pipeline and replaces the rest:
+ * <ul>
+ * <li>notification type, channel, sound, color, template name and timestamps are kept</li>
+ * <li>ids are mapped to other ids with a salted hash, consistently within a process, so grouping
+ * by wager or group is preserved</li>
+ * <li>image URLs, such as the avatar in {@code largeIcon}, are replaced by a salted hash, so a
+ * replay still sees which pushes share an image</li>
+ * <li>other text, including strings nested in the {@code data} JSON and each template argument,
+ * is replaced by as many {@code x}, so payload sizes are preserved</li>
+ * <li>a compact {@code rnpn} payload is decoded, anonymized field by field as above and encoded
+ * again, so a replay still decodes it</li>
+ * </ul>
+ * File format: a sequence of segments, one per process, each starting with the magic
+ * {@code RNPC}, a version byte and the capture start time in ms. Records follow as: a
+ * {@code 1} tag byte, varint ms since the previous record, varint field count, then per field a
+ * varint key index and a string value. A key index equal to the number of keys seen so far in the
+ * segment introduces a new key, written as a string right after. Strings are a varint byte length
+ * followed by their UTF-8 bytes; version 1 segments used {@code writeUTF}, which can't hold more
+ * than 64 KB. A record torn by the process being killed is skipped up to the segment the next
+ * process started. The file stops growing at {@link #MAX_FILE_SIZE}.
+ */
+class RNPushNotificationCapture {
+    static final String FILE_NAME = "rn_push_notification_capture.bin";
+    private static final int MAGIC = 0x524e5043; // "RNPC"
+    private static final int VERSION = 2;
+    // Strings written with writeUTF
+    private static final int VERSION_MODIFIED_UTF8 = 1;
+    private static final int RECORD_TAG = 1;
+    static final long MAX_FILE_SIZE = 4 * 1024 * 1024;
+
+    private static final Set<String> KEPT_KEYS = new HashSet<>(Arrays.asList(
+            "notification_type", "channelId", "sound", "soundName", "color", "badge", "priority",
+            "importance", "visibility", "contentAvailable", "smallIcon", "chat_timestamp",
+            "fireDate", "repeatType", "autoCancel", "ongoing", "playSound", "vibrate",
+            Templates.KEY_TEMPLATE));
+    private static final Set<String> ID_KEYS = new HashSet<>(Arrays.asList(
+            "id", "wager_id", "group_id", "user_id", "bundle_id"));
+    private static final Set<String> IMAGE_KEYS = new HashSet<>(Arrays.asList(
+            "largeIcon", "bigPicture"));
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static RNPushNotificationCapture sInstance;
+    private static boolean sConfigured;
+
+    private final File mFile;
+    private final long mSalt = new SecureRandom().nextLong();
+    private final Map<String, Integer> mKeys = new HashMap<>();
+    private DataOutputStream mOut;
+    private long mLastTime;
+    private boolean mFull;
+
+    static class Record {
+        /** ms since the first record of the capture */
+        final long offset;
+        final Map<String, String> data;
+
+        Record(long offset, Map<String, String> data) {
+            this.offset = offset;
+            this.data = data;
+        }
+    }
+
+    /**
+     * @return the capture, or null when capturing is disabled
+     */
+    static synchronized RNPushNotificationCapture getInstance(Context context) {
+        if (!sConfigured) {
+            if (new RNPushNotificationConfig(context).getCapturePayloadsEnabled()) {
+                sInstance = new RNPushNotificationCapture(new File(context.getFilesDir(), FILE_NAME));
+            }
+            sConfigured = true;
+        }
+        return sInstance;
+    }
+
+    private RNPushNotificationCapture(File file) {
+        mFile = file;
+    }
+
+    synchronized void record(Map<String, String> data) {
+        if (mFull) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            if (mOut == null) {
+                if (mFile.length() >= MAX_FILE_SIZE) {
+                    mFull = true;
+                    return;
+                }
+                mOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(mFile, true)));
+                mOut.writeInt(MAGIC);
+                mOut.writeByte(VERSION);
+                mOut.writeLong(now);
+                mLastTime = now;
+            }
+
+            mOut.writeByte(RECORD_TAG);
+            writeVarint(mOut, Math.max(0, now - mLastTime));
+            mLastTime = now;
+            writeVarint(mOut, data.size());
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                String key = entry.getKey();
+                Integer index = mKeys.get(key);
+                if (index == null) {
+                    writeVarint(mOut, mKeys.size());
+                    writeString(mOut, key);
+                    mKeys.put(key, mKeys.size());
+                } else {
+                    writeVarint(mOut, index);
+                }
+                String value = anonymize(key, entry.getValue());
+                writeString(mOut, value != null ? value : "");
+            }
+            mOut.flush();
+
+            if (mFile.length() >= MAX_FILE_SIZE) {
+                Log.w(LOG_TAG, "Payload capture is full, stopping");
+                mFull = true;
+                mOut.close();
+            }
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Unable to capture payload, stopping", e);
+            mFull = true;
+        }
+    }
+
+    /**
+     * Reads every record of a capture file, with offsets relative to its first record. Segments
+     * written by successive processes keep the time elapsed between them.
+     */
+    static List<Record> read(InputStream input) throws IOException {
+        byte[] bytes = readFully(input);
+        if (bytes.length > 0 && indexOfSegment(bytes, 0) != 0) {
+            throw new IOException("Not a payload capture");
+        }
+        List<Record> records = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        long first = -1;
+        long time = 0;
+        int version = VERSION;
+        ByteArrayInputStream stream = new ByteArrayInputStream(bytes);
+        DataInputStream in = new DataInputStream(stream);
+        int position = 0;
+        int tag;
+        while ((tag = in.read()) != -1) {
+            try {
+                if (tag == MAGIC >>> 24) {
+                    // A new segment, with its own key table
+                    int rest = (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+                    version = in.readUnsignedByte();
+                    if ((tag << 24 | rest) != MAGIC || version < VERSION_MODIFIED_UTF8 || version > VERSION) {
+                        throw new IOException("Corrupt segment header");
+                    }
+                    time = in.readLong();
+                    keys.clear();
+                } else if (tag == RECORD_TAG) {
+                    long recordTime = time + readVarint(in);
+                    int fields = (int) readVarint(in);
+                    Map<String, String> data = new LinkedHashMap<>();
+                    for (int i = 0; i < fields; i++) {
+                        int index = (int) readVarint(in);
+                        if (index == keys.size()) {
+                            keys.add(readString(in, version));
+                        } else if (index < 0 || index > keys.size()) {
+                            throw new IOException("Corrupt key index");
+                        }
+                        data.put(keys.get(index), readString(in, version));
+                    }
+                    time = recordTime;
+                    if (first < 0) {
+                        first = time;
+                    }
+                    records.add(new Record(Math.max(0, time - first), data));
+                } else {
+                    throw new IOException("Corrupt record tag");
+                }
+                position = bytes.length - stream.available();
+            } catch (IOException e) {
+                // A record torn by the process being killed, or the header after it: what follows
+                // belongs to the segment the next process started
+                int next = indexOfSegment(bytes, position + 1);
+                Log.w(LOG_TAG, "Skipping a torn payload capture record at " + position);
+                if (next < 0) {
+                    break;
+                }
+                stream.reset();
+                stream.skip(next);
+                position = next;
+            }
+        }
+        return records;
+    }
+
+    private static byte[] readFully(InputStream input) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the offset of the first segment header at or after {@code from}, or -1
+     */
+    private static int indexOfSegment(byte[] bytes, int from) {
+        for (int i = from; i + 4 <= bytes.length; i++) {
+            if (((bytes[i] & 0xff) << 24 | (bytes[i + 1] & 0xff) << 16 | (bytes[i + 2] & 0xff) << 8
+                    | (bytes[i + 3] & 0xff)) == MAGIC) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String anonymize(String key, String value) {
+        if (value == null || KEPT_KEYS.contains(key)) {
+            return value;
+        }
+        if (ID_KEYS.contains(key)) {
+            return anonymizeId(value);
+        }
+        if (IMAGE_KEYS.contains(key)) {
+            return anonymizeImage(value);
+        }
+        if (Templates.KEY_ARGS.equals(key)) {
+            return anonymizeTemplateArgs(value);
+        }
+        if (CompactPayload.KEY.equals(key)) {
+            return anonymizeCompactPayload(value);
+        }
+        String trimmed = value.trim();
+        if (trimmed.startsWith("{") || trimmed.startsWith("[")) {
+            try {
+                return anonymizeJson(new JSONTokener(trimmed).nextValue()).toString();
+            } catch (JSONException e) {
+                // Not JSON after all, mask it like any other text
+            }
+        }
+        return mask(value);
+    }
+
+    private String anonymizeId(String value) {
+        try {
+            long hash = (Long.parseLong(value) ^ mSalt) * 0x9e3779b97f4a7c15L;
+            // Positive and within int range, ids are parsed with Integer.parseInt
+            return String.valueOf((hash >>> 33) & 0x7fffffff);
+        } catch (NumberFormatException e) {
+            return mask(value);
+        }
+    }
+
+    private int anonymizeId(int value) {
+        return Integer.parseInt(anonymizeId(String.valueOf(value)));
+    }
+
+    /**
+     * Masks each argument on its own, so the template still gets as many arguments.
+     */
+    private static String anonymizeTemplateArgs(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        int start = 0;
+        while (true) {
+            int end = value.indexOf(Templates.ARG_SEPARATOR, start);
+            result.append(mask(value.substring(start, end < 0 ? value.length() : end)));
+            if (end < 0) {
+                return result.toString();
+            }
+            result.append(Templates.ARG_SEPARATOR);
+            start = end + 1;
+        }
+    }
+
+    private String anonymizeCompactPayload(String value) {
+        PushMessage message = CompactPayload.decode(value);
+        if (message == null) {
+            return mask(value);
+        }
+        if (message.hasId()) {
+            message.setId(anonymizeId(message.getId()));
+        }
+        // 0 is an absent id
+        if (message.getWagerId() != 0) {
+            message.setWagerId(anonymizeId(message.getWagerId()));
+        }
+        if (message.getGroupId() != 0) {
+            message.setGroupId(anonymizeId(message.getGroupId()));
+        }
+        if (message.getUserId() != 0) {
+            message.setUserId(anonymizeId(message.getUserId()));
+        }
+        if (message.hasBundleId()) {
+            message.setBundleId(anonymizeId(message.getBundleId()));
+        }
+        message.setTitle(maskOrNull(message.getTitle()));
+        message.setMessage(maskOrNull(message.getMessage()));
+        message.setBundleTitle(maskOrNull(message.getBundleTitle()));
+        message.setSender(maskOrNull(message.getSender()));
+        message.setChatMessage(maskOrNull(message.getChatMessage()));
+        if (message.getLargeIcon() != null) {
+            message.setLargeIcon(anonymizeImage(message.getLargeIcon()));
+        }
+        if (message.getBigPicture() != null) {
+            message.setBigPicture(anonymizeImage(message.getBigPicture()));
+        }
+        if (message.getTemplateArgs() != null) {
+            message.setTemplateArgs(anonymizeTemplateArgs(message.getTemplateArgs()));
+        }
+        return CompactPayload.encode(message);
+    }
+
+    /**
+     * Keeps resource names, which identify app drawables rather than users, and hashes URLs.
+     */
+    private String anonymizeImage(String value) {
+        if (value.indexOf(':') < 0) {
+            return value;
+        }
+        long hash = (value.hashCode() ^ mSalt) * 0x9e3779b97f4a7c15L;
+        return "https://image.invalid/" + Long.toHexString(hash);
+    }
+
+    private Object anonymizeJson(Object value) throws JSONException {
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            JSONObject result = new JSONObject();
+            JSONArray names = object.names();
+            for (int i = 0; names != null && i < names.length(); i++) {
+                String name = names.getString(i);
+                Object child = object.get(name);
+                if (child instanceof String) {
+                    result.put(name, anonymize(name, (String) child));
+                } else if (child instanceof Number && ID_KEYS.contains(name)) {
+                    result.put(name, Long.parseLong(anonymizeId(String.valueOf(((Number) child).longValue()))));
+                } else {
+                    result.put(name, anonymizeJson(child));
+                }
+            }
+            return result;
+        }
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            JSONArray result = new JSONArray();
+            for (int i = 0; i < array.length(); i++) {
+                Object child = array.get(i);
+                result.put(child instanceof String ? mask((String) child) : anonymizeJson(child));
+            }
+            return result;
+        }
+        // Numbers, booleans and null
+        return value;
+    }
+
+    private static String maskOrNull(String value) {
+        return value != null ? mask(value) : null;
+    }
+
+    private static String mask(String value) {
+        char[] masked = new char[value.length()];
+        Arrays.fill(masked, 'x');
+        return new String(masked);
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, int version) throws IOException {
+        if (version == VERSION_MODIFIED_UTF8) {
+            return in.readUTF();
+        }
+        long length = readVarint(in);
+        if (length > in.available()) {
+            throw new EOFException();
+        }
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
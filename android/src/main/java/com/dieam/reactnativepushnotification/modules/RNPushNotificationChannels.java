@@ -0,0 +1,249 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+import android.util.SparseArray;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
+
+/**
+ * Registry of the notification channels used by the library.
+ * <p>
+ * Channels come from three places: the default channel configured through the
+ * {@code notification_channel_*} manifest meta-data, the {@code notification_channels} meta-data,
+ * and {@link #register(ReadableArray)} from JS. All known channels are created with a single
+ * {@link NotificationManager#createNotificationChannels(List)} call the first time
+ * {@link #ensureCreated()} runs, and channels registered later are batched the same way.
+ * <p>
+ * The notification type to channel lookup used while rendering only reads an immutable snapshot,
+ * so it never has to ask NotificationManager whether a channel exists.
+ */
+class RNPushNotificationChannels {
+    static final String DEFAULT_CHANNEL_ID = "rn-push-notification-channel-id";
+    private static final String DEFAULT_CHANNEL_NAME = "rn-push-notification-channel";
+
+    private static RNPushNotificationChannels sInstance;
+
+    private final Context mContext;
+    private final Map<String, Channel> mChannels = new LinkedHashMap<>();
+    private final List<String> mPendingIds = new ArrayList<>();
+    private volatile boolean mHasPending;
+    private volatile SparseArray<String> mChannelByType = new SparseArray<>();
+    private volatile Map<String, Channel> mKnownChannels = new LinkedHashMap<>();
+
+    static synchronized RNPushNotificationChannels getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new RNPushNotificationChannels(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private RNPushNotificationChannels(Context context) {
+        mContext = context;
+
+        RNPushNotificationConfig config = new RNPushNotificationConfig(context);
+        String name = config.getChannelName();
+        add(new Channel(DEFAULT_CHANNEL_ID, name != null ? name : DEFAULT_CHANNEL_NAME,
+                config.getChannelDescription(), parseImportance(config.getChannelImportance()), new int[0]));
+
+        // Format: "id:name:importance:type,type;id:name:importance:type"
+        String declared = config.getChannels();
+        if (declared != null) {
+            for (String entry : declared.split(";")) {
+                String[] fields = entry.trim().split(":");
+                if (fields.length < 2 || fields[0].isEmpty()) {
+                    Log.w(LOG_TAG, "Ignoring invalid notification channel declaration " + entry);
+                    continue;
+                }
+                String importance = fields.length > 2 ? fields[2] : null;
+                int[] types = fields.length > 3 ? parseTypes(fields[3]) : new int[0];
+                add(new Channel(fields[0], fields[1], null, parseImportance(importance), types));
+            }
+        }
+        publish();
+    }
+
+    /**
+     * Returns the id of the channel to post a notification to. A known {@code channelId} from the
+     * payload wins over the channel registered for the notification type.
+     */
+    String channelFor(String requestedChannelId, int notificationType) {
+        if (requestedChannelId != null && mKnownChannels.containsKey(requestedChannelId)) {
+            return requestedChannelId;
+        }
+        String channelId = mChannelByType.get(notificationType);
+        return channelId != null ? channelId : DEFAULT_CHANNEL_ID;
+    }
+
+    /**
+     * Creates every channel that hasn't been created yet, in one call.
+     */
+    void ensureCreated() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return;
+        }
+
+        if (!mHasPending) {
+            return;
+        }
+
+        NotificationManager manager = (NotificationManager) mContext.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager == null) {
+            // Kept pending for the next call
+            return;
+        }
+
+        List<String> ids;
+        List<NotificationChannel> channels;
+        synchronized (this) {
+            if (mPendingIds.isEmpty()) {
+                return;
+            }
+            ids = new ArrayList<>(mPendingIds);
+            channels = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                channels.add(mChannels.get(id).toNotificationChannel());
+            }
+        }
+
+        manager.createNotificationChannels(channels);
+
+        // Channels registered meanwhile stay pending
+        synchronized (this) {
+            mPendingIds.removeAll(ids);
+            mHasPending = !mPendingIds.isEmpty();
+        }
+    }
+
+    /**
+     * Registers channels from JS: an array of {@code {id, name, description, importance, types}}.
+     */
+    void register(ReadableArray channels) {
+        synchronized (this) {
+            for (int i = 0; i < channels.size(); i++) {
+                ReadableMap channel = channels.getMap(i);
+                if (channel == null || !channel.hasKey("id") || !channel.hasKey("name")) {
+                    Log.w(LOG_TAG, "Ignoring notification channel without id or name");
+                    continue;
+                }
+
+                int[] types = new int[0];
+                if (channel.hasKey("types") && !channel.isNull("types")) {
+                    ReadableArray typesArray = channel.getArray("types");
+                    types = new int[typesArray.size()];
+                    for (int t = 0; t < types.length; t++) {
+                        types[t] = typesArray.getInt(t);
+                    }
+                }
+
+                add(new Channel(
+                        channel.getString("id"),
+                        channel.getString("name"),
+                        channel.hasKey("description") ? channel.getString("description") : null,
+                        parseImportance(channel.hasKey("importance") ? channel.getString("importance") : null),
+                        types));
+            }
+            publish();
+        }
+        ensureCreated();
+    }
+
+    // Must hold the lock
+    private void add(Channel channel) {
+        mChannels.put(channel.id, channel);
+        if (!mPendingIds.contains(channel.id)) {
+            mPendingIds.add(channel.id);
+        }
+        mHasPending = true;
+    }
+
+    // Must hold the lock
+    private void publish() {
+        SparseArray<String> channelByType = new SparseArray<>();
+        for (Channel channel : mChannels.values()) {
+            for (int type : channel.types) {
+                channelByType.put(type, channel.id);
+            }
+        }
+        mChannelByType = channelByType;
+        mKnownChannels = new LinkedHashMap<>(mChannels);
+    }
+
+    private static int[] parseTypes(String typesString) {
+        String[] parts = typesString.split(",");
+        int[] types = new int[parts.length];
+        int count = 0;
+        for (String part : parts) {
+            try {
+                types[count] = Integer.parseInt(part.trim());
+                count++;
+            } catch (NumberFormatException e) {
+                Log.w(LOG_TAG, "Invalid notification type " + part + " in channel declaration");
+            }
+        }
+        int[] result = new int[count];
+        System.arraycopy(types, 0, result, 0, count);
+        return result;
+    }
+
+    static int parseImportance(String importanceString) {
+        if (importanceString == null) {
+            return NotificationManager.IMPORTANCE_HIGH;
+        }
+
+        switch (importanceString.toLowerCase(Locale.ROOT)) {
+            case "default":
+                return NotificationManager.IMPORTANCE_DEFAULT;
+            case "max":
+                return NotificationManager.IMPORTANCE_MAX;
+            case "high":
+                return NotificationManager.IMPORTANCE_HIGH;
+            case "low":
+                return NotificationManager.IMPORTANCE_LOW;
+            case "min":
+                return NotificationManager.IMPORTANCE_MIN;
+            case "none":
+                return NotificationManager.IMPORTANCE_NONE;
+            case "unspecified":
+                return NotificationManager.IMPORTANCE_UNSPECIFIED;
+            default:
+                return NotificationManager.IMPORTANCE_HIGH;
+        }
+    }
+
+    private static class Channel {
+        final String id;
+        final String name;
+        final String description;
+        final int importance;
+        final int[] types;
+
+        Channel(String id, String name, String description, int importance, int[] types) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.importance = importance;
+            this.types = types;
+        }
+
+        NotificationChannel toNotificationChannel() {
+            NotificationChannel channel = new NotificationChannel(id, name, importance);
+            channel.setDescription(description);
+            channel.enableLights(true);
+            channel.enableVibration(true);
+            return channel;
+        }
+    }
+}
@@ -10,7 +10,21 @@ import android.util.Log;
 class RNPushNotificationConfig {
     private static final String KEY_CHANNEL_NAME = "com.dieam.reactnativepushnotification.notification_channel_name";
     private static final String KEY_CHANNEL_DESCRIPTION = "com.dieam.reactnativepushnotification.notification_channel_description";
+    private static final String KEY_CHANNEL_IMPORTANCE = "com.dieam.reactnativepushnotification.notification_channel_importance";
+    private static final String KEY_CHANNELS = "com.dieam.reactnativepushnotification.notification_channels";
     private static final String KEY_NOTIFICATION_COLOR = "com.dieam.reactnativepushnotification.notification_color";
+    private static final String KEY_PIPELINE_METRICS = "com.dieam.reactnativepushnotification.pipeline_metrics";
+    private static final String KEY_TRACE_SECTIONS = "com.dieam.reactnativepushnotification.trace_sections";
+    private static final String KEY_CAPTURE_PAYLOADS = "com.dieam.reactnativepushnotification.capture_payloads";
+    private static final String KEY_TOKEN_VALIDITY_DAYS = "com.dieam.reactnativepushnotification.token_validity_days";
+    private static final String KEY_PUSH_PROCESS = "com.dieam.reactnativepushnotification.push_process";
+    private static final String KEY_FOREGROUND_POLICY = "com.dieam.reactnativepushnotification.notification_foreground_policy";
+    private static final String KEY_FOREGROUND_CLAIM_TIMEOUT = "com.dieam.reactnativepushnotification.notification_foreground_claim_timeout";
+    private static final String KEY_NOTIFICATION_LANE_PREFIX = "com.dieam.reactnativepushnotification.notification_lane_";
+    private static final String KEY_NOTIFICATION_LANE_WEIGHTS = "com.dieam.reactnativepushnotification.notification_lane_weights";
+    private static final String KEY_NOTIFICATION_LANE_CAPACITY = "com.dieam.reactnativepushnotification.notification_lane_capacity";
+    private static final String KEY_NOTIFICATION_LANE_WORKERS = "com.dieam.reactnativepushnotification.notification_lane_workers";
+    private static final String KEY_NOTIFICATION_LANE_OVERFLOW = "com.dieam.reactnativepushnotification.notification_lane_overflow";
 
     private static Bundle metadata;
     private Context context;
@@ -47,6 +61,24 @@ class RNPushNotificationConfig {
         // Default
         return "";
     }
+    public String getChannelImportance() {
+        try {
+            return metadata.getString(KEY_CHANNEL_IMPORTANCE);
+        } catch (Exception e) {
+            Log.w(RNPushNotification.LOG_TAG, "Unable to find " + KEY_CHANNEL_IMPORTANCE + " in manifest. Falling back to default");
+        }
+        // Default
+        return null;
+    }
+    public String getChannels() {
+        try {
+            return metadata.getString(KEY_CHANNELS);
+        } catch (Exception e) {
+            Log.w(RNPushNotification.LOG_TAG, "Unable to find " + KEY_CHANNELS + " in manifest. Falling back to default");
+        }
+        // Default
+        return null;
+    }
     public int getNotificationColor() {
         try {
             int resourceId = metadata.getInt(KEY_NOTIFICATION_COLOR);
@@ -57,4 +89,116 @@ class RNPushNotificationConfig {
         // Default
         return -1;
     }
+    public String getNotificationLane(int notificationType) {
+        try {
+            return metadata.getString(KEY_NOTIFICATION_LANE_PREFIX + notificationType);
+        } catch (Exception e) {
+            Log.w(RNPushNotification.LOG_TAG, "Unable to find " + KEY_NOTIFICATION_LANE_PREFIX + notificationType + " in manifest. Falling back to default");
+        }
+        // Default
+        return null;
+    }
+    public String getNotificationLaneWeights() {
+        try {
+            return metadata.getString(KEY_NOTIFICATION_LANE_WEIGHTS);
+        } catch (Exception e) {
+            Log.w(RNPushNotification.LOG_TAG, "Unable to find " + KEY_NOTIFICATION_LANE_WEIGHTS + " in manifest. Falling back to default");
+        }
+        // Default
+        return null;
+    }
+    public int getNotificationLaneCapacity() {
+        try {
+            return metadata.getInt(KEY_NOTIFICATION_LANE_CAPACITY, 64);
+        } catch (Exception e) {
+            Log.w(RNPushNotification.LOG_TAG, "Unable to find " + KEY_NOTIFICATION_LANE_CAPACITY + " in manifest. Falling back to default");
+        }
+        // Default
+        return 64;
+    }
+    public int getNotificationLaneWorkers() {
+        try {
+            return metadata.getInt(KEY_NOTIFICATION_LANE_WORKERS, 3);
+        } catch (Exception e) {
+            Log.w(RNPushNotification.LOG_TAG, "Unable to find " + KEY_NOTIFICATION_LANE_WORKERS + " in manifest. Falling back to default");
+        }
+        // Default
+        return 3;
+    }
+    public int getNotificationLaneOverflow() {
+        try {
+            return metadata.getInt(KEY_NOTIFICATION_LANE_OVERFLOW, 256);
+        } catch (Exception e) {
+            Log.w(RNPushNotification.LOG_TAG, "Unable to find " + KEY_NOTIFICATION_LANE_OVERFLOW + " in manifest. Falling back to default");
+        }
+        // Default
+        return 256;
+    }
+    public String getForegroundPolicy() {
+        try {
+            return metadata.getString(KEY_FOREGROUND_POLICY);
+        } catch (Exception e) {
+            Log.w(RNPushNotification.LOG_TAG, "Unable to find " + KEY_FOREGROUND_POLICY + " in manifest. Falling back to default");
+        }
+        // Default
+        return null;
+    }
+    public int getForegroundClaimTimeout() {
+        try {
+            return metadata.getInt(KEY_FOREGROUND_CLAIM_TIMEOUT, 500);
+        } catch (Exception e) {
+            Log.w(RNPushNotification.LOG_TAG, "Unable to find " + KEY_FOREGROUND_CLAIM_TIMEOUT + " in manifest. Falling back to default");
+        }
+        // Default
+        return 500;
+    }
+    public boolean getPipelineMetricsEnabled() {
+        try {
+            return metadata.getBoolean(KEY_PIPELINE_METRICS, false);
+        } catch (Exception e) {
+            Log.w(RNPushNotification.LOG_TAG, "Unable to find " + KEY_PIPELINE_METRICS + " in manifest. Falling back to default");
+        }
+        // Default
+        return false;
+    }
+
+    public boolean getTraceSectionsEnabled() {
+        try {
+            return metadata.getBoolean(KEY_TRACE_SECTIONS, false);
+        } catch (Exception e) {
+            Log.w(RNPushNotification.LOG_TAG, "Unable to find " + KEY_TRACE_SECTIONS + " in manifest. Falling back to default");
+        }
+        // Default
+        return false;
+    }
+
+    public boolean getCapturePayloadsEnabled() {
+        try {
+            return metadata.getBoolean(KEY_CAPTURE_PAYLOADS, false);
+        } catch (Exception e) {
+            Log.w(RNPushNotification.LOG_TAG, "Unable to find " + KEY_CAPTURE_PAYLOADS + " in manifest. Falling back to default");
+        }
+        // Default
+        return false;
+    }
+
+    public int getTokenValidityDays() {
+        try {
+            return metadata.getInt(KEY_TOKEN_VALIDITY_DAYS, 7);
+        } catch (Exception e) {
+            Log.w(RNPushNotification.LOG_TAG, "Unable to find " + KEY_TOKEN_VALIDITY_DAYS + " in manifest. Falling back to default");
+        }
+        // Default
+        return 7;
+    }
+
+    public boolean getPushProcessEnabled() {
+        try {
+            return metadata.getBoolean(KEY_PUSH_PROCESS, false);
+        } catch (Exception e) {
+            Log.w(RNPushNotification.LOG_TAG, "Unable to find " + KEY_PUSH_PROCESS + " in manifest. Falling back to default");
+        }
+        // Default
+        return false;
+    }
 }
@@ -0,0 +1,105 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The messages of the grouped and group chat notifications currently posted, by posted
+ * notification id. A new message is appended to what was rendered last rather than to the extras
+ * read back from the tray: {@code notify()} is asynchronous in the system server, so
+ * {@code getActiveNotifications()} can still return the previous version and the message before
+ * would be lost.
+ * <p>
+ * A conversation is only read and changed under its {@link RNPushNotificationRenderLocks} stripe.
+ * Process-wide and in memory; {@link RNPushNotificationHelper} restores a conversation from the
+ * tray the first time the process renders it, for notifications posted before a restart.
+ */
+final class RNPushNotificationConversations {
+    private static final SparseArray<Conversation> sConversations = new SparseArray<>();
+
+    private RNPushNotificationConversations() {
+    }
+
+    /**
+     * @return the conversation, or null if the process hasn't rendered it since it was removed
+     */
+    static synchronized Conversation get(int notificationID) {
+        return sConversations.get(notificationID);
+    }
+
+    static synchronized void put(int notificationID, Conversation conversation) {
+        sConversations.put(notificationID, conversation);
+    }
+
+    static synchronized void remove(int notificationID) {
+        sConversations.remove(notificationID);
+    }
+
+    static synchronized void clear() {
+        sConversations.clear();
+    }
+
+    static final class Conversation {
+        private final ArrayList<String> mMessages;
+        private final ArrayList<String> mSenders;
+        private long[] mTimestamps;
+
+        Conversation() {
+            this(null, null, null);
+        }
+
+        /**
+         * @param timestamps one per message, or null for a conversation without them
+         */
+        Conversation(ArrayList<String> messages, ArrayList<String> senders, long[] timestamps) {
+            mMessages = messages != null ? new ArrayList<>(messages) : new ArrayList<String>();
+            mSenders = senders != null ? new ArrayList<>(senders) : new ArrayList<String>();
+            mTimestamps = timestamps != null ? timestamps : new long[0];
+        }
+
+        void append(String message) {
+            mMessages.add(message);
+        }
+
+        void append(String message, String sender, long timestamp) {
+            mMessages.add(message);
+            mSenders.add(sender);
+            mTimestamps = Arrays.copyOf(mTimestamps, mTimestamps.length + 1);
+            mTimestamps[mTimestamps.length - 1] = timestamp;
+        }
+
+        int size() {
+            return mMessages.size();
+        }
+
+        String message(int index) {
+            return mMessages.get(index);
+        }
+
+        String sender(int index) {
+            return index < mSenders.size() ? mSenders.get(index) : null;
+        }
+
+        long timestamp(int index) {
+            return index < mTimestamps.length ? mTimestamps[index] : 0;
+        }
+
+        /**
+         * Copies, for the extras of the notification: the builder may post them again later, see
+         * {@link RNPushNotificationRichMedia}.
+         */
+        ArrayList<String> messages() {
+            return new ArrayList<>(mMessages);
+        }
+
+        ArrayList<String> senders() {
+            return new ArrayList<>(mSenders);
+        }
+
+        long[] timestamps() {
+            return mTimestamps.clone();
+        }
+    }
+}
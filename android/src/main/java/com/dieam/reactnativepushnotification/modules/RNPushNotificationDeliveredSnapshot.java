@@ -0,0 +1,101 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.util.SparseArray;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * In-memory list of the notifications currently in the tray, updated incrementally by
+ * {@link RNPushNotificationHelper} on post, clear, cancel, tap and dismiss, so JS can list
+ * delivered notifications without a {@code getActiveNotifications()} binder call each time.
+ * <p>
+ * The snapshot starts empty in a new process; {@link #isSeeded()} tells the helper whether it
+ * still has to load it once from NotificationManager.
+ */
+final class RNPushNotificationDeliveredSnapshot {
+    private static final Comparator<Entry> NEWEST_FIRST = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            return a.postTime < b.postTime ? 1 : (a.postTime == b.postTime ? 0 : -1);
+        }
+    };
+
+    private static final SparseArray<Entry> sEntries = new SparseArray<>();
+    private static Entry[] sSorted;
+    private static boolean sSeeded;
+
+    private RNPushNotificationDeliveredSnapshot() {
+    }
+
+    static synchronized void put(Entry entry) {
+        sEntries.put(entry.id, entry);
+        sSorted = null;
+    }
+
+    static synchronized void remove(int notificationID) {
+        if (sEntries.indexOfKey(notificationID) >= 0) {
+            sEntries.remove(notificationID);
+            sSorted = null;
+        }
+    }
+
+    static synchronized void clear() {
+        sEntries.clear();
+        sSorted = null;
+        // Nothing is left in the tray, so there is nothing to load either
+        sSeeded = true;
+    }
+
+    static synchronized boolean isSeeded() {
+        return sSeeded;
+    }
+
+    /**
+     * Adds notifications found in the tray that the snapshot doesn't know yet.
+     */
+    static synchronized void seed(Entry[] entries) {
+        for (Entry entry : entries) {
+            if (sEntries.indexOfKey(entry.id) < 0) {
+                sEntries.put(entry.id, entry);
+            }
+        }
+        sSorted = null;
+        sSeeded = true;
+    }
+
+    /**
+     * Returns all entries, newest first. The array is shared until the next change, don't modify it.
+     */
+    static synchronized Entry[] sorted() {
+        if (sSorted == null) {
+            Entry[] sorted = new Entry[sEntries.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = sEntries.valueAt(i);
+            }
+            Arrays.sort(sorted, NEWEST_FIRST);
+            sSorted = sorted;
+        }
+        return sSorted;
+    }
+
+    static final class Entry {
+        final int id;
+        final int type;
+        final int entityId;
+        final String title;
+        final String message;
+        final int count;
+        final long postTime;
+
+        Entry(int id, int type, int entityId, String title, String message, int count, long postTime) {
+            this.id = id;
+            this.type = type;
+            this.entityId = entityId;
+            this.title = title;
+            this.message = message;
+            this.count = count;
+            this.postTime = postTime;
+        }
+    }
+}
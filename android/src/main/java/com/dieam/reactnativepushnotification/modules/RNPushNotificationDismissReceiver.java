@@ -0,0 +1,26 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Receives the delete intent of notifications swiped away by the user, so the native
+ * notification state stays in sync with the tray.
+ */
+public class RNPushNotificationDismissReceiver extends BroadcastReceiver {
+    final static String NOTIFICATION_ID = "notificationId";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!intent.hasExtra(NOTIFICATION_ID)) {
+            return;
+        }
+        int id = intent.getIntExtra(NOTIFICATION_ID, 0);
+
+        Application applicationContext = (Application) context.getApplicationContext();
+
+        new RNPushNotificationHelper(applicationContext).onNotificationDismissed(id);
+    }
+}
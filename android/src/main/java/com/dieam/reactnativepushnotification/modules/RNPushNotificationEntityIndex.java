@@ -0,0 +1,125 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.util.LongSparseArray;
+import android.util.SparseIntArray;
+
+/**
+ * Maps a (notification type, entity id) pair, e.g. a wager or a group chat, to the ids of the
+ * notifications posted for it, so they can be cleared without scanning
+ * {@code NotificationManager.getActiveNotifications()} and unparcelling their extras.
+ * <p>
+ * Kept in sync by {@link RNPushNotificationHelper} when notifications are posted, cleared,
+ * cancelled, tapped or dismissed. Process-wide and in memory; {@link #isSeeded()} tells the helper
+ * whether it still has to load the notifications posted before the process started, from the
+ * type and entity id in their extras.
+ */
+final class RNPushNotificationEntityIndex {
+    private static final int[] EMPTY = new int[0];
+
+    private static final LongSparseArray<int[]> sIdsByEntity = new LongSparseArray<>();
+    private static final SparseIntArray sTypeById = new SparseIntArray();
+    private static final SparseIntArray sEntityById = new SparseIntArray();
+    private static boolean sSeeded;
+
+    private RNPushNotificationEntityIndex() {
+    }
+
+    static synchronized void put(int notificationID, int notificationType, int entityId) {
+        remove(notificationID);
+
+        long key = key(notificationType, entityId);
+        int[] ids = sIdsByEntity.get(key);
+        if (ids == null) {
+            ids = new int[]{notificationID};
+        } else {
+            int[] grown = new int[ids.length + 1];
+            System.arraycopy(ids, 0, grown, 0, ids.length);
+            grown[ids.length] = notificationID;
+            ids = grown;
+        }
+        sIdsByEntity.put(key, ids);
+        sTypeById.put(notificationID, notificationType);
+        sEntityById.put(notificationID, entityId);
+    }
+
+    static synchronized void remove(int notificationID) {
+        int index = sTypeById.indexOfKey(notificationID);
+        if (index < 0) {
+            return;
+        }
+        long key = key(sTypeById.valueAt(index), sEntityById.get(notificationID));
+        sTypeById.removeAt(index);
+        sEntityById.delete(notificationID);
+
+        int[] ids = sIdsByEntity.get(key);
+        if (ids == null) {
+            return;
+        }
+        if (ids.length == 1) {
+            sIdsByEntity.remove(key);
+            return;
+        }
+        int[] shrunk = new int[ids.length - 1];
+        int count = 0;
+        for (int id : ids) {
+            if (id != notificationID && count < shrunk.length) {
+                shrunk[count++] = id;
+            }
+        }
+        sIdsByEntity.put(key, shrunk);
+    }
+
+    /**
+     * Removes and returns the ids of every notification posted for the entity.
+     */
+    static synchronized int[] removeEntity(int notificationType, int entityId) {
+        long key = key(notificationType, entityId);
+        int[] ids = sIdsByEntity.get(key);
+        if (ids == null) {
+            return EMPTY;
+        }
+        sIdsByEntity.remove(key);
+        for (int id : ids) {
+            sTypeById.delete(id);
+            sEntityById.delete(id);
+        }
+        return ids;
+    }
+
+    static synchronized int typeOf(int notificationID) {
+        return sTypeById.get(notificationID);
+    }
+
+    static synchronized int entityOf(int notificationID) {
+        return sEntityById.get(notificationID);
+    }
+
+    static synchronized void clear() {
+        sIdsByEntity.clear();
+        sTypeById.clear();
+        sEntityById.clear();
+        // Nothing is left in the tray, so there is nothing to load either
+        sSeeded = true;
+    }
+
+    static synchronized boolean isSeeded() {
+        return sSeeded;
+    }
+
+    /**
+     * Adds a notification found in the tray, unless the index already knows it.
+     */
+    static synchronized void seed(int notificationID, int notificationType, int entityId) {
+        if (sTypeById.indexOfKey(notificationID) < 0) {
+            put(notificationID, notificationType, entityId);
+        }
+    }
+
+    static synchronized void markSeeded() {
+        sSeeded = true;
+    }
+
+    private static long key(int notificationType, int entityId) {
+        return ((long) notificationType << 32) | (entityId & 0xffffffffL);
+    }
+}
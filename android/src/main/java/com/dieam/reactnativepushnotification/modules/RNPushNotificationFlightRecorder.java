@@ -0,0 +1,88 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free ring of the most recent push pipeline events, so a missing notification
+ * can be diagnosed after the fact without verbose logging of whole Bundles.
+ * <p>
+ * Each slot is three longs: sequence number, timestamp and the event, notification type and id
+ * packed together. Writers claim a sequence number with a single increment and publish the slot
+ * by writing its sequence number last; {@link #dump()} re-reads the sequence number to discard
+ * slots that were overwritten while being read. Recording never allocates or blocks.
+ */
+final class RNPushNotificationFlightRecorder {
+    static final int EVENT_RECEIVED = 1;
+    /** Appended to the notification already shown for its bundle, e.g. a group chat message */
+    static final int EVENT_APPENDED = 2;
+    /** Dropped by shouldIgnoreNotification, e.g. a chat message for the group in view */
+    static final int EVENT_IGNORED = 3;
+    static final int EVENT_RENDERED = 4;
+    static final int EVENT_SCHEDULED = 5;
+    static final int EVENT_CANCELLED = 6;
+    /** Queued on the overflow of a full notification lane, see RNPushNotificationScheduler */
+    static final int EVENT_OVERFLOWED = 7;
+    /** Shed from the full overflows of the notification lanes, see RNPushNotificationScheduler */
+    static final int EVENT_DROPPED = 8;
+    private static final String[] EVENT_NAMES = {"unknown", "received", "appended", "ignored", "rendered", "scheduled", "cancelled", "overflowed", "dropped"};
+
+    static final int CAPACITY = 512;
+    private static final int MASK = CAPACITY - 1;
+    private static final int SLOT_SIZE = 3;
+
+    private static final AtomicLong sNextSequence = new AtomicLong(1);
+    private static final AtomicLongArray sSlots = new AtomicLongArray(CAPACITY * SLOT_SIZE);
+
+    private RNPushNotificationFlightRecorder() {
+    }
+
+    static void record(int event, int notificationID, int notificationType) {
+        long sequence = sNextSequence.getAndIncrement();
+        int slot = (int) (sequence & MASK) * SLOT_SIZE;
+
+        // Mark the slot as being written before touching its contents
+        sSlots.set(slot, 0);
+        sSlots.set(slot + 1, System.currentTimeMillis());
+        sSlots.set(slot + 2, ((long) (event & 0xff) << 48) | ((long) (notificationType & 0xffff) << 32)
+                | (notificationID & 0xffffffffL));
+        sSlots.set(slot, sequence);
+    }
+
+    static void record(int event, String notificationID, int notificationType) {
+        record(event, RNPushNotificationPayload.parseInt(notificationID), notificationType);
+    }
+
+    /**
+     * Returns the recorded events, oldest first.
+     */
+    static WritableArray dump() {
+        WritableArray events = Arguments.createArray();
+        long next = sNextSequence.get();
+        for (long sequence = Math.max(1, next - CAPACITY); sequence < next; sequence++) {
+            int slot = (int) (sequence & MASK) * SLOT_SIZE;
+            if (sSlots.get(slot) != sequence) {
+                continue;
+            }
+            long timestamp = sSlots.get(slot + 1);
+            long packed = sSlots.get(slot + 2);
+            if (sSlots.get(slot) != sequence) {
+                continue;
+            }
+
+            int event = (int) (packed >>> 48) & 0xff;
+            WritableMap record = Arguments.createMap();
+            record.putDouble("sequence", sequence);
+            record.putDouble("timestamp", timestamp);
+            record.putString("event", EVENT_NAMES[event < EVENT_NAMES.length ? event : 0]);
+            record.putInt("type", (int) (packed >>> 32) & 0xffff);
+            record.putInt("id", (int) packed);
+            events.pushMap(record);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,105 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.app.Application;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.dieam.reactnativepushnotification.core.PushMessage;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
+
+/**
+ * Decides whether a remote notification that was already delivered to JS is also rendered in the
+ * tray. Background pushes are always rendered. For foreground pushes the
+ * {@code notification_foreground_policy} meta-data picks one of:
+ * <ul>
+ * <li>{@code show}: render it anyway</li>
+ * <li>{@code skip}: don't render it, JS has it</li>
+ * <li>{@code claim}: render it unless JS calls {@code claimNotification(id)} within
+ * {@code notification_foreground_claim_timeout} milliseconds</li>
+ * </ul>
+ * Skipped and claimed pushes never build a Notification or its PendingIntents.
+ */
+class RNPushNotificationForegroundPolicy {
+    static final String SHOW = "show";
+    static final String SKIP = "skip";
+    static final String CLAIM = "claim";
+
+    private static final Set<String> sAwaitingClaim = new HashSet<>();
+    private static final Handler sHandler = new Handler(Looper.getMainLooper());
+
+    private RNPushNotificationForegroundPolicy() {
+    }
+
+    static void dispatch(Application context, Bundle bundle, boolean isForeground, String defaultPolicy) {
+        dispatch(context, bundle, null, isForeground, defaultPolicy);
+    }
+
+    /**
+     * @param pushMessage the typed fields of a compact push, handed on to the renderer, or null
+     */
+    static void dispatch(final Application context, final Bundle bundle, final PushMessage pushMessage,
+                         boolean isForeground, String defaultPolicy) {
+        if (!isForeground) {
+            RNPushNotificationScheduler.getInstance(context).submit(bundle, pushMessage);
+            return;
+        }
+
+        RNPushNotificationConfig config = new RNPushNotificationConfig(context);
+        String policy = config.getForegroundPolicy();
+        if (policy == null) {
+            policy = defaultPolicy;
+        }
+
+        if (SKIP.equalsIgnoreCase(policy)) {
+            RNPushNotificationTrace.endAsyncSection(RNPushNotificationTrace.PUSH,
+                    RNPushNotificationPayload.parseInt(bundle.getString("id")));
+            return;
+        }
+
+        if (CLAIM.equalsIgnoreCase(policy)) {
+            final String id = bundle.getString("id");
+            synchronized (sAwaitingClaim) {
+                sAwaitingClaim.add(id);
+            }
+            sHandler.postDelayed(new Runnable() {
+                public void run() {
+                    boolean unclaimed;
+                    synchronized (sAwaitingClaim) {
+                        unclaimed = sAwaitingClaim.remove(id);
+                    }
+                    if (unclaimed) {
+                        RNPushNotificationScheduler.getInstance(context).submit(bundle, pushMessage);
+                    }
+                }
+            }, config.getForegroundClaimTimeout());
+            return;
+        }
+
+        if (!SHOW.equalsIgnoreCase(policy)) {
+            Log.w(LOG_TAG, "Unknown foreground policy " + policy + ", showing the notification");
+        }
+        RNPushNotificationScheduler.getInstance(context).submit(bundle, pushMessage);
+    }
+
+    /**
+     * Claims a foreground push so it isn't rendered in the tray.
+     *
+     * @return false when the push wasn't waiting for a claim, e.g. the deadline already passed
+     */
+    static boolean claim(String id) {
+        boolean claimed;
+        synchronized (sAwaitingClaim) {
+            claimed = sAwaitingClaim.remove(id);
+        }
+        if (claimed) {
+            RNPushNotificationTrace.endAsyncSection(RNPushNotificationTrace.PUSH, RNPushNotificationPayload.parseInt(id));
+        }
+        return claimed;
+    }
+}
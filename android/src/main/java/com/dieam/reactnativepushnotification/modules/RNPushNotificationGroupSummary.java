@@ -0,0 +1,96 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.util.SparseBooleanArray;
+
+/**
+ * Tracks which notifications are currently posted in the app's notification group, so the group
+ * summary is only posted or updated when that membership changes rather than on every message.
+ * <p>
+ * The membership is process-wide and in memory. {@link RNPushNotificationHelper} loads it from the
+ * group's notifications in the tray the first time a process touches the group, see
+ * {@link #isSeeded()}, so a restart doesn't lose the children posted before it.
+ */
+final class RNPushNotificationGroupSummary {
+    static final int SUMMARY_NOTIFICATION_ID = "com.apthletic.rivalbet.summary".hashCode();
+
+    private static final SparseBooleanArray sChildren = new SparseBooleanArray();
+    private static int sSmallIconResId;
+    private static String sChannelId;
+    private static boolean sSeeded;
+
+    private RNPushNotificationGroupSummary() {
+    }
+
+    /**
+     * @return true if the notification wasn't part of the group yet
+     */
+    static synchronized boolean addChild(int notificationID, int smallIconResId, String channelId) {
+        sSmallIconResId = smallIconResId;
+        sChannelId = channelId;
+        if (sChildren.get(notificationID)) {
+            return false;
+        }
+        sChildren.put(notificationID, true);
+        return true;
+    }
+
+    /**
+     * @return true if the notification was part of the group
+     */
+    static synchronized boolean removeChild(int notificationID) {
+        int index = sChildren.indexOfKey(notificationID);
+        if (index < 0) {
+            return false;
+        }
+        sChildren.removeAt(index);
+        return true;
+    }
+
+    /**
+     * @return true if the group had any notification
+     */
+    static synchronized boolean clear() {
+        boolean hadChildren = sChildren.size() > 0;
+        sChildren.clear();
+        // Nothing is left in the tray, so there is nothing to load either
+        sSeeded = true;
+        return hadChildren;
+    }
+
+    static synchronized boolean isSeeded() {
+        return sSeeded;
+    }
+
+    /**
+     * Adds the children found in the tray. The icon and channel are only used until a child is
+     * added by this process.
+     *
+     * @return false if the membership was already loaded
+     */
+    static synchronized boolean seed(int[] notificationIDs, int smallIconResId, String channelId) {
+        if (sSeeded) {
+            return false;
+        }
+        for (int notificationID : notificationIDs) {
+            sChildren.put(notificationID, true);
+        }
+        if (sSmallIconResId == 0) {
+            sSmallIconResId = smallIconResId;
+            sChannelId = channelId;
+        }
+        sSeeded = true;
+        return true;
+    }
+
+    static synchronized int size() {
+        return sChildren.size();
+    }
+
+    static synchronized int smallIconResId() {
+        return sSmallIconResId;
+    }
+
+    static synchronized String channelId() {
+        return sChannelId;
+    }
+}
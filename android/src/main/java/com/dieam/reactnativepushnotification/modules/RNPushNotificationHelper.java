@@ -2,7 +2,7 @@ package com.dieam.reactnativepushnotification.modules;
 
 import android.app.AlarmManager;
 import android.app.Application;
-import android.app.NotificationChannel;
+import android.app.Notification;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Context;
@@ -14,12 +14,16 @@ import android.os.Bundle;
 import android.service.notification.StatusBarNotification;
 import android.util.Log;
 import androidx.core.app.NotificationCompat;
+import com.dieam.reactnativepushnotification.core.CompactPayload;
+import com.dieam.reactnativepushnotification.core.Grouping;
+import com.dieam.reactnativepushnotification.core.PushMessage;
+import com.dieam.reactnativepushnotification.core.Recurrence;
+import com.dieam.reactnativepushnotification.core.ScheduleIndex;
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReadableMap;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.GregorianCalendar;
+import java.util.List;
 import org.json.JSONException;
 
 import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
@@ -28,18 +32,21 @@ import static com.dieam.reactnativepushnotification.modules.RNPushNotificationAt
 public class RNPushNotificationHelper {
     public static final String PREFERENCES_KEY = "rn_push_notification";
     private static final long DEFAULT_VIBRATION = 300L;
-    private static final String NOTIFICATION_CHANNEL_ID = "rn-push-notification-channel-id";
-    private static final int RB_GROUP_MSG_TYPE = 3;
-    private static final int RB_WAGER_MSG_TYPE = 2;
-    private static final int RB_FRIENDREQ_MSG_TYPE = 4;
+    static final int RB_GROUP_MSG_TYPE = Grouping.GROUP_CHAT_TYPE;
+    static final int RB_WAGER_MSG_TYPE = 2;
+    static final int RB_FRIENDREQ_MSG_TYPE = 4;
     private static final String APP_BUNDLE_ID = "com.apthletic.rivalbet";
     private static final String APP_ROOT_NAME = "RivalBet";
     private static final String EXTRAS_KEY_USERNAMES = "chatSenders";
     private static final String EXTRAS_KEY_TIMESTAMP = "chatTimestamps";
+    private static final String EXTRAS_KEY_TIMESTAMP_MILLIS = "chatTimestampMillis";
     private static final String EXTRAS_KEY_MESSAGES = "chatMessages";
     private static final String EXTRAS_KEY_ENTITYID = "notifEntityId";
     private static final String EXTRAS_KEY_NOTIFTYPE = "notifType";
     private static final String EXTRAS_KEY_SUMMARY = "notifSummary";
+    // Internal keys of the tap and action intent bundles, stripped before they reach JS
+    static final String KEY_POSTED_NOTIFICATION_ID = "postedNotificationId";
+    static final String KEY_OPENED = "notificationOpened";
     private static final String RB_PN_MANAGER_PREFERENCES_KEY = "rb_pn_manager";
     private static final String GROUP_ID_IN_VIEW_KEY = "GROUP_ID_IN_VIEW";
     private static final String APP_IN_FOREGROUND_KEY = "APP_IN_FOREGROUND";
@@ -47,15 +54,30 @@ public class RNPushNotificationHelper {
 
     private Context mContext;
     private RNPushNotificationConfig mConfig;
-    private final SharedPreferences mScheduledNotificationsPersistence;
-    private static final int ONE_MINUTE = 60 * 1000;
-    private static final long ONE_HOUR = 60 * ONE_MINUTE;
-    private static final long ONE_DAY = 24 * ONE_HOUR;
+    // Hand state changes to the push process, which owns the notification state
+    private final boolean mForward;
 
     public RNPushNotificationHelper(Application context) {
+        this(context, RNPushNotificationProcess.isForwarding(context));
+    }
+
+    /**
+     * @param forward whether to forward the operations that change the notification state to
+     *                {@link RNPushNotificationStateProvider} rather than run them here
+     */
+    RNPushNotificationHelper(Application context, boolean forward) {
         mContext = context;
         mConfig = new RNPushNotificationConfig(context);
-        mScheduledNotificationsPersistence = context.getSharedPreferences(RNPushNotificationHelper.PREFERENCES_KEY, Context.MODE_PRIVATE);
+        mForward = forward;
+        RNPushNotificationMetrics.configure(context);
+        RNPushNotificationTrace.configure(context);
+    }
+
+    /**
+     * Fetched for each use, so the main process sees the writes of the push process.
+     */
+    private SharedPreferences scheduledNotifications() {
+        return RNPushNotificationProcess.getSharedPreferences(mContext, PREFERENCES_KEY);
     }
 
     public Class getMainActivityClass() {
@@ -77,7 +99,7 @@ public class RNPushNotificationHelper {
     private int getGroupIdInView() {
         try {
             if (mContext != null) {
-                SharedPreferences sharedPref = mContext.getSharedPreferences(RB_PN_MANAGER_PREFERENCES_KEY, Context.MODE_PRIVATE);
+                SharedPreferences sharedPref = RNPushNotificationProcess.getSharedPreferences(mContext, RB_PN_MANAGER_PREFERENCES_KEY);
                 return sharedPref.getInt(GROUP_ID_IN_VIEW_KEY,-1);
             }
         } catch (Exception e) {
@@ -96,6 +118,39 @@ public class RNPushNotificationHelper {
         return PendingIntent.getBroadcast(mContext, notificationID, notificationIntent, PendingIntent.FLAG_UPDATE_CURRENT);
     }
 
+    private PendingIntent toDismissIntent(int notificationID) {
+        Intent dismissIntent = new Intent(mContext, RNPushNotificationDismissReceiver.class);
+        dismissIntent.putExtra(RNPushNotificationDismissReceiver.NOTIFICATION_ID, notificationID);
+
+        return PendingIntent.getBroadcast(mContext, notificationID, dismissIntent, PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+
+    /**
+     * Posts a local notification, allocating its id if it has none.
+     */
+    public void presentLocalNotification(Bundle bundle) {
+        if (mForward) {
+            RNPushNotificationProcess.forward(mContext, RNPushNotificationStateProvider.METHOD_PRESENT, bundle);
+            return;
+        }
+        // If notification ID is not provided by the user, allocate one
+        RNPushNotificationIds.getInstance(mContext).assign(bundle, null);
+        sendToNotificationCentre(bundle);
+    }
+
+    /**
+     * Schedules a local notification, allocating its id if it has none.
+     */
+    public void scheduleLocalNotification(Bundle bundle) {
+        if (mForward) {
+            RNPushNotificationProcess.forward(mContext, RNPushNotificationStateProvider.METHOD_SCHEDULE, bundle);
+            return;
+        }
+        // If notification ID is not provided by the user, allocate one
+        RNPushNotificationIds.getInstance(mContext).assign(bundle, null);
+        sendNotificationScheduled(bundle);
+    }
+
     public void sendNotificationScheduled(Bundle bundle) {
         Class intentClass = getMainActivityClass();
         if (intentClass == null) {
@@ -103,6 +158,8 @@ public class RNPushNotificationHelper {
             return;
         }
 
+        // Expanded now, the template isn't persisted with the scheduled notification
+        RNPushNotificationTemplates.expand(mContext, bundle);
         if (bundle.getString("message") == null) {
             Log.e(LOG_TAG, "No message specified for the scheduled notification");
             return;
@@ -122,13 +179,18 @@ public class RNPushNotificationHelper {
         RNPushNotificationAttributes notificationAttributes = new RNPushNotificationAttributes(bundle);
         String id = notificationAttributes.getId();
 
-        Log.d(LOG_TAG, "Storing push notification with id " + id);
+        if (Log.isLoggable(LOG_TAG, Log.DEBUG)) {
+            Log.d(LOG_TAG, "Storing push notification with id " + id);
+        }
 
-        SharedPreferences.Editor editor = mScheduledNotificationsPersistence.edit();
+        SharedPreferences.Editor editor = scheduledNotifications().edit();
         editor.putString(id, notificationAttributes.toJson().toString());
         commit(editor);
+        RNPushNotificationScheduleIndex.getInstance(mContext).put(id, (long) fireDate);
+        RNPushNotificationFlightRecorder.record(RNPushNotificationFlightRecorder.EVENT_SCHEDULED, id,
+                RNPushNotificationPayload.parseInt(bundle.getString("notification_type")));
 
-        boolean isSaved = mScheduledNotificationsPersistence.contains(id);
+        boolean isSaved = scheduledNotifications().contains(id);
         if (!isSaved) {
             Log.e(LOG_TAG, "Failed to save " + id);
         }
@@ -143,8 +205,10 @@ public class RNPushNotificationHelper {
         // notification to the user
         PendingIntent pendingIntent = toScheduleNotificationIntent(bundle);
 
-        Log.d(LOG_TAG, String.format("Setting a notification with id %s at time %s",
-                bundle.getString("id"), Long.toString(fireDate)));
+        if (Log.isLoggable(LOG_TAG, Log.DEBUG)) {
+            Log.d(LOG_TAG, String.format("Setting a notification with id %s at time %s",
+                    bundle.getString("id"), Long.toString(fireDate)));
+        }
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
             getAlarmManager().setExact(AlarmManager.RTC_WAKEUP, fireDate, pendingIntent);
         } else {
@@ -174,18 +238,18 @@ public class RNPushNotificationHelper {
         return smallIconResId;
     }
 
-    private boolean shouldIgnoreNotification(Bundle bundle) {
+    private boolean shouldIgnoreNotification(Bundle bundle, PushMessage pushMessage) {
         boolean appIsInForeground = isAppInForeground(mContext);
         boolean shouldIgnore = false;
 
         try {
-            String notificationType = bundle.getString("notification_type");
-            int notificationTypeInt = Integer.parseInt(notificationType);
+            int notificationTypeInt = pushMessage != null ? pushMessage.getNotificationType()
+                    : Integer.parseInt(bundle.getString("notification_type"));
 
             if (notificationTypeInt == RB_GROUP_MSG_TYPE) {
-                String groupId = bundle.getString("group_id");
-                int notificationEntityGroupId = Integer.parseInt(groupId);
-                SharedPreferences pref = mContext.getSharedPreferences(RB_PN_MANAGER_PREFERENCES_KEY, Context.MODE_PRIVATE);
+                int notificationEntityGroupId = pushMessage != null ? pushMessage.getGroupId()
+                        : Integer.parseInt(bundle.getString("group_id"));
+                SharedPreferences pref = RNPushNotificationProcess.getSharedPreferences(mContext, RB_PN_MANAGER_PREFERENCES_KEY);
                 int groupIdInViewId = pref.getInt(GROUP_ID_IN_VIEW_KEY, -1);
 
                 if (groupIdInViewId != -1) {
@@ -204,183 +268,214 @@ public class RNPushNotificationHelper {
     }
 
     private boolean isAppInForeground(Context context) {
-        SharedPreferences pref = mContext.getSharedPreferences(RB_PN_MANAGER_PREFERENCES_KEY, Context.MODE_PRIVATE);
+        SharedPreferences pref = RNPushNotificationProcess.getSharedPreferences(mContext, RB_PN_MANAGER_PREFERENCES_KEY);
         return pref.getBoolean(APP_IN_FOREGROUND_KEY, false);
     }
 
     public void sendToNotificationCentre(Bundle bundle) {
+        sendToNotificationCentre(bundle, null);
+    }
+
+    /**
+     * @param pushMessage the typed fields of a push decoded from a {@link CompactPayload}, used
+     *                    instead of parsing ids and timestamps out of the bundle, or null
+     */
+    public void sendToNotificationCentre(Bundle bundle, PushMessage pushMessage) {
+        if (mForward) {
+            // The typed fields are parsed again from the bundle
+            RNPushNotificationProcess.forward(mContext, RNPushNotificationStateProvider.METHOD_RENDER, bundle);
+            return;
+        }
+        RNPushNotificationTrace.beginSection("RNPN:render");
         try {
-            if (shouldIgnoreNotification(bundle)) {
+            // Local and scheduled notifications can refer to a template too
+            RNPushNotificationTemplates.expand(mContext, bundle);
+            final int metricsType = pushMessage != null ? pushMessage.getNotificationType()
+                    : RNPushNotificationPayload.parseInt(bundle.getString("notification_type"));
+            final boolean hasTypedId = pushMessage != null && pushMessage.hasId();
+            RNPushNotificationHistory.getInstance(mContext).append(RNPushNotificationHistory.EVENT_DELIVERED,
+                    hasTypedId ? pushMessage.getId() : RNPushNotificationPayload.parseInt(bundle.getString("id")), metricsType, 0);
+
+            long dedupStart = RNPushNotificationMetrics.start();
+            if (shouldIgnoreNotification(bundle, pushMessage)) {
+                RNPushNotificationMetrics.record(RNPushNotificationMetrics.STAGE_DEDUP, metricsType, dedupStart);
+                RNPushNotificationFlightRecorder.record(RNPushNotificationFlightRecorder.EVENT_IGNORED,
+                        bundle.getString("id"), metricsType);
                 return;
             }
+            final long buildStart = RNPushNotificationMetrics.record(RNPushNotificationMetrics.STAGE_DEDUP, metricsType, dedupStart);
 
-            Class intentClass = getMainActivityClass();
-            final int smallIconResId = getIconResourceId(bundle);
-            String notificationIdString = bundle.getString("id");
-            final int notificationID = Integer.parseInt(notificationIdString);
+            Class intentClass;
+            final int smallIconResId;
+            RNPushNotificationTrace.beginSection("RNPN:resources");
+            try {
+                intentClass = getMainActivityClass();
+                smallIconResId = getIconResourceId(bundle);
+            } finally {
+                RNPushNotificationTrace.endSection();
+            }
+            final int notificationID = hasTypedId ? pushMessage.getId() : Integer.parseInt(bundle.getString("id"));
 
             final String title = bundle.getString("title");
-            String notificationType = bundle.getString("notification_type");
             final String message = bundle.getString("message");
             final String bundleTitle = bundle.getString("bundle_title");
             final String bundleId = bundle.getString("bundle_id");
 
-            final int notificationTypeInt = notificationType == null ? 0 : Integer.parseInt(notificationType);
+            final int notificationTypeInt;
+            if (pushMessage != null) {
+                notificationTypeInt = pushMessage.getNotificationType();
+            } else {
+                String notificationType = bundle.getString("notification_type");
+                notificationTypeInt = notificationType == null ? 0 : Integer.parseInt(notificationType);
+            }
 
             NotificationManager notificationManager = notificationManager();
-            checkOrCreateChannel(notificationManager);
+            RNPushNotificationChannels channels = RNPushNotificationChannels.getInstance(mContext);
+            channels.ensureCreated();
+            final String channelId = channels.channelFor(bundle.getString("channelId"), notificationTypeInt);
+
+            String sender = bundle.getString("sender");
+            String chatMessage = bundle.getString("chat_message");
+            String chatTimestamp = bundle.getString("chat_timestamp");
+
+            final RNPushNotificationBundleFields fields = new RNPushNotificationBundleFields(bundle);
+            final int grouping = Grouping.classify(fields, notificationTypeInt,
+                    Build.VERSION.SDK_INT >= Build.VERSION_CODES.M);
+            final boolean isGroupChatMessage = grouping == Grouping.GROUP_CHAT;
+            final boolean isGroupedMessage = grouping == Grouping.GROUPED;
+            // Grouped messages replace the notification of their bundle
+            final int postedNotificationID = Grouping.postedId(grouping, fields, notificationID);
 
             bundle.putBoolean("userInteraction", true);
+            bundle.putInt(KEY_POSTED_NOTIFICATION_ID, postedNotificationID);
 
             Intent intent = new Intent(mContext, intentClass);
             intent.addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
             intent.putExtra("notification", bundle);
 
-            Intent summaryIntent = new Intent(mContext, intentClass);
-            summaryIntent.addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
-            summaryIntent.putExtra("notification", bundle);
-
             PendingIntent pendingIntent = PendingIntent.getActivity(mContext, notificationID, intent,
                     PendingIntent.FLAG_UPDATE_CURRENT);
-            PendingIntent pendingSummaryIntent = PendingIntent.getActivity(mContext, notificationID, summaryIntent,
-                    PendingIntent.FLAG_UPDATE_CURRENT);
-
-            Bundle summaryExtras = new Bundle();
-            summaryExtras.putString(EXTRAS_KEY_SUMMARY,EXTRAS_KEY_SUMMARY);
-
-            NotificationCompat.Builder summaryBuilder = new NotificationCompat.Builder(mContext,
-                    NOTIFICATION_CHANNEL_ID)
-                    .setSmallIcon(smallIconResId)
-                    .setStyle(new NotificationCompat.InboxStyle().setSummaryText(APP_ROOT_NAME))
-                    .setGroup(APP_BUNDLE_ID).setGroupSummary(true)
-                    .setExtras(summaryExtras)
-                    .setVibrate(new long[]{0, DEFAULT_VIBRATION})
-                    .setAutoCancel(bundle.getBoolean("autoCancel", true));
-            summaryBuilder.setContentIntent(pendingSummaryIntent);
-
-            String sender = bundle.getString("sender");
-            String chatMessage = bundle.getString("chat_message");
-            String chatTimestamp = bundle.getString("chat_timestamp");
+            PendingIntent dismissIntent = toDismissIntent(postedNotificationID);
             Integer notificationEntityId = 0;
 
-            switch (notificationTypeInt) {
-                case RB_WAGER_MSG_TYPE:
-                    String wagerId = bundle.getString("wager_id");
-                    notificationEntityId = Integer.parseInt(wagerId);
-                    break;
-                case RB_GROUP_MSG_TYPE:
-                    String groupId = bundle.getString("group_id");
-                    notificationEntityId = Integer.parseInt(groupId);
-                    break;
-                case RB_FRIENDREQ_MSG_TYPE:
-                    String userId = bundle.getString("user_id");
-                    notificationEntityId = Integer.parseInt(userId);
-                    break;
-                default:
-                    break;
+            if (pushMessage != null) {
+                notificationEntityId = pushMessage.getEntityId();
+            } else {
+                switch (notificationTypeInt) {
+                    case RB_WAGER_MSG_TYPE:
+                        String wagerId = bundle.getString("wager_id");
+                        notificationEntityId = Integer.parseInt(wagerId);
+                        break;
+                    case RB_GROUP_MSG_TYPE:
+                        String groupId = bundle.getString("group_id");
+                        notificationEntityId = Integer.parseInt(groupId);
+                        break;
+                    case RB_FRIENDREQ_MSG_TYPE:
+                        String userId = bundle.getString("user_id");
+                        notificationEntityId = Integer.parseInt(userId);
+                        break;
+                    default:
+                        break;
+                }
             }
 
-            if (
-                    bundleTitle != null
-                    && bundleId != null
-                    && notificationTypeInt == RB_GROUP_MSG_TYPE
-                    && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
-                    && sender != null
-                    && chatMessage != null
-                    && chatTimestamp != null
-            ) {
+            if (isGroupChatMessage) {
                 // LP: is supposed to be grouped message for group chat only
-                int bundleIdInt = Integer.parseInt(bundleId);
-
-                Bundle extras = new Bundle();
-
-                for (StatusBarNotification notif : notificationManager.getActiveNotifications()) {
-                    if (notif.getId() == bundleIdInt) {
-                        extras = notif.getNotification().extras;
+                int bundleIdInt = postedNotificationID;
+
+                // The conversation is appended to and rendered one message at a time
+                synchronized (RNPushNotificationRenderLocks.forKey(bundleIdInt)) {
+                    long chatTimestampMillis = pushMessage != null && pushMessage.hasChatTimestamp()
+                            ? pushMessage.getChatTimestamp() : Long.parseLong(chatTimestamp);
+
+                    RNPushNotificationConversations.Conversation conversation = conversation(notificationManager, bundleIdInt);
+                    conversation.append(chatMessage, sender, chatTimestampMillis);
+
+                    Bundle extras = new Bundle();
+                    extras.putInt(EXTRAS_KEY_ENTITYID, notificationEntityId);
+                    extras.putInt(EXTRAS_KEY_NOTIFTYPE, notificationTypeInt);
+                    extras.putStringArrayList(EXTRAS_KEY_MESSAGES, conversation.messages());
+                    extras.putStringArrayList(EXTRAS_KEY_USERNAMES, conversation.senders());
+                    extras.putLongArray(EXTRAS_KEY_TIMESTAMP_MILLIS, conversation.timestamps());
+
+                    NotificationCompat.MessagingStyle notifStyle = new NotificationCompat.MessagingStyle("Me")
+                            .setConversationTitle(bundleTitle);
+                    for (int index = 0; index < conversation.size(); index++) {
+                        notifStyle.addMessage(conversation.message(index), conversation.timestamp(index),
+                                conversation.sender(index));
                     }
-                }
-
-                extras.putInt(EXTRAS_KEY_ENTITYID, notificationEntityId);
-                extras.putInt(EXTRAS_KEY_NOTIFTYPE, notificationTypeInt);
-
-                ArrayList<String> existingMessages = getArrayFromExtras(extras, EXTRAS_KEY_MESSAGES);
-                existingMessages.add(chatMessage);
-                ArrayList<String> existingUsernames = getArrayFromExtras(extras, EXTRAS_KEY_USERNAMES);
-                existingUsernames.add(sender);
-                ArrayList<String> existingTimestamps = getArrayFromExtras(extras, EXTRAS_KEY_TIMESTAMP);
-                existingTimestamps.add(chatTimestamp);
-
-                NotificationCompat.MessagingStyle notifStyle = new NotificationCompat.MessagingStyle("Me")
-                        .setConversationTitle(bundleTitle);
-                int index = 0;
-                for (String m : existingMessages) {
-                    String timestampString = existingTimestamps.get(index);
-                    long timestampLong = Long.parseLong(timestampString);
-                    notifStyle.addMessage(m, timestampLong, existingUsernames.get(index));
-                    index++;
-                }
-                NotificationCompat.Builder notificationBuilder = new NotificationCompat.Builder(mContext, NOTIFICATION_CHANNEL_ID)
-                        .setSmallIcon(smallIconResId)
-                        .setGroup(APP_BUNDLE_ID)
-                        .setAutoCancel(bundle.getBoolean("autoCancel", true))
-                        .setExtras(extras)
-                        .setVibrate(new long[]{0, DEFAULT_VIBRATION})
-                        .setStyle(notifStyle);
-                notificationBuilder.setContentIntent(pendingIntent);
-
-                notificationManager.notify(bundleIdInt, notificationBuilder.build());
-            } else if (
-                    bundleId != null
-                    && message != null
-                    && title != null
-                    && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
-            ) {
-                // LP: is supposed to be a generic grouped message
-                int bundleIdInt = Integer.parseInt(bundleId);
-
-                Bundle extras = new Bundle();
-
-                for (StatusBarNotification notif : notificationManager.getActiveNotifications()) {
-                    if (notif.getId() == bundleIdInt) {
-                        extras = notif.getNotification().extras;
+                    NotificationCompat.Builder notificationBuilder = new NotificationCompat.Builder(mContext, channelId)
+                            .setSmallIcon(smallIconResId)
+                            .setGroup(APP_BUNDLE_ID)
+                            .setAutoCancel(bundle.getBoolean("autoCancel", true))
+                            .setExtras(extras)
+                            .setVibrate(new long[]{0, DEFAULT_VIBRATION})
+                            .setStyle(notifStyle);
+                    notificationBuilder.setContentIntent(pendingIntent);
+                    notificationBuilder.setDeleteIntent(dismissIntent);
+
+                    postNotification(notificationManager, bundleIdInt, notificationBuilder, bundle, false, metricsType, buildStart);
+                    onNotificationPosted(bundleIdInt, notificationTypeInt, notificationEntityId,
+                            bundleTitle, chatMessage, conversation.size());
+
+                    boolean seeded = seedGroupSummary(notificationManager);
+                    if (RNPushNotificationGroupSummary.addChild(bundleIdInt, smallIconResId, channelId) || seeded) {
+                        notifyGroupSummary(notificationManager);
                     }
                 }
+            } else if (isGroupedMessage) {
+                // LP: is supposed to be a generic grouped message
+                int bundleIdInt = postedNotificationID;
 
-                extras.putInt(EXTRAS_KEY_ENTITYID, notificationEntityId);
-                extras.putInt(EXTRAS_KEY_NOTIFTYPE, notificationTypeInt);
+                // The conversation is appended to and rendered one message at a time
+                synchronized (RNPushNotificationRenderLocks.forKey(bundleIdInt)) {
+                    RNPushNotificationConversations.Conversation conversation = conversation(notificationManager, bundleIdInt);
+                    conversation.append(message);
 
-                ArrayList<String> existingMessages = getArrayFromExtras(extras, EXTRAS_KEY_MESSAGES);
-                existingMessages.add(message);
+                    Bundle extras = new Bundle();
+                    extras.putInt(EXTRAS_KEY_ENTITYID, notificationEntityId);
+                    extras.putInt(EXTRAS_KEY_NOTIFTYPE, notificationTypeInt);
+                    extras.putStringArrayList(EXTRAS_KEY_MESSAGES, conversation.messages());
 
-                NotificationCompat.InboxStyle notifStyle = new NotificationCompat.InboxStyle();
-                if (bundleTitle != null && !bundleTitle.isEmpty()) {
-                    notifStyle.setSummaryText(bundleTitle);
-                }
+                    NotificationCompat.InboxStyle notifStyle = new NotificationCompat.InboxStyle();
+                    if (bundleTitle != null && !bundleTitle.isEmpty()) {
+                        notifStyle.setSummaryText(bundleTitle);
+                    }
 
-                int extraNotificationCount = existingMessages.size() - MAX_GROUPED_NOTIFICATIONS;
+                    int messageCount = conversation.size();
+                    int extraNotificationCount = messageCount - MAX_GROUPED_NOTIFICATIONS;
 
-                for (int index = existingMessages.size() - 1; index >= 0; index--) {
-                    notifStyle.addLine(existingMessages.get(index));
-                    if (existingMessages.size() > MAX_GROUPED_NOTIFICATIONS) {
-                        if (index <= extraNotificationCount) {
-                            notifStyle.addLine("+ " + extraNotificationCount + " more");
-                            break;
+                    for (int index = messageCount - 1; index >= 0; index--) {
+                        notifStyle.addLine(conversation.message(index));
+                        if (messageCount > MAX_GROUPED_NOTIFICATIONS) {
+                            if (index <= extraNotificationCount) {
+                                notifStyle.addLine("+ " + extraNotificationCount + " more");
+                                break;
+                            }
                         }
                     }
-                }
-
-                NotificationCompat.Builder notificationBuilder = new NotificationCompat.Builder(mContext, NOTIFICATION_CHANNEL_ID)
-                        .setSmallIcon(smallIconResId)
-                        .setGroup(APP_BUNDLE_ID)
-                        .setAutoCancel(bundle.getBoolean("autoCancel", true))
-                        .setExtras(extras)
-                        .setVibrate(new long[]{0, DEFAULT_VIBRATION})
-                        .setContentTitle(title)
-                        .setContentText(message)
-                        .setStyle(notifStyle);
-                notificationBuilder.setContentIntent(pendingIntent);
 
-                notificationManager.notify(bundleIdInt, notificationBuilder.build());
+                    NotificationCompat.Builder notificationBuilder = new NotificationCompat.Builder(mContext, channelId)
+                            .setSmallIcon(smallIconResId)
+                            .setGroup(APP_BUNDLE_ID)
+                            .setAutoCancel(bundle.getBoolean("autoCancel", true))
+                            .setExtras(extras)
+                            .setVibrate(new long[]{0, DEFAULT_VIBRATION})
+                            .setContentTitle(title)
+                            .setContentText(message)
+                            .setStyle(notifStyle);
+                    notificationBuilder.setContentIntent(pendingIntent);
+                    notificationBuilder.setDeleteIntent(dismissIntent);
+
+                    postNotification(notificationManager, bundleIdInt, notificationBuilder, bundle, false, metricsType, buildStart);
+                    onNotificationPosted(bundleIdInt, notificationTypeInt, notificationEntityId,
+                            title, message, conversation.size());
+
+                    boolean seeded = seedGroupSummary(notificationManager);
+                    if (RNPushNotificationGroupSummary.addChild(bundleIdInt, smallIconResId, channelId) || seeded) {
+                        notifyGroupSummary(notificationManager);
+                    }
+                }
             } else {
                 Bundle extras = new Bundle();
 
@@ -389,8 +484,7 @@ public class RNPushNotificationHelper {
 
                 NotificationCompat.BigTextStyle notifStyle = new NotificationCompat.BigTextStyle().bigText(message);
 
-                NotificationCompat.Builder notificationBuilder = new NotificationCompat.Builder(mContext,
-                    NOTIFICATION_CHANNEL_ID)
+                NotificationCompat.Builder notificationBuilder = new NotificationCompat.Builder(mContext, channelId)
                     .setExtras(extras)
                     .setSmallIcon(smallIconResId)
                     .setContentTitle(title)
@@ -399,37 +493,150 @@ public class RNPushNotificationHelper {
                     .setVibrate(new long[]{0, DEFAULT_VIBRATION})
                     .setAutoCancel(bundle.getBoolean("autoCancel", true));
                 notificationBuilder.setContentIntent(pendingIntent);
+                notificationBuilder.setDeleteIntent(dismissIntent);
 
                 // LP: is a single message
-                notificationManager.notify(notificationID, notificationBuilder.build());
+                postNotification(notificationManager, notificationID, notificationBuilder, bundle, true, metricsType, buildStart);
+                onNotificationPosted(notificationID, notificationTypeInt, notificationEntityId, title, message, 1);
             }
         } catch (Exception e) {
             Log.e(LOG_TAG, "failed to send push notification", e);
+        } finally {
+            RNPushNotificationTrace.endSection();
+            RNPushNotificationTrace.endAsyncSection(RNPushNotificationTrace.PUSH,
+                    RNPushNotificationPayload.parseInt(bundle.getString("id")));
         }
     }
 
-    private ArrayList<String> getArrayFromExtras(Bundle extras, String key) {
-        ArrayList<String> existingUsernames = extras.getStringArrayList(key);
-        if (existingUsernames == null) {
-            existingUsernames = new ArrayList<>();
-            extras.putStringArrayList(key, existingUsernames);
+    /**
+     * Posts the notification with the images already cached, and has
+     * {@link RNPushNotificationRichMedia} post it again once the others are loaded.
+     *
+     * @param withBigPicture false when the notification has a style of its own
+     */
+    private void postNotification(NotificationManager notificationManager, int notificationID,
+                                  NotificationCompat.Builder notificationBuilder, Bundle bundle,
+                                  boolean withBigPicture, int notificationType, long buildStart) {
+        RNPushNotificationRichMedia richMedia = RNPushNotificationRichMedia.getInstance(mContext);
+        boolean pendingMedia = richMedia.applyCached(notificationID, notificationBuilder, bundle, withBigPicture);
+        postNotification(notificationManager, notificationID, notificationBuilder, notificationType, buildStart);
+        if (pendingMedia) {
+            richMedia.upgrade(notificationManager, notificationID, notificationBuilder, bundle, withBigPicture);
         }
-        return existingUsernames;
+    }
+
+    private void postNotification(NotificationManager notificationManager, int notificationID,
+                                  NotificationCompat.Builder notificationBuilder, int notificationType, long buildStart) {
+        Notification notification;
+        RNPushNotificationTrace.beginSection("RNPN:build");
+        try {
+            notification = notificationBuilder.build();
+        } finally {
+            RNPushNotificationTrace.endSection();
+        }
+        long notifyStart = RNPushNotificationMetrics.record(RNPushNotificationMetrics.STAGE_BUILD, notificationType, buildStart);
+        RNPushNotificationTrace.beginSection("RNPN:notify");
+        try {
+            notificationManager.notify(notificationID, notification);
+        } finally {
+            RNPushNotificationTrace.endSection();
+        }
+        RNPushNotificationMetrics.record(RNPushNotificationMetrics.STAGE_NOTIFY, notificationType, notifyStart);
+    }
+
+    /**
+     * Posts, updates or removes the summary of the app's notification group. Only called when a
+     * notification joins or leaves the group, see {@link RNPushNotificationGroupSummary}.
+     */
+    private void notifyGroupSummary(NotificationManager notificationManager) {
+        // Before Nougat the summary would replace its children instead of bundling them
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return;
+        }
+
+        int childCount = RNPushNotificationGroupSummary.size();
+        if (childCount == 0) {
+            notificationManager.cancel(RNPushNotificationGroupSummary.SUMMARY_NOTIFICATION_ID);
+            return;
+        }
+
+        String channelId = RNPushNotificationGroupSummary.channelId();
+        if (channelId == null) {
+            channelId = RNPushNotificationChannels.DEFAULT_CHANNEL_ID;
+        }
+
+        Intent summaryIntent = new Intent(mContext, getMainActivityClass());
+        summaryIntent.addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        PendingIntent pendingSummaryIntent = PendingIntent.getActivity(mContext,
+                RNPushNotificationGroupSummary.SUMMARY_NOTIFICATION_ID, summaryIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT);
+
+        Bundle summaryExtras = new Bundle();
+        summaryExtras.putString(EXTRAS_KEY_SUMMARY, EXTRAS_KEY_SUMMARY);
+
+        NotificationCompat.Builder summaryBuilder = new NotificationCompat.Builder(mContext, channelId)
+                .setSmallIcon(RNPushNotificationGroupSummary.smallIconResId())
+                .setStyle(new NotificationCompat.InboxStyle().setSummaryText(APP_ROOT_NAME))
+                .setGroup(APP_BUNDLE_ID).setGroupSummary(true)
+                .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_CHILDREN)
+                .setNumber(childCount)
+                .setExtras(summaryExtras)
+                .setAutoCancel(true);
+        summaryBuilder.setContentIntent(pendingSummaryIntent);
+
+        notificationManager.notify(RNPushNotificationGroupSummary.SUMMARY_NOTIFICATION_ID, summaryBuilder.build());
+    }
+
+    /**
+     * Returns the conversation of a grouped notification, restored from the tray the first time
+     * the process renders it. Call with its {@link RNPushNotificationRenderLocks} stripe held.
+     */
+    private RNPushNotificationConversations.Conversation conversation(NotificationManager notificationManager,
+                                                                       int notificationID) {
+        RNPushNotificationConversations.Conversation conversation = RNPushNotificationConversations.get(notificationID);
+        if (conversation != null) {
+            return conversation;
+        }
+        conversation = new RNPushNotificationConversations.Conversation();
+        for (StatusBarNotification notif : notificationManager.getActiveNotifications()) {
+            if (notif.getId() == notificationID) {
+                Bundle extras = notif.getNotification().extras;
+                conversation = new RNPushNotificationConversations.Conversation(
+                        extras.getStringArrayList(EXTRAS_KEY_MESSAGES),
+                        extras.getStringArrayList(EXTRAS_KEY_USERNAMES),
+                        getTimestampsFromExtras(extras));
+            }
+        }
+        RNPushNotificationConversations.put(notificationID, conversation);
+        return conversation;
+    }
+
+    /**
+     * The timestamps of a group chat notification are kept as a long[]. Notifications posted by
+     * earlier versions have them as strings, those are converted.
+     */
+    private long[] getTimestampsFromExtras(Bundle extras) {
+        long[] timestamps = extras.getLongArray(EXTRAS_KEY_TIMESTAMP_MILLIS);
+        if (timestamps != null) {
+            return timestamps;
+        }
+        ArrayList<String> timestampStrings = extras.getStringArrayList(EXTRAS_KEY_TIMESTAMP);
+        timestamps = new long[timestampStrings != null ? timestampStrings.size() : 0];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = Long.parseLong(timestampStrings.get(i));
+        }
+        return timestamps;
     }
 
     private void scheduleNextNotificationIfRepeating(Bundle bundle) {
         String repeatType = bundle.getString("repeatType");
         long repeatTime = (long) bundle.getDouble("repeatTime");
-        final int monthsInYear = 11;
-        final int daysInWeek = 7;
 
         if (repeatType != null) {
             long fireDate = (long) bundle.getDouble("fireDate");
 
-            boolean validRepeatType = Arrays.asList("time", "month", "week", "day", "hour", "minute").contains(repeatType);
-
             // Sanity checks
-            if (!validRepeatType) {
+            if (!Recurrence.isValidRepeatType(repeatType)) {
                 Log.w(LOG_TAG, String.format("Invalid repeatType specified as %s", repeatType));
                 return;
             }
@@ -439,48 +646,7 @@ public class RNPushNotificationHelper {
                 return;
             }
 
-            long newFireDate = 0;
-
-            switch (repeatType) {
-                case "time":
-                    newFireDate = fireDate + repeatTime;
-                    break;
-                case "month":
-                    final Calendar fireDateCalendar = new GregorianCalendar();
-                    fireDateCalendar.setTime(new Date(fireDate));
-                    final int fireDay = fireDateCalendar.get(Calendar.DAY_OF_MONTH);
-                    final int fireMinute = fireDateCalendar.get(Calendar.MINUTE);
-                    final int fireHour = fireDateCalendar.get(Calendar.HOUR_OF_DAY);
-
-                    final Calendar nextEvent = new GregorianCalendar();
-                    nextEvent.setTime(new Date());
-                    final int currentMonth = nextEvent.get(Calendar.MONTH);
-                    int nextMonth = currentMonth < monthsInYear ? (currentMonth + 1) : 0;
-                    nextEvent.set(Calendar.YEAR, nextEvent.get(Calendar.YEAR) + (nextMonth == 0 ? 1 : 0));
-                    nextEvent.set(Calendar.MONTH, nextMonth);
-                    final int maxDay = nextEvent.getActualMaximum(Calendar.DAY_OF_MONTH);
-                    nextEvent.set(Calendar.DAY_OF_MONTH, fireDay <= maxDay ? fireDay : maxDay);
-                    nextEvent.set(Calendar.HOUR_OF_DAY, fireHour);
-                    nextEvent.set(Calendar.MINUTE, fireMinute);
-                    nextEvent.set(Calendar.SECOND, 0);
-                    newFireDate = nextEvent.getTimeInMillis();
-                    break;
-                case "week":
-                    newFireDate = fireDate + daysInWeek * ONE_DAY;
-                    break;
-                case "day":
-                    newFireDate = fireDate + ONE_DAY;
-                    break;
-                case "hour":
-                    newFireDate = fireDate + ONE_HOUR;
-                    break;
-                case "minute":
-                    newFireDate = fireDate + ONE_MINUTE;
-                    break;
-                default:
-                    break;
-
-            }
+            long newFireDate = Recurrence.nextFireDate(repeatType, repeatTime, fireDate, System.currentTimeMillis());
 
             // Sanity check, should never happen
             if (newFireDate != 0) {
@@ -493,31 +659,277 @@ public class RNPushNotificationHelper {
     }
 
     public void clearNotifications() {
+        if (mForward) {
+            RNPushNotificationProcess.forward(mContext, RNPushNotificationStateProvider.METHOD_CLEAR_ALL, null);
+            return;
+        }
         Log.i(LOG_TAG, "Clearing alerts from the notification centre");
 
         NotificationManager notificationManager = notificationManager();
         notificationManager.cancelAll();
+        RNPushNotificationGroupSummary.clear();
+        RNPushNotificationEntityIndex.clear();
+        RNPushNotificationDeliveredSnapshot.clear();
+        RNPushNotificationConversations.clear();
+        RNPushNotificationIds.releaseAll();
     }
 
     public void clearNotification(int notificationID) {
+        if (mForward) {
+            RNPushNotificationProcess.forward(mContext, RNPushNotificationStateProvider.METHOD_CLEAR,
+                    RNPushNotificationStateProvider.notificationExtras(notificationID));
+            return;
+        }
         Log.i(LOG_TAG, "Clearing notification: " + notificationID);
 
+        RNPushNotificationFlightRecorder.record(RNPushNotificationFlightRecorder.EVENT_CANCELLED, notificationID,
+                RNPushNotificationEntityIndex.typeOf(notificationID));
         NotificationManager notificationManager = notificationManager();
         notificationManager.cancel(notificationID);
+        onNotificationRemoved(notificationManager, notificationID);
+    }
+
+    /**
+     * Clears every notification posted for an entity, e.g. when the wager or group it is about is
+     * opened in the app.
+     */
+    public void clearNotificationsForEntity(int notificationType, int entityId) {
+        if (mForward) {
+            RNPushNotificationProcess.forward(mContext, RNPushNotificationStateProvider.METHOD_CLEAR_ENTITY,
+                    RNPushNotificationStateProvider.entityExtras(notificationType, entityId));
+            return;
+        }
+        if (!RNPushNotificationEntityIndex.isSeeded()) {
+            // Indexes the notifications posted before the process started
+            seedDeliveredNotifications();
+        }
+        int[] notificationIDs = RNPushNotificationEntityIndex.removeEntity(notificationType, entityId);
+        if (notificationIDs.length == 0) {
+            return;
+        }
+
+        Log.i(LOG_TAG, "Clearing " + notificationIDs.length + " notifications for entity " + notificationType + "/" + entityId);
+
+        NotificationManager notificationManager = notificationManager();
+        for (int notificationID : notificationIDs) {
+            notificationManager.cancel(notificationID);
+            onNotificationRemoved(notificationManager, notificationID);
+        }
+    }
+
+    /**
+     * Called when the user swipes a notification away.
+     */
+    public void onNotificationDismissed(int notificationID) {
+        if (mForward) {
+            RNPushNotificationProcess.forward(mContext, RNPushNotificationStateProvider.METHOD_DISMISSED,
+                    RNPushNotificationStateProvider.notificationExtras(notificationID));
+            return;
+        }
+        RNPushNotificationHistory.getInstance(mContext).append(RNPushNotificationHistory.EVENT_DISMISSED, notificationID,
+                RNPushNotificationEntityIndex.typeOf(notificationID), RNPushNotificationEntityIndex.entityOf(notificationID));
+        onNotificationRemoved(notificationManager(), notificationID);
+    }
+
+    /**
+     * Called when the user taps a notification, with the bundle of the intent that opened the
+     * activity or was delivered to it. Auto-cancelled notifications are gone from the tray at that
+     * point. The same bundle can be seen more than once, e.g. on resume and by
+     * getInitialNotification, only the first call counts.
+     */
+    public void onNotificationOpened(Bundle bundle) {
+        if (bundle.getBoolean(KEY_OPENED, false)) {
+            return;
+        }
+        bundle.putBoolean(KEY_OPENED, true);
+        onNotificationTapped(bundle);
+    }
+
+    void onNotificationTapped(Bundle bundle) {
+        if (mForward) {
+            RNPushNotificationProcess.forward(mContext, RNPushNotificationStateProvider.METHOD_TAPPED, bundle);
+            return;
+        }
+        recordHistory(RNPushNotificationHistory.EVENT_TAPPED, bundle);
+
+        if (!bundle.containsKey(KEY_POSTED_NOTIFICATION_ID) || !bundle.getBoolean("autoCancel", true)) {
+            return;
+        }
+        onNotificationRemoved(notificationManager(), bundle.getInt(KEY_POSTED_NOTIFICATION_ID));
+    }
+
+    /**
+     * Records an event about the notification a tap or action intent bundle came from.
+     */
+    public void recordHistory(int event, Bundle bundle) {
+        if (mForward) {
+            Bundle extras = new Bundle(bundle);
+            extras.putInt(RNPushNotificationStateProvider.EXTRA_EVENT, event);
+            RNPushNotificationProcess.forward(mContext, RNPushNotificationStateProvider.METHOD_HISTORY, extras);
+            return;
+        }
+        int notificationID = bundle.containsKey(KEY_POSTED_NOTIFICATION_ID)
+                ? bundle.getInt(KEY_POSTED_NOTIFICATION_ID) : RNPushNotificationPayload.parseInt(bundle.getString("id"));
+        RNPushNotificationHistory.getInstance(mContext).append(event, notificationID,
+                RNPushNotificationPayload.parseInt(bundle.getString("notification_type")), RNPushNotificationEntityIndex.entityOf(notificationID));
+    }
+
+    interface DeliveredListener {
+        void onDelivered(RNPushNotificationDeliveredSnapshot.Entry[] delivered);
+    }
+
+    /**
+     * Hands the notifications currently in the tray, newest first, to the listener. With the push
+     * process enabled, the snapshot of the push process, handed over on the thread that forwards
+     * operations to it; otherwise right away.
+     */
+    public void getDeliveredNotifications(final DeliveredListener listener) {
+        if (!mForward) {
+            listener.onDelivered(getDeliveredNotifications());
+            return;
+        }
+        RNPushNotificationProcess.forward(mContext, RNPushNotificationStateProvider.METHOD_DELIVERED, null,
+                new RNPushNotificationProcess.ResultListener() {
+                    @Override
+                    public void onResult(Bundle result) {
+                        listener.onDelivered(RNPushNotificationStateProvider.toEntries(result));
+                    }
+                });
+    }
+
+    /**
+     * Returns the notifications currently in the tray of this process, newest first. Served from
+     * {@link RNPushNotificationDeliveredSnapshot}; only the first call in a process asks
+     * NotificationManager.
+     */
+    RNPushNotificationDeliveredSnapshot.Entry[] getDeliveredNotifications() {
+        if (!RNPushNotificationDeliveredSnapshot.isSeeded()) {
+            seedDeliveredNotifications();
+        }
+        return RNPushNotificationDeliveredSnapshot.sorted();
+    }
+
+    private void seedDeliveredNotifications() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            RNPushNotificationDeliveredSnapshot.seed(new RNPushNotificationDeliveredSnapshot.Entry[0]);
+            RNPushNotificationEntityIndex.markSeeded();
+            return;
+        }
+
+        StatusBarNotification[] active = notificationManager().getActiveNotifications();
+        ArrayList<RNPushNotificationDeliveredSnapshot.Entry> entries = new ArrayList<>(active.length);
+        for (StatusBarNotification notif : active) {
+            if (notif.getId() == RNPushNotificationGroupSummary.SUMMARY_NOTIFICATION_ID) {
+                continue;
+            }
+            Bundle extras = notif.getNotification().extras;
+            int notificationType = extras.getInt(EXTRAS_KEY_NOTIFTYPE);
+            int entityId = extras.getInt(EXTRAS_KEY_ENTITYID);
+            ArrayList<String> messages = extras.getStringArrayList(EXTRAS_KEY_MESSAGES);
+            CharSequence title = extras.getCharSequence(Notification.EXTRA_TITLE);
+            CharSequence text = extras.getCharSequence(Notification.EXTRA_TEXT);
+
+            if (notificationType != 0) {
+                RNPushNotificationEntityIndex.seed(notif.getId(), notificationType, entityId);
+            }
+            entries.add(new RNPushNotificationDeliveredSnapshot.Entry(notif.getId(), notificationType, entityId,
+                    title != null ? title.toString() : null,
+                    text != null ? text.toString() : null,
+                    messages != null ? messages.size() : 1,
+                    notif.getPostTime()));
+        }
+        RNPushNotificationDeliveredSnapshot.seed(entries.toArray(new RNPushNotificationDeliveredSnapshot.Entry[0]));
+        RNPushNotificationEntityIndex.markSeeded();
+    }
+
+    private void onNotificationPosted(int notificationID, int notificationType, int entityId,
+                                      String title, String message, int messageCount) {
+        RNPushNotificationHistory.getInstance(mContext).append(RNPushNotificationHistory.EVENT_RENDERED,
+                notificationID, notificationType, entityId);
+        RNPushNotificationFlightRecorder.record(messageCount > 1
+                        ? RNPushNotificationFlightRecorder.EVENT_APPENDED : RNPushNotificationFlightRecorder.EVENT_RENDERED,
+                notificationID, notificationType);
+        RNPushNotificationEntityIndex.put(notificationID, notificationType, entityId);
+        RNPushNotificationDeliveredSnapshot.put(new RNPushNotificationDeliveredSnapshot.Entry(notificationID,
+                notificationType, entityId, title, message, messageCount, System.currentTimeMillis()));
+    }
+
+    private void onNotificationRemoved(NotificationManager notificationManager, int notificationID) {
+        // The next message of the conversation starts a new notification
+        synchronized (RNPushNotificationRenderLocks.forKey(notificationID)) {
+            RNPushNotificationConversations.remove(notificationID);
+        }
+        RNPushNotificationEntityIndex.remove(notificationID);
+        RNPushNotificationDeliveredSnapshot.remove(notificationID);
+        RNPushNotificationIds.release(notificationID);
+        boolean seeded = seedGroupSummary(notificationManager);
+        if (RNPushNotificationGroupSummary.removeChild(notificationID) || seeded) {
+            notifyGroupSummary(notificationManager);
+        }
+    }
+
+    /**
+     * Loads the members of the app's notification group from the tray the first time the process
+     * touches the group, so the summary count stays right after a restart.
+     *
+     * @return true if the membership was loaded now, and the summary may be out of date
+     */
+    private boolean seedGroupSummary(NotificationManager notificationManager) {
+        if (RNPushNotificationGroupSummary.isSeeded()) {
+            return false;
+        }
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return RNPushNotificationGroupSummary.seed(new int[0], 0, null);
+        }
+
+        StatusBarNotification[] active = notificationManager.getActiveNotifications();
+        int[] children = new int[active.length];
+        int count = 0;
+        int smallIconResId = 0;
+        String channelId = null;
+        for (StatusBarNotification notif : active) {
+            Notification notification = notif.getNotification();
+            if (!APP_BUNDLE_ID.equals(notification.getGroup())
+                    || (notification.flags & Notification.FLAG_GROUP_SUMMARY) != 0) {
+                continue;
+            }
+            children[count++] = notif.getId();
+            smallIconResId = notification.icon;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                channelId = notification.getChannelId();
+            }
+        }
+        return RNPushNotificationGroupSummary.seed(Arrays.copyOf(children, count), smallIconResId, channelId);
     }
 
     public void cancelAllScheduledNotifications() {
+        if (mForward) {
+            RNPushNotificationProcess.forward(mContext, RNPushNotificationStateProvider.METHOD_CANCEL_ALL, null);
+            return;
+        }
         Log.i(LOG_TAG, "Cancelling all notifications");
 
-        for (String id : mScheduledNotificationsPersistence.getAll().keySet()) {
+        for (String id : scheduledNotifications().getAll().keySet()) {
             cancelScheduledNotification(id);
         }
     }
 
     public void cancelScheduledNotification(ReadableMap userInfo) {
-        for (String id : mScheduledNotificationsPersistence.getAll().keySet()) {
+        cancelScheduledNotifications(Arguments.toBundle(userInfo));
+    }
+
+    /**
+     * Cancels the scheduled notifications whose attributes match userInfo.
+     */
+    void cancelScheduledNotifications(Bundle userInfo) {
+        if (mForward) {
+            RNPushNotificationProcess.forward(mContext, RNPushNotificationStateProvider.METHOD_CANCEL, userInfo);
+            return;
+        }
+        SharedPreferences scheduledNotifications = scheduledNotifications();
+        for (String id : scheduledNotifications.getAll().keySet()) {
             try {
-                String notificationAttributesJson = mScheduledNotificationsPersistence.getString(id, null);
+                String notificationAttributesJson = scheduledNotifications.getString(id, null);
                 if (notificationAttributesJson != null) {
                     RNPushNotificationAttributes notificationAttributes = fromJson(notificationAttributesJson);
                     if (notificationAttributes.matches(userInfo)) {
@@ -530,6 +942,18 @@ public class RNPushNotificationHelper {
         }
     }
 
+    /**
+     * Lists scheduled notifications with {@code from <= fireDate <= to} in fire date order, one
+     * page at a time. Only the returned entries are read from the store.
+     */
+    public List<ScheduleIndex.Entry> queryScheduledNotifications(long from, long to, String cursor, int limit) {
+        return RNPushNotificationScheduleIndex.getInstance(mContext).query(from, to, cursor, limit);
+    }
+
+    public String getScheduledNotificationJson(String id) {
+        return scheduledNotifications().getString(id, null);
+    }
+
     private void cancelScheduledNotification(String notificationIDString) {
         Log.i(LOG_TAG, "Cancelling notification: " + notificationIDString);
 
@@ -538,11 +962,12 @@ public class RNPushNotificationHelper {
         b.putString("id", notificationIDString);
         getAlarmManager().cancel(toScheduleNotificationIntent(b));
 
-        if (mScheduledNotificationsPersistence.contains(notificationIDString)) {
+        if (scheduledNotifications().contains(notificationIDString)) {
             // remove it from local storage
-            SharedPreferences.Editor editor = mScheduledNotificationsPersistence.edit();
+            SharedPreferences.Editor editor = scheduledNotifications().edit();
             editor.remove(notificationIDString);
             commit(editor);
+            RNPushNotificationScheduleIndex.getInstance(mContext).remove(notificationIDString);
         } else {
             Log.w(LOG_TAG, "Unable to find notification " + notificationIDString);
         }
@@ -550,7 +975,11 @@ public class RNPushNotificationHelper {
         // removed it from the notification center
         NotificationManager notificationManager = notificationManager();
 
-        notificationManager.cancel(Integer.parseInt(notificationIDString));
+        int notificationID = Integer.parseInt(notificationIDString);
+        RNPushNotificationFlightRecorder.record(RNPushNotificationFlightRecorder.EVENT_CANCELLED, notificationID,
+                RNPushNotificationEntityIndex.typeOf(notificationID));
+        notificationManager.cancel(notificationID);
+        onNotificationRemoved(notificationManager, notificationID);
     }
 
     private NotificationManager notificationManager() {
@@ -565,61 +994,4 @@ public class RNPushNotificationHelper {
             editor.apply();
         }
     }
-
-    private static boolean channelCreated = false;
-
-    private void checkOrCreateChannel(NotificationManager manager) {
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
-            return;
-        }
-        if (channelCreated) {
-            return;
-        }
-        if (manager == null) {
-            return;
-        }
-
-        Bundle bundle = new Bundle();
-
-        int importance = NotificationManager.IMPORTANCE_HIGH;
-        final String importanceString = bundle.getString("importance");
-
-        if (importanceString != null) {
-            switch (importanceString.toLowerCase()) {
-                case "default":
-                    importance = NotificationManager.IMPORTANCE_DEFAULT;
-                    break;
-                case "max":
-                    importance = NotificationManager.IMPORTANCE_MAX;
-                    break;
-                case "high":
-                    importance = NotificationManager.IMPORTANCE_HIGH;
-                    break;
-                case "low":
-                    importance = NotificationManager.IMPORTANCE_LOW;
-                    break;
-                case "min":
-                    importance = NotificationManager.IMPORTANCE_MIN;
-                    break;
-                case "none":
-                    importance = NotificationManager.IMPORTANCE_NONE;
-                    break;
-                case "unspecified":
-                    importance = NotificationManager.IMPORTANCE_UNSPECIFIED;
-                    break;
-                default:
-                    importance = NotificationManager.IMPORTANCE_HIGH;
-            }
-        }
-
-        NotificationChannel channel = new NotificationChannel(NOTIFICATION_CHANNEL_ID, mConfig.getChannelName() != null
-                ? mConfig.getChannelName() : "rn-push-notification-channel", importance);
-
-        channel.setDescription(mConfig.getChannelDescription());
-        channel.enableLights(true);
-        channel.enableVibration(true);
-
-        manager.createNotificationChannel(channel);
-        channelCreated = true;
-    }
 }
@@ -0,0 +1,289 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
+
+/**
+ * Per-device log of what happened to notifications: delivered, rendered, tapped, actioned and
+ * dismissed, for support and analytics.
+ * <p>
+ * Records have a fixed 32 byte layout and are written into a memory-mapped segment file that
+ * wraps around once it holds {@link #CAPACITY} records, so the oldest records roll off:
+ * <pre>
+ *   0  long  sequence number, starting at 1 (0 = empty slot)
+ *   8  long  timestamp, ms since epoch
+ *  16  byte  event
+ *  17  byte  unused
+ *  18  short notification type
+ *  20  int   notification id
+ *  24  int   entity id
+ *  28  int   checksum of bytes 0-27
+ * </pre>
+ * No write position is stored: on open the segment is scanned and the valid record with the
+ * highest sequence number is the tail, so a record torn by a crash is simply skipped.
+ * {@link #append(int, int, int, int)} doesn't allocate, and {@link #query(long, long, Visitor)}
+ * reads records straight from the mapping.
+ * <p>
+ * With the push process enabled, the push process writes its own segment and the main process
+ * maps it read-only; {@link #queryAll(Context, long, long, Visitor)} merges it with the records
+ * the main process wrote before.
+ */
+class RNPushNotificationHistory {
+    static final int EVENT_DELIVERED = 1;
+    static final int EVENT_RENDERED = 2;
+    static final int EVENT_TAPPED = 3;
+    static final int EVENT_ACTION = 4;
+    static final int EVENT_DISMISSED = 5;
+
+    private static final String FILE_NAME = "rn_push_notification_history.seg";
+    private static final String PUSH_PROCESS_FILE_NAME = "rn_push_notification_history_push.seg";
+    private static final int MAGIC = 0x524e5048; // "RNPH"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 32;
+    static final int CAPACITY = 8192;
+    private static final int FILE_SIZE = HEADER_SIZE + RECORD_SIZE * CAPACITY;
+
+    private static RNPushNotificationHistory sInstance;
+    private static RNPushNotificationHistory sPushProcessSegment;
+
+    private final MappedByteBuffer mBuffer;
+    // A segment another process writes, never modified here
+    private final boolean mReadOnly;
+    private long mNextSequence;
+
+    interface Visitor {
+        /**
+         * @return false to stop reading
+         */
+        boolean onRecord(long sequence, long timestamp, int event, int notificationType, int notificationID, int entityId);
+    }
+
+    static synchronized RNPushNotificationHistory getInstance(Context context) {
+        if (sInstance == null) {
+            String fileName = RNPushNotificationProcess.isPushProcess(context) ? PUSH_PROCESS_FILE_NAME : FILE_NAME;
+            sInstance = new RNPushNotificationHistory(new File(context.getFilesDir(), fileName), false);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Visits the records of this process and, with the push process enabled, of the push process
+     * too, with {@code from <= timestamp <= to}, oldest first.
+     */
+    static void queryAll(Context context, long from, long to, Visitor visitor) {
+        RNPushNotificationHistory history = getInstance(context);
+        if (!RNPushNotificationProcess.isEnabled(context) || RNPushNotificationProcess.isPushProcess(context)) {
+            history.query(from, to, visitor);
+            return;
+        }
+
+        RNPushNotificationHistory pushProcessSegment;
+        synchronized (RNPushNotificationHistory.class) {
+            // Opened again until the push process has created its segment
+            if (sPushProcessSegment == null || sPushProcessSegment.mBuffer == null) {
+                sPushProcessSegment = new RNPushNotificationHistory(new File(context.getFilesDir(), PUSH_PROCESS_FILE_NAME), true);
+            }
+            pushProcessSegment = sPushProcessSegment;
+        }
+        // The push process has appended since the segment was opened here
+        pushProcessSegment.refresh();
+
+        // Each segment is already in order: walk both in step and visit the older record first
+        synchronized (history) {
+            synchronized (pushProcessSegment) {
+                Cursor own = history.new Cursor(from, to);
+                Cursor other = pushProcessSegment.new Cursor(from, to);
+                boolean hasOwn = own.next();
+                boolean hasOther = other.next();
+                while (hasOwn || hasOther) {
+                    if (hasOwn && (!hasOther || own.timestamp <= other.timestamp)) {
+                        if (!own.visit(visitor)) {
+                            return;
+                        }
+                        hasOwn = own.next();
+                    } else {
+                        if (!other.visit(visitor)) {
+                            return;
+                        }
+                        hasOther = other.next();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param readOnly maps a segment written by another process, which is left alone if it
+     *                 doesn't exist yet or isn't valid
+     */
+    private RNPushNotificationHistory(File file, boolean readOnly) {
+        mReadOnly = readOnly;
+        MappedByteBuffer buffer = null;
+        try {
+            if (readOnly) {
+                if (file.length() >= FILE_SIZE) {
+                    RandomAccessFile raf = new RandomAccessFile(file, "r");
+                    try {
+                        buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, FILE_SIZE);
+                    } finally {
+                        raf.close();
+                    }
+                }
+            } else {
+                RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                try {
+                    raf.setLength(FILE_SIZE);
+                    buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+                } finally {
+                    raf.close();
+                }
+            }
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Unable to open the notification history, history is disabled", e);
+        }
+        mBuffer = buffer;
+        if (mBuffer != null) {
+            recover();
+        }
+    }
+
+    synchronized void append(int event, int notificationID, int notificationType, int entityId) {
+        if (mBuffer == null || mReadOnly) {
+            return;
+        }
+
+        long sequence = mNextSequence++;
+        long timestamp = System.currentTimeMillis();
+        int position = position(sequence);
+
+        // Invalidate the slot first so a crash mid-write can't leave an old record looking valid
+        mBuffer.putInt(position + 28, 0);
+        mBuffer.putLong(position, sequence);
+        mBuffer.putLong(position + 8, timestamp);
+        mBuffer.put(position + 16, (byte) event);
+        mBuffer.put(position + 17, (byte) 0);
+        mBuffer.putShort(position + 18, (short) notificationType);
+        mBuffer.putInt(position + 20, notificationID);
+        mBuffer.putInt(position + 24, entityId);
+        mBuffer.putInt(position + 28, checksum(position));
+    }
+
+    /**
+     * Visits the records with {@code from <= timestamp <= to}, oldest first.
+     */
+    synchronized void query(long from, long to, Visitor visitor) {
+        Cursor cursor = new Cursor(from, to);
+        while (cursor.next()) {
+            if (!cursor.visit(visitor)) {
+                return;
+            }
+        }
+    }
+
+    private synchronized void refresh() {
+        if (mBuffer != null) {
+            recover();
+        }
+    }
+
+    private void recover() {
+        if (mBuffer.getInt(0) != MAGIC || mBuffer.getInt(4) != VERSION
+                || mBuffer.getInt(8) != RECORD_SIZE || mBuffer.getInt(12) != CAPACITY) {
+            if (mReadOnly) {
+                // Not initialized by its process yet, or of another version: nothing to read
+                mNextSequence = 1;
+                return;
+            }
+            for (int i = 0; i < FILE_SIZE; i += 8) {
+                mBuffer.putLong(i, 0);
+            }
+            mBuffer.putInt(0, MAGIC);
+            mBuffer.putInt(4, VERSION);
+            mBuffer.putInt(8, RECORD_SIZE);
+            mBuffer.putInt(12, CAPACITY);
+            mNextSequence = 1;
+            return;
+        }
+
+        long last = 0;
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            int position = HEADER_SIZE + slot * RECORD_SIZE;
+            long sequence = mBuffer.getLong(position);
+            if (sequence > last && position(sequence) == position && mBuffer.getInt(position + 28) == checksum(position)) {
+                last = sequence;
+            }
+        }
+        mNextSequence = last + 1;
+    }
+
+    /**
+     * Walks the valid records with {@code from <= timestamp <= to}, oldest first. Must be used
+     * while holding the lock of the segment.
+     */
+    private class Cursor {
+        private final long mFrom;
+        private final long mTo;
+        private final long mEnd;
+        private long mNext;
+        private int mPosition;
+        long timestamp;
+
+        Cursor(long from, long to) {
+            mFrom = from;
+            mTo = to;
+            mEnd = mBuffer != null ? mNextSequence : 0;
+            mNext = Math.max(1, mNextSequence - CAPACITY);
+        }
+
+        /**
+         * @return false once there are no more records
+         */
+        boolean next() {
+            while (mNext < mEnd) {
+                long sequence = mNext++;
+                int position = position(sequence);
+                if (mBuffer.getLong(position) != sequence || mBuffer.getInt(position + 28) != checksum(position)) {
+                    continue;
+                }
+                long recordTimestamp = mBuffer.getLong(position + 8);
+                if (recordTimestamp < mFrom || recordTimestamp > mTo) {
+                    continue;
+                }
+                mPosition = position;
+                timestamp = recordTimestamp;
+                return true;
+            }
+            return false;
+        }
+
+        boolean visit(Visitor visitor) {
+            return visitor.onRecord(mBuffer.getLong(mPosition), timestamp,
+                    mBuffer.get(mPosition + 16),
+                    mBuffer.getShort(mPosition + 18),
+                    mBuffer.getInt(mPosition + 20),
+                    mBuffer.getInt(mPosition + 24));
+        }
+    }
+
+    private static int position(long sequence) {
+        return HEADER_SIZE + (int) (sequence % CAPACITY) * RECORD_SIZE;
+    }
+
+    private int checksum(int position) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < 28; i += 4) {
+            hash = (hash ^ mBuffer.getInt(position + i)) * 0x01000193;
+        }
+        // 0 marks a slot being written
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,194 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.util.LruCache;
+import android.util.SparseIntArray;
+
+import com.dieam.reactnativepushnotification.core.PushMessage;
+
+/**
+ * Allocates the ids of notifications that don't come with one.
+ * <ul>
+ * <li>A wager, group chat or friend request notification gets an id derived from its entity, so
+ * an update replaces the notification already shown for it instead of stacking up</li>
+ * <li>A push redelivered with the same message id gets the id it had the first time</li>
+ * <li>Anything else gets the next value of a counter</li>
+ * </ul>
+ * The counter is persisted a block at a time: one write reserves {@link #BLOCK_SIZE} ids, so
+ * allocation is a few instructions under a lock, and ids aren't reused across restarts until the
+ * range wraps. Allocated ids stay above {@link #COUNTER_BASE}, away from the small ids of
+ * entities and bundles used by server payloads. With the push process enabled, only the push
+ * process allocates ids, see {@link RNPushNotificationProcess}.
+ * <p>
+ * Entity ids are a hash of the entity, probed past the ids of other entities whose notification is
+ * still around: the ones this process handed out, until {@link RNPushNotificationHelper} releases
+ * them as their notification is cleared, and the ones {@link RNPushNotificationEntityIndex} knows
+ * from the tray.
+ */
+class RNPushNotificationIds {
+    private static final String PREFERENCES_KEY = "rn_push_notification_ids";
+    private static final String KEY_NEXT_BLOCK = "nextBlock";
+
+    static final int COUNTER_BASE = 0x40000000;
+    private static final int ENTITY_BASE = 0x60000000;
+    private static final int RANGE_MASK = 0x1fffffff;
+    static final int BLOCK_SIZE = 1024;
+    private static final int MESSAGE_IDS = 256;
+
+    private static RNPushNotificationIds sInstance;
+
+    private final SharedPreferences mPreferences;
+    private int mNext;
+    private int mLimit;
+    // Type and entity of each entity id handed out and not released, to detect hash collisions
+    private final SparseIntArray mTypeById = new SparseIntArray();
+    private final SparseIntArray mEntityById = new SparseIntArray();
+    private final LruCache<String, Integer> mIdByMessageId = new LruCache<>(MESSAGE_IDS);
+
+    static synchronized RNPushNotificationIds getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new RNPushNotificationIds(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private RNPushNotificationIds(Context context) {
+        mPreferences = context.getSharedPreferences(PREFERENCES_KEY, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Puts an id in the bundle if it has none.
+     *
+     * @param messageId the FCM or GCM message id of a push, null for local notifications
+     * @return the id of the notification
+     */
+    synchronized String assign(Bundle bundle, String messageId) {
+        return assign(bundle, messageId, null);
+    }
+
+    /**
+     * @param message the typed fields of a compact push, which get the id too, or null
+     */
+    synchronized String assign(Bundle bundle, String messageId, PushMessage message) {
+        String id = bundle.getString("id");
+        if (id != null) {
+            return id;
+        }
+
+        int notificationID;
+        long entity = message != null ? entityKey(message.getNotificationType(), message.getEntityId())
+                : entityKey(bundle);
+        if (entity != 0) {
+            notificationID = entityId(entity);
+        } else if (messageId != null) {
+            Integer previous = mIdByMessageId.get(messageId);
+            notificationID = previous != null ? previous : next();
+            mIdByMessageId.put(messageId, notificationID);
+        } else {
+            notificationID = next();
+        }
+
+        id = String.valueOf(notificationID);
+        bundle.putString("id", id);
+        if (message != null) {
+            message.setId(notificationID);
+        }
+        return id;
+    }
+
+    /**
+     * Forgets the entity of a notification that was cleared, its id can go to another entity.
+     */
+    static synchronized void release(int notificationID) {
+        if (sInstance != null) {
+            sInstance.releaseId(notificationID);
+        }
+    }
+
+    static synchronized void releaseAll() {
+        if (sInstance != null) {
+            sInstance.releaseIds();
+        }
+    }
+
+    private synchronized void releaseId(int notificationID) {
+        mTypeById.delete(notificationID);
+        mEntityById.delete(notificationID);
+    }
+
+    private synchronized void releaseIds() {
+        mTypeById.clear();
+        mEntityById.clear();
+    }
+
+    synchronized int next() {
+        if (mNext >= mLimit) {
+            int start = mPreferences.getInt(KEY_NEXT_BLOCK, COUNTER_BASE);
+            if (start < COUNTER_BASE || start > ENTITY_BASE - BLOCK_SIZE) {
+                start = COUNTER_BASE;
+            }
+            mNext = start;
+            mLimit = start + BLOCK_SIZE;
+            // Synchronous so a crash can't hand out the same block twice
+            mPreferences.edit().putInt(KEY_NEXT_BLOCK, mLimit).commit();
+        }
+        return mNext++;
+    }
+
+    /**
+     * Same id for the same entity, across restarts as long as no other entity collided with it.
+     */
+    private int entityId(long entity) {
+        int notificationType = (int) (entity >>> 32);
+        int entityId = (int) entity;
+        int hash = (int) ((entity * 0x9e3779b97f4a7c15L) >>> 32);
+        for (int probe = 0; ; probe++) {
+            int notificationID = ENTITY_BASE + ((hash + probe) & RANGE_MASK);
+            int index = mTypeById.indexOfKey(notificationID);
+            int ownerType;
+            int ownerEntity;
+            if (index >= 0) {
+                ownerType = mTypeById.valueAt(index);
+                ownerEntity = mEntityById.get(notificationID);
+            } else {
+                // Posted before the process started
+                ownerType = RNPushNotificationEntityIndex.typeOf(notificationID);
+                ownerEntity = RNPushNotificationEntityIndex.entityOf(notificationID);
+            }
+            if (ownerType == 0 || (ownerType == notificationType && ownerEntity == entityId)) {
+                mTypeById.put(notificationID, notificationType);
+                mEntityById.put(notificationID, entityId);
+                return notificationID;
+            }
+        }
+    }
+
+    /**
+     * @return (notification type, entity id) packed in a long, or 0 when the notification isn't
+     * about an entity
+     */
+    private static long entityKey(Bundle bundle) {
+        int notificationType = RNPushNotificationPayload.parseInt(bundle.getString("notification_type"));
+        String entity;
+        switch (notificationType) {
+            case RNPushNotificationHelper.RB_WAGER_MSG_TYPE:
+                entity = bundle.getString("wager_id");
+                break;
+            case RNPushNotificationHelper.RB_GROUP_MSG_TYPE:
+                entity = bundle.getString("group_id");
+                break;
+            case RNPushNotificationHelper.RB_FRIENDREQ_MSG_TYPE:
+                entity = bundle.getString("user_id");
+                break;
+            default:
+                return 0;
+        }
+        return entityKey(notificationType, RNPushNotificationPayload.parseInt(entity));
+    }
+
+    private static long entityKey(int notificationType, int entityId) {
+        return entityId == 0 ? 0 : ((long) notificationType << 32) | (entityId & 0xffffffffL);
+    }
+}
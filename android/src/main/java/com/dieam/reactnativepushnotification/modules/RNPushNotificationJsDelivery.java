@@ -3,6 +3,7 @@ package com.dieam.reactnativepushnotification.modules;
 import android.os.Build;
 import android.os.Bundle;
 
+import com.dieam.reactnativepushnotification.core.PayloadJson;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.WritableMap;
@@ -11,13 +12,21 @@ import com.facebook.react.modules.core.DeviceEventManagerModule;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.util.Set;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Created by lambert on 2016/10/09.
  */
 
 public class RNPushNotificationJsDelivery {
+    /**
+     * Keys the helper adds to the notification's intent bundle for its own bookkeeping, not part
+     * of the payload JS sees.
+     */
+    private static final List<String> INTERNAL_KEYS = Arrays.asList(
+            RNPushNotificationHelper.KEY_POSTED_NOTIFICATION_ID, RNPushNotificationHelper.KEY_OPENED);
+
     private ReactApplicationContext mReactContext;
 
     public RNPushNotificationJsDelivery(ReactApplicationContext reactContext) {
@@ -26,9 +35,14 @@ public class RNPushNotificationJsDelivery {
 
     void sendEvent(String eventName, Object params) {
         if (mReactContext.hasActiveCatalystInstance()) {
-            mReactContext
-                    .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                    .emit(eventName, params);
+            RNPushNotificationTrace.beginSection("RNPN:emit");
+            try {
+                mReactContext
+                        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                        .emit(eventName, params);
+            } finally {
+                RNPushNotificationTrace.endSection();
+            }
         }
     }
 
@@ -40,10 +54,15 @@ public class RNPushNotificationJsDelivery {
     }
 
     void notifyNotification(Bundle bundle) {
-        String bundleString = convertJSON(bundle);
+        notifyNotification(convertJSON(bundle));
+    }
 
+    /**
+     * @param dataJSON a push already converted by {@link #convertJSON(Bundle)}
+     */
+    void notifyNotification(String dataJSON) {
         WritableMap params = Arguments.createMap();
-        params.putString("dataJSON", bundleString);
+        params.putString("dataJSON", dataJSON);
 
         sendEvent("remoteNotificationReceived", params);
     }
@@ -57,30 +76,22 @@ public class RNPushNotificationJsDelivery {
         sendEvent("notificationActionReceived", params);
     }
 
-    String convertJSON(Bundle bundle) {
+    static String convertJSON(Bundle bundle) {
+        RNPushNotificationTrace.beginSection("RNPN:toJSON");
         try {
             JSONObject json = convertJSONObject(bundle);
             return json.toString();
         } catch (JSONException e) {
             return null;
+        } finally {
+            RNPushNotificationTrace.endSection();
         }
     }
     
     // a Bundle is not a map, so we have to convert it explicitly
-    JSONObject convertJSONObject(Bundle bundle) throws JSONException {
-        JSONObject json = new JSONObject();
-        Set<String> keys = bundle.keySet();
-        for (String key : keys) {
-            Object value = bundle.get(key);
-            if (value instanceof Bundle) {
-                json.put(key, convertJSONObject((Bundle)value));
-            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
-                json.put(key, JSONObject.wrap(value));
-            } else {
-                json.put(key, value);
-            }
-        }
-        return json;
+    static JSONObject convertJSONObject(Bundle bundle) throws JSONException {
+        return PayloadJson.toJson(new RNPushNotificationBundleFields(bundle), INTERNAL_KEYS,
+                Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT);
     }
 
 }
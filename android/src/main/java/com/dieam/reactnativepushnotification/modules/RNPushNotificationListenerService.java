@@ -1,6 +1,5 @@
 package com.dieam.reactnativepushnotification.modules;
 
-import java.util.Map;
 import com.google.firebase.messaging.FirebaseMessagingService;
 import com.google.firebase.messaging.RemoteMessage;
 
@@ -12,65 +11,83 @@ import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
+import com.dieam.reactnativepushnotification.core.PushMessage;
 import com.dieam.reactnativepushnotification.helpers.ApplicationBadgeHelper;
 import com.facebook.react.ReactApplication;
 import com.facebook.react.ReactInstanceManager;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContext;
 
-import org.json.JSONObject;
-
 import java.util.List;
-import java.util.Random;
 
 import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
 
 public class RNPushNotificationListenerService extends FirebaseMessagingService {
 
     @Override
-    public void onMessageReceived(RemoteMessage message) {
-        String from = message.getFrom();
-        RemoteMessage.Notification remoteNotification = message.getNotification();
+    public void onNewToken(String token) {
+        RNPushNotificationTokenCache.invalidate(this);
+        RNPushNotificationTopics.invalidate(this);
+    }
 
+    @Override
+    public void onMessageReceived(RemoteMessage message) {
+        RNPushNotificationMetrics.configure(this);
+        RNPushNotificationTrace.configure(this);
+        final long threadCpuStart = RNPushNotificationProcess.usageStart();
+        final long receivedAt = RNPushNotificationMetrics.start();
+        RNPushNotificationTrace.beginSection("RNPN:parse");
         final Bundle bundle = new Bundle();
-        // Putting it from remoteNotification first so it can be overriden if message
-        // data has it
-        if (remoteNotification != null) {
-            // ^ It's null when message is from GCM
-            bundle.putString("title", remoteNotification.getTitle());
-            bundle.putString("message", remoteNotification.getBody());
-        }
-
-        for(Map.Entry<String, String> entry : message.getData().entrySet()) {
-            bundle.putString(entry.getKey(), entry.getValue());
-        }
-        JSONObject data = getPushData(bundle.getString("data"));
-        // Copy `twi_body` to `message` to support Twilio
-        if (bundle.containsKey("twi_body")) {
-            bundle.putString("message", bundle.getString("twi_body"));
-        }
-
-        if (data != null) {
-            if (!bundle.containsKey("message")) {
-                bundle.putString("message", data.optString("alert", null));
-            }
-            if (!bundle.containsKey("title")) {
-                bundle.putString("title", data.optString("title", null));
-            }
-            if (!bundle.containsKey("sound")) {
-                bundle.putString("soundName", data.optString("sound", null));
-            }
-            if (!bundle.containsKey("color")) {
-                bundle.putString("color", data.optString("color", null));
+        final PushMessage pushMessage;
+        final long parsedAt;
+        try {
+            String from = message.getFrom();
+            RemoteMessage.Notification remoteNotification = message.getNotification();
+
+            // Putting it from remoteNotification first so it can be overriden if message
+            // data has it
+            if (remoteNotification != null) {
+                // ^ It's null when message is from GCM
+                bundle.putString("title", remoteNotification.getTitle());
+                bundle.putString("message", remoteNotification.getBody());
             }
 
-            final int badge = data.optInt("badge", -1);
+            RNPushNotificationCapture capture = RNPushNotificationCapture.getInstance(this);
+            if (capture != null) {
+                capture.record(message.getData());
+            }
+            pushMessage = RNPushNotificationPayload.putCompactData(bundle, message.getData());
+            RNPushNotificationTemplates.expand(this, bundle);
+            final int badge = RNPushNotificationPayload.normalize(bundle);
             if (badge >= 0) {
                 ApplicationBadgeHelper.INSTANCE.setApplicationIconBadgeNumber(this, badge);
             }
+
+            // If notification ID is not provided by the user for push notification, allocate one.
+            // Done here so the trace slice of this push can be keyed by it from the start.
+            RNPushNotificationIds.getInstance(this).assign(bundle, message.getMessageId(), pushMessage);
+            RNPushNotificationTrace.beginAsyncSection(RNPushNotificationTrace.PUSH,
+                    RNPushNotificationPayload.parseInt(bundle.getString("id")));
+
+            int notificationType = pushMessage != null ? pushMessage.getNotificationType()
+                    : RNPushNotificationPayload.parseInt(bundle.getString("notification_type"));
+            RNPushNotificationFlightRecorder.record(RNPushNotificationFlightRecorder.EVENT_RECEIVED,
+                    bundle.getString("id"), notificationType);
+            // Stringifying the whole Bundle is costly, the flight recorder keeps what's needed to diagnose a push
+            if (Log.isLoggable(LOG_TAG, Log.VERBOSE)) {
+                Log.v(LOG_TAG, "onMessageReceived: " + bundle);
+            }
+            parsedAt = RNPushNotificationMetrics.record(RNPushNotificationMetrics.STAGE_PARSE, notificationType, receivedAt);
+        } finally {
+            RNPushNotificationTrace.endSection();
         }
 
-        Log.v(LOG_TAG, "onMessageReceived: " + bundle);
+        if (RNPushNotificationProcess.isPushProcess(this)) {
+            // No React in the push process
+            RNPushNotificationProcess.handleRemoteNotification(getApplication(), bundle, pushMessage,
+                    RNPushNotificationForegroundPolicy.SHOW, threadCpuStart);
+            return;
+        }
 
         // We need to run this on the main thread, as the React code assumes that is true.
         // Namely, DevServerHelper constructs a Handler() without a Looper, which triggers:
@@ -83,12 +100,12 @@ public class RNPushNotificationListenerService extends FirebaseMessagingService
                 ReactContext context = mReactInstanceManager.getCurrentReactContext();
                 // If it's constructed, send a notification
                 if (context != null) {
-                    handleRemotePushNotification((ReactApplicationContext) context, bundle);
+                    handleRemotePushNotification((ReactApplicationContext) context, bundle, pushMessage, parsedAt);
                 } else {
                     // Otherwise wait for construction, then send the notification
                     mReactInstanceManager.addReactInstanceEventListener(new ReactInstanceManager.ReactInstanceEventListener() {
                         public void onReactContextInitialized(ReactContext context) {
-                            handleRemotePushNotification((ReactApplicationContext) context, bundle);
+                            handleRemotePushNotification((ReactApplicationContext) context, bundle, pushMessage, parsedAt);
                         }
                     });
                     if (!mReactInstanceManager.hasStartedCreatingInitialContext()) {
@@ -98,41 +115,41 @@ public class RNPushNotificationListenerService extends FirebaseMessagingService
                 }
             }
         });
+        RNPushNotificationProcess.logUsage("onMessageReceived", threadCpuStart);
     }
 
-    private JSONObject getPushData(String dataString) {
-        try {
-            return new JSONObject(dataString);
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-    private void handleRemotePushNotification(ReactApplicationContext context, Bundle bundle) {
-
-        // If notification ID is not provided by the user for push notification, generate one at random
-        if (bundle.getString("id") == null) {
-            Random randomNumberGenerator = new Random(System.currentTimeMillis());
-            bundle.putString("id", String.valueOf(randomNumberGenerator.nextInt()));
-        }
+    private void handleRemotePushNotification(ReactApplicationContext context, Bundle bundle, PushMessage pushMessage,
+                                              long parsedAt) {
+        final int notificationType = pushMessage != null ? pushMessage.getNotificationType()
+                : RNPushNotificationPayload.parseInt(bundle.getString("notification_type"));
+        RNPushNotificationMetrics.record(RNPushNotificationMetrics.STAGE_RECEIVE, notificationType, parsedAt);
 
         Boolean isForeground = isApplicationInForeground();
 
         RNPushNotificationJsDelivery jsDelivery = new RNPushNotificationJsDelivery(context);
         bundle.putBoolean("foreground", isForeground);
         bundle.putBoolean("userInteraction", false);
-        jsDelivery.notifyNotification(bundle);
+        long emitStart = RNPushNotificationMetrics.start();
+        RNPushNotificationTrace.beginSection("RNPN:jsEmit");
+        try {
+            jsDelivery.notifyNotification(bundle);
+        } finally {
+            RNPushNotificationTrace.endSection();
+        }
+        RNPushNotificationMetrics.record(RNPushNotificationMetrics.STAGE_JS_EMIT, notificationType, emitStart);
 
         // If contentAvailable is set to true, then send out a remote fetch event
         if (bundle.getString("contentAvailable", "false").equalsIgnoreCase("true")) {
             jsDelivery.notifyRemoteFetch(bundle);
         }
 
-        Log.v(LOG_TAG, "sendNotification: " + bundle);
+        if (Log.isLoggable(LOG_TAG, Log.VERBOSE)) {
+            Log.v(LOG_TAG, "sendNotification: " + bundle);
+        }
 
         Application applicationContext = (Application) context.getApplicationContext();
-        RNPushNotificationHelper pushNotificationHelper = new RNPushNotificationHelper(applicationContext);
-        pushNotificationHelper.sendToNotificationCentre(bundle);
+        RNPushNotificationForegroundPolicy.dispatch(applicationContext, bundle, pushMessage, isForeground,
+                RNPushNotificationForegroundPolicy.SHOW);
     }
 
     private boolean isApplicationInForeground() {
@@ -8,6 +8,7 @@ import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
+import com.dieam.reactnativepushnotification.core.PushMessage;
 import com.dieam.reactnativepushnotification.helpers.ApplicationBadgeHelper;
 import com.facebook.react.ReactApplication;
 import com.facebook.react.ReactInstanceManager;
@@ -15,10 +16,7 @@ import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContext;
 import com.google.android.gms.gcm.GcmListenerService; 
 
-import org.json.JSONObject;
-
 import java.util.List;
-import java.util.Random;
 
 import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
 
@@ -26,33 +24,46 @@ public class RNPushNotificationListenerServiceGcm extends GcmListenerService {
 
     @Override
     public void onMessageReceived(String from, final Bundle bundle) { 
-        JSONObject data = getPushData(bundle.getString("data"));
-        // Copy `twi_body` to `message` to support Twilio
-        if (bundle.containsKey("twi_body")) {
-            bundle.putString("message", bundle.getString("twi_body"));
-        }
-
-        if (data != null) {
-            if (!bundle.containsKey("message")) {
-                bundle.putString("message", data.optString("alert", null));
-            }
-            if (!bundle.containsKey("title")) {
-                bundle.putString("title", data.optString("title", null));
-            }
-            if (!bundle.containsKey("sound")) {
-                bundle.putString("soundName", data.optString("sound", null));
-            }
-            if (!bundle.containsKey("color")) {
-                bundle.putString("color", data.optString("color", null));
-            }
-
-            final int badge = data.optInt("badge", -1);
+        RNPushNotificationMetrics.configure(this);
+        RNPushNotificationTrace.configure(this);
+        final long threadCpuStart = RNPushNotificationProcess.usageStart();
+        final long receivedAt = RNPushNotificationMetrics.start();
+        RNPushNotificationTrace.beginSection("RNPN:parse");
+        final PushMessage pushMessage;
+        final long parsedAt;
+        try {
+            pushMessage = RNPushNotificationPayload.decodeCompact(bundle);
+            RNPushNotificationTemplates.expand(this, bundle);
+            final int badge = RNPushNotificationPayload.normalize(bundle);
             if (badge >= 0) {
                 ApplicationBadgeHelper.INSTANCE.setApplicationIconBadgeNumber(this, badge);
             }
+
+            // If notification ID is not provided by the user for push notification, allocate one.
+            // Done here so the trace slice of this push can be keyed by it from the start.
+            RNPushNotificationIds.getInstance(this).assign(bundle, bundle.getString("google.message_id"), pushMessage);
+            RNPushNotificationTrace.beginAsyncSection(RNPushNotificationTrace.PUSH,
+                    RNPushNotificationPayload.parseInt(bundle.getString("id")));
+
+            int notificationType = pushMessage != null ? pushMessage.getNotificationType()
+                    : RNPushNotificationPayload.parseInt(bundle.getString("notification_type"));
+            RNPushNotificationFlightRecorder.record(RNPushNotificationFlightRecorder.EVENT_RECEIVED,
+                    bundle.getString("id"), notificationType);
+            // Stringifying the whole Bundle is costly, the flight recorder keeps what's needed to diagnose a push
+            if (Log.isLoggable(LOG_TAG, Log.VERBOSE)) {
+                Log.v(LOG_TAG, "onMessageReceived: " + bundle);
+            }
+            parsedAt = RNPushNotificationMetrics.record(RNPushNotificationMetrics.STAGE_PARSE, notificationType, receivedAt);
+        } finally {
+            RNPushNotificationTrace.endSection();
         }
 
-        Log.v(LOG_TAG, "onMessageReceived: " + bundle);
+        if (RNPushNotificationProcess.isPushProcess(this)) {
+            // No React in the push process
+            RNPushNotificationProcess.handleRemoteNotification(getApplication(), bundle, pushMessage,
+                    RNPushNotificationForegroundPolicy.SKIP, threadCpuStart);
+            return;
+        }
 
         // We need to run this on the main thread, as the React code assumes that is true.
         // Namely, DevServerHelper constructs a Handler() without a Looper, which triggers:
@@ -65,12 +76,12 @@ public class RNPushNotificationListenerServiceGcm extends GcmListenerService {
                 ReactContext context = mReactInstanceManager.getCurrentReactContext();
                 // If it's constructed, send a notification
                 if (context != null) {
-                    handleRemotePushNotification((ReactApplicationContext) context, bundle);
+                    handleRemotePushNotification((ReactApplicationContext) context, bundle, pushMessage, parsedAt);
                 } else {
                     // Otherwise wait for construction, then send the notification
                     mReactInstanceManager.addReactInstanceEventListener(new ReactInstanceManager.ReactInstanceEventListener() {
                         public void onReactContextInitialized(ReactContext context) {
-                            handleRemotePushNotification((ReactApplicationContext) context, bundle);
+                            handleRemotePushNotification((ReactApplicationContext) context, bundle, pushMessage, parsedAt);
                         }
                     });
                     if (!mReactInstanceManager.hasStartedCreatingInitialContext()) {
@@ -80,43 +91,41 @@ public class RNPushNotificationListenerServiceGcm extends GcmListenerService {
                 }
             }
         });
+        RNPushNotificationProcess.logUsage("onMessageReceived", threadCpuStart);
     }
 
-    private JSONObject getPushData(String dataString) {
-        try {
-            return new JSONObject(dataString);
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-    private void handleRemotePushNotification(ReactApplicationContext context, Bundle bundle) {
-
-        // If notification ID is not provided by the user for push notification, generate one at random
-        if (bundle.getString("id") == null) {
-            Random randomNumberGenerator = new Random(System.currentTimeMillis());
-            bundle.putString("id", String.valueOf(randomNumberGenerator.nextInt()));
-        }
+    private void handleRemotePushNotification(ReactApplicationContext context, Bundle bundle, PushMessage pushMessage,
+                                              long parsedAt) {
+        final int notificationType = pushMessage != null ? pushMessage.getNotificationType()
+                : RNPushNotificationPayload.parseInt(bundle.getString("notification_type"));
+        RNPushNotificationMetrics.record(RNPushNotificationMetrics.STAGE_RECEIVE, notificationType, parsedAt);
 
         Boolean isForeground = isApplicationInForeground();
 
         RNPushNotificationJsDelivery jsDelivery = new RNPushNotificationJsDelivery(context);
         bundle.putBoolean("foreground", isForeground);
         bundle.putBoolean("userInteraction", false);
-        jsDelivery.notifyNotification(bundle);
+        long emitStart = RNPushNotificationMetrics.start();
+        RNPushNotificationTrace.beginSection("RNPN:jsEmit");
+        try {
+            jsDelivery.notifyNotification(bundle);
+        } finally {
+            RNPushNotificationTrace.endSection();
+        }
+        RNPushNotificationMetrics.record(RNPushNotificationMetrics.STAGE_JS_EMIT, notificationType, emitStart);
 
         // If contentAvailable is set to true, then send out a remote fetch event
         if (bundle.getString("contentAvailable", "false").equalsIgnoreCase("true")) {
             jsDelivery.notifyRemoteFetch(bundle);
         }
 
-        Log.v(LOG_TAG, "sendNotification: " + bundle);
-
-        if (!isForeground) {
-            Application applicationContext = (Application) context.getApplicationContext();
-            RNPushNotificationHelper pushNotificationHelper = new RNPushNotificationHelper(applicationContext);
-            pushNotificationHelper.sendToNotificationCentre(bundle);
+        if (Log.isLoggable(LOG_TAG, Log.VERBOSE)) {
+            Log.v(LOG_TAG, "sendNotification: " + bundle);
         }
+
+        Application applicationContext = (Application) context.getApplicationContext();
+        RNPushNotificationForegroundPolicy.dispatch(applicationContext, bundle, pushMessage, isForeground,
+                RNPushNotificationForegroundPolicy.SKIP);
     }
 
     private boolean isApplicationInForeground() {
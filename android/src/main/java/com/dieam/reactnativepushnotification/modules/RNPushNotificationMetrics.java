@@ -0,0 +1,151 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.content.Context;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histograms for each stage of the push pipeline and each notification type.
+ * <p>
+ * Usage: {@code long t = start(); ...; record(STAGE_BUILD, type, t);}. When metrics are disabled
+ * (the default) {@link #start()} returns 0 without reading the clock and {@link #record} returns
+ * immediately. Enable them with the {@code pipeline_metrics} manifest meta-data or from JS.
+ */
+final class RNPushNotificationMetrics {
+    /** onMessageReceived until the main thread picks the push up, including React startup */
+    static final int STAGE_RECEIVE = 0;
+    /** Copying the FCM data into a Bundle and parsing the data JSON */
+    static final int STAGE_PARSE = 1;
+    /** shouldIgnoreNotification, which drops chat messages for the group in view */
+    static final int STAGE_DEDUP = 2;
+    /** Serializing the Bundle and emitting it to JS */
+    static final int STAGE_JS_EMIT = 3;
+    /** Building the Notification, its style and PendingIntents */
+    static final int STAGE_BUILD = 4;
+    /** NotificationManager.notify */
+    static final int STAGE_NOTIFY = 5;
+    private static final String[] STAGE_NAMES = {"receive", "parse", "dedup", "jsEmit", "build", "notify"};
+
+    // Notification types at or above TYPE_COUNT are counted as type 0
+    private static final int TYPE_COUNT = 8;
+    // Upper bounds in microseconds, the last bucket is unbounded
+    private static final long[] BUCKET_BOUNDS_US = {
+            50, 100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000, 500000, 1000000};
+    private static final int BUCKET_COUNT = BUCKET_BOUNDS_US.length + 1;
+
+    private static final int SERIES_COUNT = STAGE_NAMES.length * TYPE_COUNT;
+    private static final AtomicLongArray sBuckets = new AtomicLongArray(SERIES_COUNT * BUCKET_COUNT);
+    private static final AtomicLongArray sTotalNanos = new AtomicLongArray(SERIES_COUNT);
+    private static final AtomicLongArray sMaxNanos = new AtomicLongArray(SERIES_COUNT);
+
+    private static volatile boolean sEnabled;
+    private static volatile boolean sConfigured;
+
+    private RNPushNotificationMetrics() {
+    }
+
+    /**
+     * Reads the {@code pipeline_metrics} meta-data, once per process.
+     */
+    static void configure(Context context) {
+        if (sConfigured) {
+            return;
+        }
+        sEnabled = new RNPushNotificationConfig(context).getPipelineMetricsEnabled();
+        sConfigured = true;
+    }
+
+    static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+        sConfigured = true;
+    }
+
+    static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    static long start() {
+        return sEnabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time elapsed since {@code start}.
+     *
+     * @return the current time, to be used as the start of the next stage, or 0 when disabled
+     */
+    static long record(int stage, int notificationType, long start) {
+        if (start == 0 || !sEnabled) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long elapsed = now - start;
+
+        int series = stage * TYPE_COUNT + (notificationType > 0 && notificationType < TYPE_COUNT ? notificationType : 0);
+        sBuckets.incrementAndGet(series * BUCKET_COUNT + bucket(elapsed / 1000));
+        sTotalNanos.addAndGet(series, elapsed);
+        long max;
+        do {
+            max = sMaxNanos.get(series);
+        } while (elapsed > max && !sMaxNanos.compareAndSet(series, max, elapsed));
+        return now;
+    }
+
+    /**
+     * @param reset zero every series after reading it
+     */
+    static WritableMap snapshot(boolean reset) {
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("enabled", sEnabled);
+
+        WritableArray bounds = Arguments.createArray();
+        for (long bound : BUCKET_BOUNDS_US) {
+            bounds.pushDouble(bound);
+        }
+        result.putArray("bucketBoundsUs", bounds);
+
+        WritableMap stages = Arguments.createMap();
+        for (int stage = 0; stage < STAGE_NAMES.length; stage++) {
+            WritableMap types = Arguments.createMap();
+            for (int type = 0; type < TYPE_COUNT; type++) {
+                int series = stage * TYPE_COUNT + type;
+
+                long count = 0;
+                WritableArray buckets = Arguments.createArray();
+                for (int b = 0; b < BUCKET_COUNT; b++) {
+                    int index = series * BUCKET_COUNT + b;
+                    long value = reset ? sBuckets.getAndSet(index, 0) : sBuckets.get(index);
+                    count += value;
+                    buckets.pushDouble(value);
+                }
+                long total = reset ? sTotalNanos.getAndSet(series, 0) : sTotalNanos.get(series);
+                long max = reset ? sMaxNanos.getAndSet(series, 0) : sMaxNanos.get(series);
+                if (count == 0) {
+                    continue;
+                }
+
+                WritableMap histogram = Arguments.createMap();
+                histogram.putDouble("count", count);
+                histogram.putDouble("totalUs", total / 1000);
+                histogram.putDouble("maxUs", max / 1000);
+                histogram.putArray("buckets", buckets);
+                types.putMap(String.valueOf(type), histogram);
+            }
+            stages.putMap(STAGE_NAMES[stage], types);
+        }
+        result.putMap("stages", stages);
+        return result;
+    }
+
+    private static int bucket(long micros) {
+        for (int i = 0; i < BUCKET_BOUNDS_US.length; i++) {
+            if (micros < BUCKET_BOUNDS_US[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_US.length;
+    }
+}
@@ -0,0 +1,92 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.os.Bundle;
+import android.util.Log;
+
+import com.dieam.reactnativepushnotification.core.CompactPayload;
+import com.dieam.reactnativepushnotification.core.PayloadNormalizer;
+import com.dieam.reactnativepushnotification.core.PushMessage;
+
+import java.util.Map;
+
+import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
+
+/**
+ * Turns the data of a remote message into the Bundle handed to JS and to
+ * {@link RNPushNotificationHelper}. Shared by the FCM and GCM listener services; the work itself
+ * is done by the core {@link PayloadNormalizer}.
+ */
+final class RNPushNotificationPayload {
+    private RNPushNotificationPayload() {
+    }
+
+    /**
+     * Copies the data of an FCM message into the Bundle, overriding the title and body of its
+     * notification part.
+     */
+    static void putData(Bundle bundle, Map<String, String> data) {
+        PayloadNormalizer.putData(new RNPushNotificationBundleFields(bundle), data);
+    }
+
+    /**
+     * Like {@link #putData(Bundle, Map)}, but decodes the {@link CompactPayload#KEY} entry if the
+     * data has one: its fields are written to the Bundle as strings, after the other entries.
+     *
+     * @return the typed fields of the compact payload, or null if the data has none or it can't be
+     * decoded, in which case the entry is copied as it is
+     */
+    static PushMessage putCompactData(Bundle bundle, Map<String, String> data) {
+        PushMessage message = PayloadNormalizer.putCompactData(new RNPushNotificationBundleFields(bundle), data);
+        if (message == null && data.containsKey(CompactPayload.KEY)) {
+            Log.w(LOG_TAG, "Unable to decode compact payload");
+        }
+        return message;
+    }
+
+    /**
+     * Decodes the {@link CompactPayload#KEY} entry of a GCM Bundle in place.
+     *
+     * @return the typed fields of the compact payload, or null if the Bundle has none or it can't
+     * be decoded
+     */
+    static PushMessage decodeCompact(Bundle bundle) {
+        String payload = bundle.getString(CompactPayload.KEY);
+        if (payload == null) {
+            return null;
+        }
+        PushMessage message = CompactPayload.decode(payload);
+        if (message == null) {
+            Log.w(LOG_TAG, "Unable to decode compact payload");
+            return null;
+        }
+        bundle.remove(CompactPayload.KEY);
+        message.writeTo(new RNPushNotificationBundleFields(bundle));
+        return message;
+    }
+
+    /**
+     * Fills {@code message}, {@code title}, {@code soundName} and {@code color} from the
+     * {@code data} JSON when missing, and copies Twilio's {@code twi_body} to {@code message}.
+     *
+     * @return the badge number set in the {@code data} JSON, or -1
+     */
+    static int normalize(Bundle bundle) {
+        return PayloadNormalizer.normalize(new RNPushNotificationBundleFields(bundle));
+    }
+
+    /**
+     * Parses a numeric string field, such as an id or the notification type.
+     *
+     * @return the value, or 0 when the field is missing or isn't a number
+     */
+    static int parseInt(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
+
+/**
+ * Pushes the push process received while the main process wasn't running, kept for JS until it
+ * attaches and takes them, see {@link RNPushNotificationProcess}.
+ * <p>
+ * Each push is kept as the JSON emitted to JS, under its sequence number. Only the push process
+ * reads and writes the file: the main process takes the pushes through
+ * {@link RNPushNotificationStateProvider}. Once {@link #CAPACITY} pushes are kept, the oldest one
+ * is dropped for each new one.
+ */
+class RNPushNotificationPendingPushes {
+    static final String PREFERENCES_KEY = "rn_push_notification_pending_pushes";
+    static final int CAPACITY = 64;
+
+    private static RNPushNotificationPendingPushes sInstance;
+
+    private final SharedPreferences mPreferences;
+    // Sequence numbers of the kept pushes, oldest first
+    private final List<Long> mSequences = new ArrayList<>();
+    private long mNextSequence = 1;
+
+    static synchronized RNPushNotificationPendingPushes getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new RNPushNotificationPendingPushes(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private RNPushNotificationPendingPushes(Context context) {
+        mPreferences = context.getSharedPreferences(PREFERENCES_KEY, Context.MODE_PRIVATE);
+        for (String key : mPreferences.getAll().keySet()) {
+            try {
+                mSequences.add(Long.parseLong(key));
+            } catch (NumberFormatException e) {
+                Log.w(LOG_TAG, "Ignoring invalid pending push " + key);
+            }
+        }
+        Collections.sort(mSequences);
+        if (!mSequences.isEmpty()) {
+            mNextSequence = mSequences.get(mSequences.size() - 1) + 1;
+        }
+    }
+
+    synchronized void add(String json) {
+        if (json == null) {
+            return;
+        }
+        SharedPreferences.Editor editor = mPreferences.edit();
+        while (mSequences.size() >= CAPACITY) {
+            long dropped = mSequences.remove(0);
+            editor.remove(String.valueOf(dropped));
+            Log.w(LOG_TAG, "Dropping the oldest push kept for JS, " + CAPACITY + " are kept at most");
+        }
+        long sequence = mNextSequence++;
+        mSequences.add(sequence);
+        editor.putString(String.valueOf(sequence), json);
+        editor.apply();
+    }
+
+    /**
+     * Removes the kept pushes and returns them, oldest first.
+     */
+    synchronized String[] take() {
+        Map<String, ?> all = mPreferences.getAll();
+        List<String> pushes = new ArrayList<>(mSequences.size());
+        for (long sequence : mSequences) {
+            Object json = all.get(String.valueOf(sequence));
+            if (json instanceof String) {
+                pushes.add((String) json);
+            }
+        }
+        mSequences.clear();
+        mPreferences.edit().clear().apply();
+        return pushes.toArray(new String[pushes.size()]);
+    }
+}
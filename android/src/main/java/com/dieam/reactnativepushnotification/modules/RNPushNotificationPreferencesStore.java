@@ -0,0 +1,49 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.content.SharedPreferences;
+
+import com.dieam.reactnativepushnotification.core.KeyValueStore;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * {@link KeyValueStore} over SharedPreferences. Edits are applied asynchronously.
+ */
+class RNPushNotificationPreferencesStore implements KeyValueStore {
+    private final SharedPreferences mPreferences;
+
+    RNPushNotificationPreferencesStore(SharedPreferences preferences) {
+        mPreferences = preferences;
+    }
+
+    @Override
+    public Map<String, ?> getAll() {
+        return mPreferences.getAll();
+    }
+
+    @Override
+    public void edit(Map<String, ?> put, Collection<String> remove) {
+        SharedPreferences.Editor editor = mPreferences.edit();
+        for (Map.Entry<String, ?> entry : put.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Long) {
+                editor.putLong(entry.getKey(), (Long) value);
+            } else if (value instanceof Integer) {
+                editor.putInt(entry.getKey(), (Integer) value);
+            } else if (value instanceof Boolean) {
+                editor.putBoolean(entry.getKey(), (Boolean) value);
+            } else if (value instanceof Float) {
+                editor.putFloat(entry.getKey(), (Float) value);
+            } else if (value instanceof String) {
+                editor.putString(entry.getKey(), (String) value);
+            } else {
+                throw new IllegalArgumentException("Unsupported preference value for " + entry.getKey() + ": " + value);
+            }
+        }
+        for (String key : remove) {
+            editor.remove(key);
+        }
+        editor.apply();
+    }
+}
@@ -0,0 +1,249 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.app.ActivityManager;
+import android.app.Application;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Debug;
+import android.os.Process;
+import android.util.Log;
+
+import com.dieam.reactnativepushnotification.core.PushMessage;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
+
+/**
+ * Support for running the push handling components in a separate {@code :push} process, enabled
+ * with the {@code push_process} manifest meta-data once the listener services,
+ * {@link RNPushNotificationPublisher}, {@link RNPushNotificationDismissReceiver} and
+ * {@link RNPushNotificationBootEventReceiver} are declared with {@code android:process=":push"}.
+ * <p>
+ * The push process never loads React: it renders natively and hands pushes to the main process
+ * over a signature-protected broadcast, which only reaches a main process that is already
+ * running with the module listening. The app declares that permission, see the README. Pushes
+ * received while the main process isn't running are kept in {@link RNPushNotificationPendingPushes}
+ * until its JS attaches and takes them.
+ * <p>
+ * The push process owns the notification state: it is the only process that posts and removes
+ * notifications, allocates ids, schedules notifications and appends to the history, so the
+ * in-memory indexes (group summary, entity index, delivered snapshot, conversations, render locks
+ * and ids) only exist there. {@link RNPushNotificationHelper} in the main process forwards each of
+ * those operations to {@link RNPushNotificationStateProvider}, which runs in the push process. The
+ * files the main process reads, e.g. the scheduled notifications, have a single writer and are
+ * opened in multi-process mode so the reader sees its writes.
+ */
+final class RNPushNotificationProcess {
+    static final String SUFFIX = ":push";
+    static final String ACTION_REMOTE_NOTIFICATION_SUFFIX = ".RNPushNotificationRemoteNotification";
+    static final String PERMISSION_SUFFIX = ".permission.RN_PUSH_NOTIFICATION";
+    /**
+     * Default foreground policy of a forwarded push the main process should render, i.e. while
+     * it's in the foreground. Absent when the push process rendered it.
+     */
+    static final String EXTRA_POLICY = "policy";
+    private static final String AUTHORITY_SUFFIX = ".rnpushnotification.state";
+
+    // Forwarded operations run one at a time, in the order they were made
+    private static final ExecutorService sOwnerCalls = Executors.newSingleThreadExecutor();
+
+    interface ResultListener {
+        /**
+         * @param result the result of the operation, null if the push process couldn't be reached
+         */
+        void onResult(Bundle result);
+    }
+
+    private static Boolean sEnabled;
+    private static Boolean sPushProcess;
+
+    private RNPushNotificationProcess() {
+    }
+
+    static synchronized boolean isEnabled(Context context) {
+        if (sEnabled == null) {
+            sEnabled = isPushProcess(context) || new RNPushNotificationConfig(context).getPushProcessEnabled();
+        }
+        return sEnabled;
+    }
+
+    static synchronized boolean isPushProcess(Context context) {
+        if (sPushProcess == null) {
+            String processName = processName();
+            sPushProcess = processName != null && processName.equals(context.getPackageName() + SUFFIX);
+        }
+        return sPushProcess;
+    }
+
+    /**
+     * @return true in the main process with the push process enabled, where state changes are
+     * forwarded to the push process
+     */
+    static boolean isForwarding(Context context) {
+        return isEnabled(context) && !isPushProcess(context);
+    }
+
+    /**
+     * Hands an operation to {@link RNPushNotificationStateProvider} in the push process, starting
+     * it if needed, without waiting for it.
+     */
+    static void forward(Context context, String method, Bundle extras) {
+        forward(context, method, extras, null);
+    }
+
+    /**
+     * Hands an operation to the push process after the ones already forwarded. The caller's
+     * thread never waits on the binder call: the listener gets the result on the thread that
+     * runs the forwarded operations.
+     */
+    static void forward(Context context, final String method, Bundle extras, final ResultListener listener) {
+        final Context applicationContext = context.getApplicationContext();
+        // The caller may keep using its bundle
+        final Bundle copy = extras != null ? new Bundle(extras) : new Bundle();
+        sOwnerCalls.execute(new Runnable() {
+            @Override
+            public void run() {
+                Uri uri = Uri.parse("content://" + applicationContext.getPackageName() + AUTHORITY_SUFFIX);
+                Bundle result = null;
+                try {
+                    result = applicationContext.getContentResolver().call(uri, method, null, copy);
+                } catch (RuntimeException e) {
+                    Log.e(LOG_TAG, "Unable to reach the push process for " + method, e);
+                }
+                if (listener != null) {
+                    listener.onResult(result);
+                }
+            }
+        });
+    }
+
+    /**
+     * The files read by both processes are re-read when the other process changed them, so they
+     * are fetched again for every use rather than kept in a field. Each of them has a single
+     * writer: multi-process mode rewrites the whole file on every apply(), so two writers would
+     * erase each other's entries.
+     */
+    @SuppressWarnings("deprecation")
+    static SharedPreferences getSharedPreferences(Context context, String name) {
+        return context.getSharedPreferences(name,
+                isEnabled(context) ? Context.MODE_MULTI_PROCESS : Context.MODE_PRIVATE);
+    }
+
+    /**
+     * @return the importance of the main process, or 0 when it isn't running
+     */
+    static int mainProcessImportance(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        List<ActivityManager.RunningAppProcessInfo> processInfos = activityManager.getRunningAppProcesses();
+        if (processInfos != null) {
+            for (ActivityManager.RunningAppProcessInfo processInfo : processInfos) {
+                if (processInfo.processName.equals(context.getPackageName())) {
+                    return processInfo.importance;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Hands a push to the JS of the main process, if it's running.
+     *
+     * @param defaultPolicy the default foreground policy the main process renders it under, null
+     *                      if it shouldn't render it
+     */
+    static void forwardToMainProcess(Context context, Bundle bundle, String defaultPolicy) {
+        Intent intent = new Intent(context.getPackageName() + ACTION_REMOTE_NOTIFICATION_SUFFIX);
+        intent.setPackage(context.getPackageName());
+        intent.putExtra("notification", bundle);
+        if (defaultPolicy != null) {
+            intent.putExtra(EXTRA_POLICY, defaultPolicy);
+        }
+        context.sendBroadcast(intent, context.getPackageName() + PERMISSION_SUFFIX);
+    }
+
+    /**
+     * Handles a remote notification in the push process: rendered natively unless the main
+     * process is in the foreground, in which case it's handed over so the foreground policy and
+     * claims work as in the main process mode.
+     */
+    static void handleRemoteNotification(Application context, Bundle bundle, PushMessage pushMessage,
+                                         String defaultPolicy, long threadCpuStartNanos) {
+        int importance = mainProcessImportance(context);
+        boolean isForeground = importance == ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND;
+        bundle.putBoolean("foreground", isForeground);
+        bundle.putBoolean("userInteraction", false);
+
+        if (importance != 0) {
+            forwardToMainProcess(context, bundle, isForeground ? defaultPolicy : null);
+        } else {
+            RNPushNotificationPendingPushes.getInstance(context).add(RNPushNotificationJsDelivery.convertJSON(bundle));
+        }
+        if (isForeground) {
+            // The main process takes it from here
+            RNPushNotificationTrace.endAsyncSection(RNPushNotificationTrace.PUSH,
+                    RNPushNotificationPayload.parseInt(bundle.getString("id")));
+        } else {
+            RNPushNotificationForegroundPolicy.dispatch(context, bundle, pushMessage, false, defaultPolicy);
+        }
+        logUsage("onMessageReceived", threadCpuStartNanos);
+    }
+
+    /**
+     * @return the CPU time of this thread to pass to {@link #logUsage(String, long)}, or -1 when
+     * usage isn't logged, so pushes don't pay for the clock read otherwise
+     */
+    static long usageStart() {
+        return Log.isLoggable(LOG_TAG, Log.DEBUG) ? Debug.threadCpuTimeNanos() : -1;
+    }
+
+    /**
+     * Logs what handling a push cost this process, to compare the main and push process modes:
+     * CPU time of the handling thread and the Java and native heaps in use.
+     *
+     * @param threadCpuStartNanos the value of {@link #usageStart()} when the handling started
+     */
+    static void logUsage(String stage, long threadCpuStartNanos) {
+        if (threadCpuStartNanos < 0) {
+            return;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        Log.d(LOG_TAG, String.format("%s in %s: cpu %d us, java heap %d KB, native heap %d KB, process cpu %d ms",
+                stage, processName(), (Debug.threadCpuTimeNanos() - threadCpuStartNanos) / 1000,
+                (runtime.totalMemory() - runtime.freeMemory()) / 1024, Debug.getNativeHeapAllocatedSize() / 1024,
+                Process.getElapsedCpuTime()));
+    }
+
+    private static String processName() {
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(new File("/proc/self/cmdline"));
+            byte[] buffer = new byte[256];
+            int length = in.read(buffer);
+            int end = 0;
+            while (end < length && buffer[end] != 0) {
+                end++;
+            }
+            return new String(buffer, 0, end, "UTF-8");
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to read the process name", e);
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // Ignored
+                }
+            }
+        }
+    }
+}
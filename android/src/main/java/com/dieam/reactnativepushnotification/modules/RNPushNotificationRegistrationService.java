@@ -4,9 +4,6 @@ import android.app.IntentService;
 import android.content.Intent;
 import android.util.Log;
 
-import com.google.android.gms.gcm.GoogleCloudMessaging;
-import com.google.android.gms.iid.InstanceID;
-
 import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
 
 public class RNPushNotificationRegistrationService extends IntentService {
@@ -21,9 +18,8 @@ public class RNPushNotificationRegistrationService extends IntentService {
     protected void onHandleIntent(Intent intent) {
         try {
             String SenderID = intent.getStringExtra("senderID");
-            InstanceID instanceID = InstanceID.getInstance(this);
-            String token = instanceID.getToken(SenderID,
-                    GoogleCloudMessaging.INSTANCE_ID_SCOPE, null);
+            // Requests queued behind the first one are answered from the cache
+            String token = RNPushNotificationTokenCache.getInstance(this).fetch(SenderID);
             sendRegistrationToken(token);
         } catch (Exception e) {
             Log.e(LOG_TAG, TAG + " failed to process intent " + intent, e);
@@ -0,0 +1,33 @@
+package com.dieam.reactnativepushnotification.modules;
+
+/**
+ * Striped locks guarding the read-modify-write of grouped notifications.
+ * <p>
+ * A grouped notification is rebuilt from its {@link RNPushNotificationConversations} entry with
+ * the new message appended, so two deliveries for the same bundle id must not interleave.
+ * Deliveries for different bundle ids hash to different stripes (most of the time) and render in
+ * parallel.
+ * <p>
+ * The stripes are static because the listener services, the publisher and the module each
+ * build their own {@link RNPushNotificationHelper}.
+ */
+final class RNPushNotificationRenderLocks {
+    private static final int STRIPE_COUNT = 32; // must be a power of two
+
+    private static final Object[] STRIPES = new Object[STRIPE_COUNT];
+
+    static {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            STRIPES[i] = new Object();
+        }
+    }
+
+    private RNPushNotificationRenderLocks() {
+    }
+
+    static Object forKey(int key) {
+        // Spread the bits so that sequential ids don't all land on neighbouring stripes
+        int h = key * 0x9E3779B9;
+        return STRIPES[(h ^ (h >>> 16)) & (STRIPE_COUNT - 1)];
+    }
+}
@@ -0,0 +1,294 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.service.notification.StatusBarNotification;
+import android.util.Log;
+import android.util.LruCache;
+import android.util.SparseArray;
+
+import androidx.core.app.NotificationCompat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
+
+/**
+ * Rich media stage of rendering: the {@code largeIcon} and {@code bigPicture} of a notification
+ * are loaded off the render thread, and the notification, already shown with its text, is posted
+ * again in place with them.
+ * <p>
+ * Both are a drawable or mipmap resource name, or a {@code file}, {@code content} or
+ * {@code http(s)} URI. Images are decoded downsampled to the size they are shown at and kept in a
+ * bounded LRU cache keyed by source and target size, so the next notification of the same wager
+ * or sender is posted with its image straight away.
+ */
+class RNPushNotificationRichMedia {
+    static final String LARGE_ICON = "largeIcon";
+    static final String BIG_PICTURE = "bigPicture";
+
+    private static final int MAX_CONCURRENT_LOADS = 2;
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final int READ_TIMEOUT_MS = 15000;
+    private static final int MAX_SOURCE_BYTES = 8 * 1024 * 1024;
+    private static final int MAX_CACHE_BYTES = 8 * 1024 * 1024;
+    private static final int BIG_PICTURE_HEIGHT_DP = 256;
+
+    private static RNPushNotificationRichMedia sInstance;
+
+    private final Context mContext;
+    private final LruCache<String, Bitmap> mBitmaps;
+    private final ThreadPoolExecutor mLoads;
+    // Latest builder posted under each notification id, an upgrade only posts if it's still the one
+    private final SparseArray<NotificationCompat.Builder> mLatest = new SparseArray<>();
+
+    static synchronized RNPushNotificationRichMedia getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new RNPushNotificationRichMedia(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private RNPushNotificationRichMedia(Context context) {
+        mContext = context;
+        int cacheBytes = (int) Math.min(MAX_CACHE_BYTES, Runtime.getRuntime().maxMemory() / 16);
+        mBitmaps = new LruCache<String, Bitmap>(cacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+        mLoads = new ThreadPoolExecutor(MAX_CONCURRENT_LOADS, MAX_CONCURRENT_LOADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        mLoads.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Sets the images already in the cache on the builder, which is about to be posted under
+     * notificationID.
+     *
+     * @param withBigPicture false when the notification has a style of its own
+     * @return true if an image is still to be loaded, see {@link #upgrade}
+     */
+    boolean applyCached(int notificationID, NotificationCompat.Builder builder, Bundle bundle, boolean withBigPicture) {
+        String largeIcon = bundle.getString(LARGE_ICON);
+        String bigPicture = withBigPicture ? bundle.getString(BIG_PICTURE) : null;
+        synchronized (mLatest) {
+            if (largeIcon == null && bigPicture == null) {
+                mLatest.remove(notificationID);
+                return false;
+            }
+            mLatest.put(notificationID, builder);
+        }
+
+        boolean missing = false;
+        if (largeIcon != null) {
+            Bitmap bitmap = mBitmaps.get(key(largeIcon, largeIconSize()));
+            if (bitmap != null) {
+                builder.setLargeIcon(bitmap);
+            } else {
+                missing = true;
+            }
+        }
+        if (bigPicture != null) {
+            Bitmap bitmap = mBitmaps.get(key(bigPicture, bigPictureSize()));
+            if (bitmap != null) {
+                setBigPicture(builder, bitmap, bundle.getString("message"));
+            } else {
+                missing = true;
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Loads the images of a notification that was posted without them, then posts it again with
+     * them, unless it was removed or replaced meanwhile. The upgrade doesn't alert again.
+     */
+    void upgrade(final NotificationManager notificationManager, final int notificationID,
+                 final NotificationCompat.Builder builder, final Bundle bundle, final boolean withBigPicture) {
+        mLoads.execute(new Runnable() {
+            @Override
+            public void run() {
+                String largeIcon = bundle.getString(LARGE_ICON);
+                String bigPicture = withBigPicture ? bundle.getString(BIG_PICTURE) : null;
+
+                Bitmap largeIconBitmap = largeIcon != null ? load(largeIcon, largeIconSize()) : null;
+                Bitmap bigPictureBitmap = bigPicture != null ? load(bigPicture, bigPictureSize()) : null;
+                if (largeIconBitmap == null && bigPictureBitmap == null) {
+                    // Nothing to upgrade, don't keep the builder around
+                    synchronized (mLatest) {
+                        if (mLatest.get(notificationID) == builder) {
+                            mLatest.remove(notificationID);
+                        }
+                    }
+                    return;
+                }
+
+                synchronized (mLatest) {
+                    if (mLatest.get(notificationID) != builder) {
+                        return;
+                    }
+                    mLatest.remove(notificationID);
+                    if (!isActive(notificationManager, notificationID)) {
+                        return;
+                    }
+                    if (largeIconBitmap != null) {
+                        builder.setLargeIcon(largeIconBitmap);
+                    }
+                    if (bigPictureBitmap != null) {
+                        setBigPicture(builder, bigPictureBitmap, bundle.getString("message"));
+                    }
+                    builder.setOnlyAlertOnce(true);
+                    notificationManager.notify(notificationID, builder.build());
+                }
+            }
+        });
+    }
+
+    private static void setBigPicture(NotificationCompat.Builder builder, Bitmap bitmap, String message) {
+        builder.setStyle(new NotificationCompat.BigPictureStyle()
+                .bigPicture(bitmap)
+                // The large icon is hidden while expanded, the picture is shown instead
+                .bigLargeIcon((Bitmap) null)
+                .setSummaryText(message));
+    }
+
+    private static boolean isActive(NotificationManager notificationManager, int notificationID) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return true;
+        }
+        for (StatusBarNotification notif : notificationManager.getActiveNotifications()) {
+            if (notif.getId() == notificationID) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the image downsampled to about size, or null if it can't be loaded
+     */
+    private Bitmap load(String source, int[] size) {
+        String key = key(source, size);
+        Bitmap bitmap = mBitmaps.get(key);
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        try {
+            byte[] data = read(source);
+            if (data == null) {
+                Log.w(LOG_TAG, "Unable to find image " + source);
+                return null;
+            }
+            bitmap = decode(data, size[0], size[1]);
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Unable to load image " + source, e);
+            return null;
+        }
+        if (bitmap == null) {
+            Log.w(LOG_TAG, "Unable to decode image " + source);
+            return null;
+        }
+        mBitmaps.put(key, bitmap);
+        return bitmap;
+    }
+
+    private byte[] read(String source) throws IOException {
+        Uri uri = Uri.parse(source);
+        String scheme = uri.getScheme();
+        if (scheme == null) {
+            Resources resources = mContext.getResources();
+            int resId = resources.getIdentifier(source, "mipmap", mContext.getPackageName());
+            if (resId == 0) {
+                resId = resources.getIdentifier(source, "drawable", mContext.getPackageName());
+            }
+            return resId != 0 ? readFully(resources.openRawResource(resId)) : null;
+        }
+        if (scheme.equals("http") || scheme.equals("https")) {
+            HttpURLConnection connection = (HttpURLConnection) new URL(source).openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            try {
+                if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                    throw new IOException("HTTP " + connection.getResponseCode());
+                }
+                return readFully(connection.getInputStream());
+            } finally {
+                connection.disconnect();
+            }
+        }
+        InputStream in = mContext.getContentResolver().openInputStream(uri);
+        return in != null ? readFully(in) : null;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (out.size() + read > MAX_SOURCE_BYTES) {
+                    throw new IOException("Image larger than " + MAX_SOURCE_BYTES + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Decodes with the largest power of two subsampling that keeps the image at least as large
+     * as the target, so a full size photo never gets decoded whole.
+     */
+    private static Bitmap decode(byte[] data, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= width && options.outHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    }
+
+    private int[] largeIconSize() {
+        Resources resources = mContext.getResources();
+        return new int[]{
+                resources.getDimensionPixelSize(android.R.dimen.notification_large_icon_width),
+                resources.getDimensionPixelSize(android.R.dimen.notification_large_icon_height)};
+    }
+
+    private int[] bigPictureSize() {
+        Resources resources = mContext.getResources();
+        return new int[]{
+                resources.getDisplayMetrics().widthPixels,
+                Math.round(BIG_PICTURE_HEIGHT_DP * resources.getDisplayMetrics().density)};
+    }
+
+    private static String key(String source, int[] size) {
+        return source + '@' + size[0] + 'x' + size[1];
+    }
+}
@@ -0,0 +1,67 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.dieam.reactnativepushnotification.core.ScheduleIndex;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The {@link ScheduleIndex} of the {@link RNPushNotificationHelper#PREFERENCES_KEY} store, with
+ * the fire date of each scheduled notification kept in its own small preferences file.
+ * <p>
+ * With the push process enabled, the index is rebuilt from the stores when the other process has
+ * changed them since it was loaded. Each write of the index stores a new random version in
+ * {@link #VERSION_PREFERENCES_KEY}, and the process remembers the version it wrote last, so its
+ * own writes don't count as changes.
+ */
+class RNPushNotificationScheduleIndex {
+    static final String PREFERENCES_KEY = "rn_push_notification_index";
+    static final String VERSION_PREFERENCES_KEY = "rn_push_notification_index_version";
+    private static final String KEY_VERSION = "version";
+
+    private static final Random sRandom = new Random();
+    private static ScheduleIndex sInstance;
+    private static long sLoadedVersion;
+
+    private RNPushNotificationScheduleIndex() {
+    }
+
+    static synchronized ScheduleIndex getInstance(Context context) {
+        final Context applicationContext = context.getApplicationContext();
+        if (sInstance != null && RNPushNotificationProcess.isEnabled(applicationContext)
+                && version(applicationContext) != sLoadedVersion) {
+            sInstance = null;
+        }
+        if (sInstance == null) {
+            sLoadedVersion = version(applicationContext);
+            sInstance = new ScheduleIndex(
+                    new RNPushNotificationPreferencesStore(RNPushNotificationProcess.getSharedPreferences(
+                            applicationContext, RNPushNotificationHelper.PREFERENCES_KEY)),
+                    new RNPushNotificationPreferencesStore(RNPushNotificationProcess.getSharedPreferences(
+                            applicationContext, PREFERENCES_KEY)) {
+                        @Override
+                        public void edit(Map<String, ?> put, Collection<String> remove) {
+                            super.edit(put, remove);
+                            writeVersion(applicationContext);
+                        }
+                    });
+        }
+        return sInstance;
+    }
+
+    private static long version(Context context) {
+        return RNPushNotificationProcess.getSharedPreferences(context, VERSION_PREFERENCES_KEY).getLong(KEY_VERSION, 0);
+    }
+
+    private static synchronized void writeVersion(Context context) {
+        long version = sRandom.nextLong();
+        SharedPreferences.Editor editor = RNPushNotificationProcess.getSharedPreferences(context, VERSION_PREFERENCES_KEY).edit();
+        editor.putLong(KEY_VERSION, version);
+        editor.apply();
+        sLoadedVersion = version;
+    }
+}
@@ -0,0 +1,403 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.app.Application;
+import android.os.Bundle;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+
+import com.dieam.reactnativepushnotification.core.PushMessage;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
+
+/**
+ * Hands remote notifications to
+ * {@link RNPushNotificationHelper#sendToNotificationCentre(Bundle, PushMessage)}
+ * from a small pool of worker threads, through one bounded queue per priority lane.
+ * <p>
+ * Lanes are drained by weighted round robin, highest lane first, so a storm of group chat
+ * messages can't hold back a wager notification that arrived after it. The lane of each
+ * notification type, the lane weights and the number of workers can be overridden through
+ * manifest meta-data, see {@link RNPushNotificationConfig#getNotificationLane(int)}.
+ * <p>
+ * Notifications posted with the same id, e.g. the messages of a conversation, are rendered one at
+ * a time and in the order they were submitted; the others render in parallel.
+ * <p>
+ * When a lane is full a notification joins the queued batch of its id if there is one, otherwise
+ * it waits on the overflow of the lane, which is drained after the lane itself. The overflows of
+ * all lanes share a bounded capacity; once it is used up, the oldest overflowing batch of the
+ * lowest lane is shed, and a notification is only shed itself when nothing overflows in its lane
+ * or a lower one. Shed notifications are recorded as dropped. submit() never blocks or renders on
+ * the calling thread, usually the main thread.
+ */
+class RNPushNotificationScheduler {
+    static final int LANE_HIGH = 0;
+    static final int LANE_NORMAL = 1;
+    static final int LANE_LOW = 2;
+    private static final String[] LANE_NAMES = {"high", "normal", "low"};
+    private static final int[] DEFAULT_WEIGHTS = {8, 4, 1};
+
+    private static RNPushNotificationScheduler sInstance;
+
+    private final RNPushNotificationHelper mHelper;
+    private final RNPushNotificationConfig mConfig;
+    private final int mCapacity;
+    private final int mOverflowCapacity;
+    // Batches on the overflows of all lanes
+    private int mOverflowSize;
+    private final int mWorkerCount;
+    private final int[] mWeights;
+    private final int[] mCredits;
+    private final Lane[] mLanes;
+    // Ids of the batches being rendered
+    private final SparseBooleanArray mRendering = new SparseBooleanArray();
+    private boolean mWorkersStarted;
+
+    static synchronized RNPushNotificationScheduler getInstance(Application context) {
+        if (sInstance == null) {
+            sInstance = new RNPushNotificationScheduler(context);
+        }
+        return sInstance;
+    }
+
+    private RNPushNotificationScheduler(Application context) {
+        mHelper = new RNPushNotificationHelper(context);
+        mConfig = new RNPushNotificationConfig(context);
+        mCapacity = Math.max(1, mConfig.getNotificationLaneCapacity());
+        mOverflowCapacity = Math.max(0, mConfig.getNotificationLaneOverflow());
+        mWorkerCount = Math.max(1, mConfig.getNotificationLaneWorkers());
+        mWeights = parseWeights(mConfig.getNotificationLaneWeights());
+        mCredits = mWeights.clone();
+        mLanes = new Lane[LANE_NAMES.length];
+        for (int i = 0; i < mLanes.length; i++) {
+            mLanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * Queues the notification on the lane of its type.
+     *
+     * @param pushMessage the typed fields of a compact push, or null
+     */
+    void submit(Bundle bundle, PushMessage pushMessage) {
+        int lane = laneFor(bundle, pushMessage);
+        Entry entry = new Entry(lane, postedIdOf(bundle, pushMessage), bundle, pushMessage, System.nanoTime());
+
+        boolean overflowed = false;
+        Entry dropped = null;
+        synchronized (this) {
+            Lane l = mLanes[lane];
+            l.enqueued++;
+            if (l.queue.size() < mCapacity) {
+                l.queue.addLast(entry);
+            } else if (coalesce(l, entry)) {
+                l.coalesced++;
+            } else {
+                if (mOverflowSize >= mOverflowCapacity) {
+                    dropped = shed(entry);
+                }
+                if (dropped != entry) {
+                    l.overflow.addLast(entry);
+                    l.overflowed++;
+                    mOverflowSize++;
+                    overflowed = true;
+                }
+            }
+            startWorkersIfNeeded();
+            notifyAll();
+        }
+
+        if (overflowed) {
+            Log.w(LOG_TAG, "Notification lane " + LANE_NAMES[lane] + " is full, queueing notification " + bundle.getString("id") + " on its overflow");
+            RNPushNotificationFlightRecorder.record(RNPushNotificationFlightRecorder.EVENT_OVERFLOWED,
+                    bundle.getString("id"), RNPushNotificationPayload.parseInt(bundle.getString("notification_type")));
+        }
+        for (Entry e = dropped; e != null; e = e.next) {
+            Log.w(LOG_TAG, "Notification lanes are full, dropping notification " + e.bundle.getString("id") + " of lane " + LANE_NAMES[e.lane]);
+            RNPushNotificationFlightRecorder.record(RNPushNotificationFlightRecorder.EVENT_DROPPED,
+                    e.bundle.getString("id"), RNPushNotificationPayload.parseInt(e.bundle.getString("notification_type")));
+            RNPushNotificationTrace.endAsyncSection(RNPushNotificationTrace.PUSH,
+                    RNPushNotificationPayload.parseInt(e.bundle.getString("id")));
+        }
+    }
+
+    /**
+     * Makes room on the overflows for the entry by removing the oldest overflowing batch of the
+     * lowest lane, no higher than the entry's, that has one. Must hold the lock.
+     *
+     * @return the removed batch, or the entry itself if nothing overflows in its lane or a lower
+     * one
+     */
+    private Entry shed(Entry entry) {
+        Entry batch = null;
+        for (int i = mLanes.length - 1; i >= entry.lane && batch == null; i--) {
+            batch = mLanes[i].overflow.pollFirst();
+        }
+        if (batch != null) {
+            mOverflowSize--;
+        } else {
+            batch = entry;
+        }
+        for (Entry e = batch; e != null; e = e.next) {
+            mLanes[e.lane].dropped++;
+        }
+        return batch;
+    }
+
+    synchronized WritableMap getMetrics() {
+        WritableMap metrics = Arguments.createMap();
+        for (int i = 0; i < mLanes.length; i++) {
+            Lane l = mLanes[i];
+            WritableMap lane = Arguments.createMap();
+            lane.putInt("weight", mWeights[i]);
+            lane.putInt("queued", l.queue.size() + l.overflow.size());
+            lane.putDouble("enqueued", l.enqueued);
+            lane.putDouble("rendered", l.rendered);
+            lane.putDouble("coalesced", l.coalesced);
+            lane.putDouble("overflowed", l.overflowed);
+            lane.putDouble("dropped", l.dropped);
+            lane.putDouble("avgLatencyMs", l.rendered == 0 ? 0 : l.totalLatencyNanos / 1e6 / l.rendered);
+            lane.putDouble("maxLatencyMs", l.maxLatencyNanos / 1e6);
+            metrics.putMap(LANE_NAMES[i], lane);
+        }
+        return metrics;
+    }
+
+    private int laneFor(Bundle bundle, PushMessage pushMessage) {
+        int notificationType;
+        if (pushMessage != null) {
+            notificationType = pushMessage.getNotificationType();
+        } else {
+            try {
+                String notificationTypeString = bundle.getString("notification_type");
+                notificationType = notificationTypeString == null ? 0 : Integer.parseInt(notificationTypeString);
+            } catch (NumberFormatException e) {
+                return LANE_NORMAL;
+            }
+        }
+
+        String configured = mConfig.getNotificationLane(notificationType);
+        if (configured != null) {
+            for (int i = 0; i < LANE_NAMES.length; i++) {
+                if (LANE_NAMES[i].equalsIgnoreCase(configured)) {
+                    return i;
+                }
+            }
+            Log.w(LOG_TAG, "Unknown notification lane " + configured + " for type " + notificationType);
+        }
+
+        switch (notificationType) {
+            case RNPushNotificationHelper.RB_WAGER_MSG_TYPE:
+                return LANE_HIGH;
+            case RNPushNotificationHelper.RB_GROUP_MSG_TYPE:
+                return LANE_LOW;
+            default:
+                return LANE_NORMAL;
+        }
+    }
+
+    /**
+     * The id the notification will be posted with, see
+     * {@link com.dieam.reactnativepushnotification.core.Grouping#postedId}.
+     */
+    private static int postedIdOf(Bundle bundle, PushMessage pushMessage) {
+        if (pushMessage != null && pushMessage.hasBundleId()) {
+            return pushMessage.getBundleId();
+        }
+        String bundleId = bundle.getString("bundle_id");
+        if (bundleId != null) {
+            return RNPushNotificationPayload.parseInt(bundleId);
+        }
+        return pushMessage != null && pushMessage.hasId() ? pushMessage.getId()
+                : RNPushNotificationPayload.parseInt(bundle.getString("id"));
+    }
+
+    /**
+     * Adds the entry to the last queued batch of its id, which keeps it after the messages
+     * submitted before it. The overflow holds the newest batches, so it is searched first. Must
+     * hold the lock.
+     *
+     * @return false if no batch of the id is queued
+     */
+    private boolean coalesce(Lane lane, Entry entry) {
+        return coalesce(lane.overflow, entry) || coalesce(lane.queue, entry);
+    }
+
+    private static boolean coalesce(ArrayDeque<Entry> queue, Entry entry) {
+        Iterator<Entry> batches = queue.descendingIterator();
+        while (batches.hasNext()) {
+            Entry batch = batches.next();
+            if (batch.postedId == entry.postedId) {
+                batch.last.next = entry;
+                batch.last = entry;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void startWorkersIfNeeded() {
+        if (mWorkersStarted) {
+            return;
+        }
+        mWorkersStarted = true;
+        for (int i = 0; i < mWorkerCount; i++) {
+            Thread worker = new Thread(new Runnable() {
+                public void run() {
+                    drain();
+                }
+            }, "RNPushNotificationScheduler-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Entry batch;
+            synchronized (this) {
+                while ((batch = takeNext()) == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                mRendering.put(batch.postedId, true);
+            }
+            try {
+                for (Entry entry = batch; entry != null; entry = entry.next) {
+                    render(entry);
+                }
+            } finally {
+                synchronized (this) {
+                    mRendering.delete(batch.postedId);
+                    // A batch of the same id may be waiting for this one
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the next batch by weighted round robin, skipping batches whose id is being rendered
+     * by another worker. A lane's overflow is read after the lane, and its oldest batch moves up
+     * into the room left in the lane. Must hold the lock.
+     *
+     * @return null if nothing can be rendered now
+     */
+    private Entry takeNext() {
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < mLanes.length; i++) {
+                if (mCredits[i] == 0) {
+                    continue;
+                }
+                Lane lane = mLanes[i];
+                Entry batch = takeRenderable(lane.queue);
+                if (batch == null) {
+                    batch = takeRenderable(lane.overflow);
+                    if (batch != null) {
+                        mOverflowSize--;
+                    }
+                }
+                if (batch != null) {
+                    while (lane.queue.size() < mCapacity && !lane.overflow.isEmpty()) {
+                        lane.queue.addLast(lane.overflow.pollFirst());
+                        mOverflowSize--;
+                    }
+                    mCredits[i]--;
+                    return batch;
+                }
+            }
+            // Every lane with something to render has spent its share for this round
+            System.arraycopy(mWeights, 0, mCredits, 0, mWeights.length);
+        }
+        return null;
+    }
+
+    private Entry takeRenderable(ArrayDeque<Entry> queue) {
+        Iterator<Entry> batches = queue.iterator();
+        while (batches.hasNext()) {
+            Entry batch = batches.next();
+            if (!mRendering.get(batch.postedId)) {
+                batches.remove();
+                return batch;
+            }
+        }
+        return null;
+    }
+
+    private void render(Entry entry) {
+        try {
+            mHelper.sendToNotificationCentre(entry.bundle, entry.pushMessage);
+        } catch (Exception e) {
+            Log.e(LOG_TAG, "failed to render queued notification", e);
+        }
+
+        long latency = System.nanoTime() - entry.enqueuedAt;
+        synchronized (this) {
+            Lane l = mLanes[entry.lane];
+            l.rendered++;
+            l.totalLatencyNanos += latency;
+            if (latency > l.maxLatencyNanos) {
+                l.maxLatencyNanos = latency;
+            }
+        }
+    }
+
+    private static int[] parseWeights(String weightsString) {
+        int[] weights = DEFAULT_WEIGHTS.clone();
+        if (weightsString == null) {
+            return weights;
+        }
+
+        String[] parts = weightsString.split(",");
+        for (int i = 0; i < parts.length && i < weights.length; i++) {
+            try {
+                weights[i] = Math.max(1, Integer.parseInt(parts[i].trim()));
+            } catch (NumberFormatException e) {
+                Log.w(LOG_TAG, "Invalid notification lane weight " + parts[i]);
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * A queued notification, and the head of the batch of notifications with the same posted id
+     * that joined it while the lane was full.
+     */
+    private static class Entry {
+        final int lane;
+        final int postedId;
+        final Bundle bundle;
+        final PushMessage pushMessage;
+        final long enqueuedAt;
+        Entry next;
+        Entry last = this;
+
+        Entry(int lane, int postedId, Bundle bundle, PushMessage pushMessage, long enqueuedAt) {
+            this.lane = lane;
+            this.postedId = postedId;
+            this.bundle = bundle;
+            this.pushMessage = pushMessage;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    private static class Lane {
+        final ArrayDeque<Entry> queue = new ArrayDeque<>();
+        // Batches that arrived while the lane was full, oldest first
+        final ArrayDeque<Entry> overflow = new ArrayDeque<>();
+        long enqueued;
+        long rendered;
+        long coalesced;
+        long overflowed;
+        long dropped;
+        long totalLatencyNanos;
+        long maxLatencyNanos;
+    }
+}
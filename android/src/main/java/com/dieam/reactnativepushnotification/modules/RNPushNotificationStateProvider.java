@@ -0,0 +1,201 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.app.Application;
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.util.Log;
+
+import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
+
+/**
+ * Runs the notification state operations the main process forwards with the push process
+ * enabled, see {@link RNPushNotificationProcess}. The library declares it unexported in
+ * {@code :push}, which makes the push process the only one that changes the notification state.
+ * Nothing calls it with the push process disabled, so that process is never started then.
+ */
+public class RNPushNotificationStateProvider extends ContentProvider {
+    static final String METHOD_PRESENT = "present";
+    static final String METHOD_SCHEDULE = "schedule";
+    static final String METHOD_RENDER = "render";
+    static final String METHOD_CLEAR = "clear";
+    static final String METHOD_CLEAR_ALL = "clearAll";
+    static final String METHOD_CLEAR_ENTITY = "clearEntity";
+    static final String METHOD_DISMISSED = "dismissed";
+    static final String METHOD_TAPPED = "tapped";
+    static final String METHOD_HISTORY = "history";
+    static final String METHOD_CANCEL = "cancel";
+    static final String METHOD_CANCEL_ALL = "cancelAll";
+    static final String METHOD_DELIVERED = "delivered";
+    static final String METHOD_TAKE_PENDING = "takePending";
+
+    static final String EXTRA_EVENT = "rnpnEvent";
+    private static final String EXTRA_NOTIFICATION_ID = "notificationId";
+    private static final String EXTRA_NOTIFICATION_TYPE = "notificationType";
+    private static final String EXTRA_ENTITY_ID = "entityId";
+    private static final String EXTRA_TITLES = "titles";
+    private static final String EXTRA_MESSAGES = "messages";
+    private static final String EXTRA_COUNTS = "counts";
+    private static final String EXTRA_POST_TIMES = "postTimes";
+    private static final String EXTRA_PUSHES = "pushes";
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    @Override
+    public Bundle call(String method, String arg, Bundle extras) {
+        Application applicationContext = (Application) getContext().getApplicationContext();
+        if (!RNPushNotificationProcess.isPushProcess(applicationContext)) {
+            Log.w(LOG_TAG, "RNPushNotificationStateProvider should be declared with android:process=\":push\"");
+        }
+        RNPushNotificationHelper helper = new RNPushNotificationHelper(applicationContext, false);
+        switch (method) {
+            case METHOD_PRESENT:
+                helper.presentLocalNotification(extras);
+                return null;
+            case METHOD_SCHEDULE:
+                helper.scheduleLocalNotification(extras);
+                return null;
+            case METHOD_RENDER:
+                helper.sendToNotificationCentre(extras);
+                return null;
+            case METHOD_CLEAR:
+                helper.clearNotification(extras.getInt(EXTRA_NOTIFICATION_ID));
+                return null;
+            case METHOD_CLEAR_ALL:
+                helper.clearNotifications();
+                return null;
+            case METHOD_CLEAR_ENTITY:
+                helper.clearNotificationsForEntity(extras.getInt(EXTRA_NOTIFICATION_TYPE), extras.getInt(EXTRA_ENTITY_ID));
+                return null;
+            case METHOD_DISMISSED:
+                helper.onNotificationDismissed(extras.getInt(EXTRA_NOTIFICATION_ID));
+                return null;
+            case METHOD_TAPPED:
+                helper.onNotificationTapped(extras);
+                return null;
+            case METHOD_HISTORY:
+                helper.recordHistory(extras.getInt(EXTRA_EVENT), extras);
+                return null;
+            case METHOD_CANCEL:
+                helper.cancelScheduledNotifications(extras);
+                return null;
+            case METHOD_CANCEL_ALL:
+                helper.cancelAllScheduledNotifications();
+                return null;
+            case METHOD_DELIVERED:
+                return toBundle(helper.getDeliveredNotifications());
+            case METHOD_TAKE_PENDING:
+                Bundle pending = new Bundle();
+                pending.putStringArray(EXTRA_PUSHES, RNPushNotificationPendingPushes.getInstance(applicationContext).take());
+                return pending;
+            default:
+                Log.w(LOG_TAG, "Unknown notification state operation " + method);
+                return null;
+        }
+    }
+
+    static Bundle notificationExtras(int notificationID) {
+        Bundle extras = new Bundle();
+        extras.putInt(EXTRA_NOTIFICATION_ID, notificationID);
+        return extras;
+    }
+
+    static Bundle entityExtras(int notificationType, int entityId) {
+        Bundle extras = new Bundle();
+        extras.putInt(EXTRA_NOTIFICATION_TYPE, notificationType);
+        extras.putInt(EXTRA_ENTITY_ID, entityId);
+        return extras;
+    }
+
+    private static Bundle toBundle(RNPushNotificationDeliveredSnapshot.Entry[] entries) {
+        int[] ids = new int[entries.length];
+        int[] types = new int[entries.length];
+        int[] entityIds = new int[entries.length];
+        String[] titles = new String[entries.length];
+        String[] messages = new String[entries.length];
+        int[] counts = new int[entries.length];
+        long[] postTimes = new long[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            RNPushNotificationDeliveredSnapshot.Entry entry = entries[i];
+            ids[i] = entry.id;
+            types[i] = entry.type;
+            entityIds[i] = entry.entityId;
+            titles[i] = entry.title;
+            messages[i] = entry.message;
+            counts[i] = entry.count;
+            postTimes[i] = entry.postTime;
+        }
+        Bundle bundle = new Bundle();
+        bundle.putIntArray(EXTRA_NOTIFICATION_ID, ids);
+        bundle.putIntArray(EXTRA_NOTIFICATION_TYPE, types);
+        bundle.putIntArray(EXTRA_ENTITY_ID, entityIds);
+        bundle.putStringArray(EXTRA_TITLES, titles);
+        bundle.putStringArray(EXTRA_MESSAGES, messages);
+        bundle.putIntArray(EXTRA_COUNTS, counts);
+        bundle.putLongArray(EXTRA_POST_TIMES, postTimes);
+        return bundle;
+    }
+
+    /**
+     * @param bundle the result of {@link #METHOD_DELIVERED}, null if the push process couldn't be
+     *               reached
+     */
+    static RNPushNotificationDeliveredSnapshot.Entry[] toEntries(Bundle bundle) {
+        if (bundle == null || bundle.getIntArray(EXTRA_NOTIFICATION_ID) == null) {
+            return new RNPushNotificationDeliveredSnapshot.Entry[0];
+        }
+        int[] ids = bundle.getIntArray(EXTRA_NOTIFICATION_ID);
+        int[] types = bundle.getIntArray(EXTRA_NOTIFICATION_TYPE);
+        int[] entityIds = bundle.getIntArray(EXTRA_ENTITY_ID);
+        String[] titles = bundle.getStringArray(EXTRA_TITLES);
+        String[] messages = bundle.getStringArray(EXTRA_MESSAGES);
+        int[] counts = bundle.getIntArray(EXTRA_COUNTS);
+        long[] postTimes = bundle.getLongArray(EXTRA_POST_TIMES);
+        RNPushNotificationDeliveredSnapshot.Entry[] entries = new RNPushNotificationDeliveredSnapshot.Entry[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            entries[i] = new RNPushNotificationDeliveredSnapshot.Entry(ids[i], types[i], entityIds[i],
+                    titles[i], messages[i], counts[i], postTimes[i]);
+        }
+        return entries;
+    }
+
+    /**
+     * @param bundle the result of {@link #METHOD_TAKE_PENDING}, null if the push process couldn't
+     *               be reached
+     * @return the JSON of the pending pushes, oldest first
+     */
+    static String[] toPushes(Bundle bundle) {
+        String[] pushes = bundle != null ? bundle.getStringArray(EXTRA_PUSHES) : null;
+        return pushes != null ? pushes : new String[0];
+    }
+
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        return null;
+    }
+
+    @Override
+    public String getType(Uri uri) {
+        return null;
+    }
+
+    @Override
+    public Uri insert(Uri uri, ContentValues values) {
+        return null;
+    }
+
+    @Override
+    public int delete(Uri uri, String selection, String[] selectionArgs) {
+        return 0;
+    }
+
+    @Override
+    public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+        return 0;
+    }
+}
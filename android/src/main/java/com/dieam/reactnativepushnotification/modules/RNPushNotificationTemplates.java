@@ -0,0 +1,143 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.util.Log;
+
+import com.dieam.reactnativepushnotification.core.Templates;
+
+import org.json.JSONException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
+
+/**
+ * The {@link Templates} pushes and local notifications can be expanded from: the table last set
+ * from JS, persisted in {@link #FILE_NAME}, or else the one shipped with the app as the
+ * {@link #ASSET_NAME} asset.
+ * <p>
+ * The table is read once per process, on the first notification that refers to a template. With
+ * the push process enabled, it is read again when the main process has set a new one: each
+ * {@link #set} stores a new random version in {@link #VERSION_PREFERENCES_KEY}, as
+ * {@link RNPushNotificationScheduleIndex} does, rather than relying on the file's modification
+ * time, which only has a one second granularity on many filesystems.
+ */
+class RNPushNotificationTemplates {
+    static final String FILE_NAME = "rn_push_notification_templates.json";
+    static final String ASSET_NAME = "rn_push_notification_templates.json";
+    static final String VERSION_PREFERENCES_KEY = "rn_push_notification_templates_version";
+    private static final String KEY_VERSION = "version";
+
+    private static final Random sRandom = new Random();
+    private static Templates sTemplates;
+    private static long sLoadedVersion;
+
+    private RNPushNotificationTemplates() {
+    }
+
+    /**
+     * Expands the template the notification refers to, if any.
+     */
+    static void expand(Context context, Bundle bundle) {
+        if (!bundle.containsKey(Templates.KEY_TEMPLATE)) {
+            return;
+        }
+        if (!get(context).expand(new RNPushNotificationBundleFields(bundle))) {
+            Log.w(LOG_TAG, "Unknown notification template " + bundle.getString(Templates.KEY_TEMPLATE));
+        }
+    }
+
+    static synchronized Templates get(Context context) {
+        Context applicationContext = context.getApplicationContext();
+        if (sTemplates != null && RNPushNotificationProcess.isEnabled(applicationContext)
+                && version(applicationContext) != sLoadedVersion) {
+            sTemplates = null;
+        }
+        if (sTemplates == null) {
+            sLoadedVersion = version(applicationContext);
+            sTemplates = load(applicationContext, new File(applicationContext.getFilesDir(), FILE_NAME));
+        }
+        return sTemplates;
+    }
+
+    /**
+     * Replaces the table, for this and later launches.
+     */
+    static synchronized void set(Context context, String json) throws JSONException, IOException {
+        Templates templates = Templates.parse(json);
+
+        Context applicationContext = context.getApplicationContext();
+        File file = new File(applicationContext.getFilesDir(), FILE_NAME);
+        File temporary = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temporary);
+        try {
+            out.write(json.getBytes("UTF-8"));
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!temporary.renameTo(file)) {
+            throw new IOException("Unable to replace " + file);
+        }
+
+        sTemplates = templates;
+        writeVersion(applicationContext);
+    }
+
+    private static long version(Context context) {
+        return RNPushNotificationProcess.getSharedPreferences(context, VERSION_PREFERENCES_KEY).getLong(KEY_VERSION, 0);
+    }
+
+    /**
+     * Must hold the lock. The version is stored after the file was replaced, so a process that
+     * sees it reads the new table.
+     */
+    private static void writeVersion(Context context) {
+        long version = sRandom.nextLong();
+        SharedPreferences.Editor editor = RNPushNotificationProcess.getSharedPreferences(context, VERSION_PREFERENCES_KEY).edit();
+        editor.putLong(KEY_VERSION, version);
+        editor.apply();
+        sLoadedVersion = version;
+    }
+
+    private static Templates load(Context context, File file) {
+        try {
+            InputStream in;
+            try {
+                in = new FileInputStream(file);
+            } catch (FileNotFoundException e) {
+                in = context.getAssets().open(ASSET_NAME);
+            }
+            return Templates.parse(readFully(in));
+        } catch (FileNotFoundException e) {
+            // Neither set from JS nor shipped with the app
+            return Templates.empty();
+        } catch (IOException | JSONException e) {
+            Log.e(LOG_TAG, "Unable to load the notification templates", e);
+            return Templates.empty();
+        }
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.util.Log;
+
+import com.google.android.gms.gcm.GoogleCloudMessaging;
+import com.google.android.gms.iid.InstanceID;
+
+import java.io.IOException;
+
+import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
+
+/**
+ * Persisted registration token, so {@code requestPermissions} only goes to the network on first
+ * run, when the sender id or app version changes, or once the token is older than the
+ * {@code token_validity_days} manifest meta-data (7 days by default).
+ * <p>
+ * Fetches are single-flight per sender id: while one is in flight, further requests just wait for
+ * its {@code RNPushNotificationRegisteredToken} broadcast instead of starting another network
+ * round-trip, and a {@link #fetch(String)} that overlaps another one for the same sender waits
+ * for it and returns the token it cached.
+ * <p>
+ * When FCM rotates the token, {@link #invalidate(Context)} records the time in a file of its own,
+ * and a token fetched before that time is no longer served. The listener service may run in the
+ * push process, so the two files each have a single writing process: the token is written where
+ * it's fetched, the rotation where the listener runs.
+ */
+class RNPushNotificationTokenCache {
+    static final String PREFERENCES_KEY = "rn_push_notification_token";
+    static final String ROTATION_PREFERENCES_KEY = "rn_push_notification_token_rotation";
+    private static final String KEY_ROTATED_AT = "rotatedAt";
+    private static final String KEY_TOKEN = "token";
+    private static final String KEY_SENDER_ID = "senderID";
+    private static final String KEY_APP_VERSION = "appVersion";
+    private static final String KEY_FETCHED_AT = "fetchedAt";
+    private static final long ONE_DAY = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Where tokens come from. Replaceable so the cache can be exercised without Google Play
+     * services.
+     */
+    interface TokenProvider {
+        String getToken(Context context, String senderID) throws IOException;
+    }
+
+    /**
+     * Where the fetch, expiry and rotation times come from. Replaceable so tests don't depend on
+     * the wall clock moving between two calls.
+     */
+    interface Clock {
+        long currentTimeMillis();
+    }
+
+    private static final TokenProvider INSTANCE_ID_PROVIDER = new TokenProvider() {
+        @Override
+        public String getToken(Context context, String senderID) throws IOException {
+            return InstanceID.getInstance(context).getToken(senderID, GoogleCloudMessaging.INSTANCE_ID_SCOPE, null);
+        }
+    };
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    private static RNPushNotificationTokenCache sInstance;
+    private static TokenProvider sTokenProvider = INSTANCE_ID_PROVIDER;
+    private static Clock sClock = SYSTEM_CLOCK;
+
+    private final Context mContext;
+    private final SharedPreferences mPreferences;
+    private long mValidityMs = -1;
+    private int mAppVersion = -1;
+    private String mInFlightSenderID;
+    // Sender whose token provider call is running in fetch()
+    private String mFetchingSenderID;
+
+    static synchronized RNPushNotificationTokenCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new RNPushNotificationTokenCache(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    static synchronized void setTokenProvider(TokenProvider tokenProvider) {
+        sTokenProvider = tokenProvider != null ? tokenProvider : INSTANCE_ID_PROVIDER;
+    }
+
+    static synchronized void setClock(Clock clock) {
+        sClock = clock != null ? clock : SYSTEM_CLOCK;
+    }
+
+    private static synchronized long now() {
+        return sClock.currentTimeMillis();
+    }
+
+    /**
+     * Called when FCM issued a new token: the cached one is no longer served, so the next
+     * {@code requestPermissions} fetches it.
+     */
+    static void invalidate(Context context) {
+        SharedPreferences.Editor editor = RNPushNotificationProcess.getSharedPreferences(
+                context.getApplicationContext(), ROTATION_PREFERENCES_KEY).edit();
+        editor.putLong(KEY_ROTATED_AT, now());
+        editor.apply();
+    }
+
+    private RNPushNotificationTokenCache(Context context) {
+        mContext = context;
+        // Starts loading the file in the background
+        mPreferences = context.getSharedPreferences(PREFERENCES_KEY, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * @return the cached token of the sender, or null when there is none or it has expired
+     */
+    synchronized String getCachedToken(String senderID) {
+        String token = mPreferences.getString(KEY_TOKEN, null);
+        if (token == null || senderID == null || !senderID.equals(mPreferences.getString(KEY_SENDER_ID, null))) {
+            return null;
+        }
+        if (mPreferences.getInt(KEY_APP_VERSION, -1) != getAppVersion()) {
+            // Tokens may be rotated on app update
+            return null;
+        }
+        long fetchedAt = mPreferences.getLong(KEY_FETCHED_AT, 0);
+        long age = now() - fetchedAt;
+        if (age < 0 || age >= getValidityMs()) {
+            return null;
+        }
+        // Written by the process of the listener service, so fetched again for each call
+        long rotatedAt = RNPushNotificationProcess.getSharedPreferences(mContext, ROTATION_PREFERENCES_KEY)
+                .getLong(KEY_ROTATED_AT, 0);
+        if (rotatedAt >= fetchedAt) {
+            return null;
+        }
+        return token;
+    }
+
+    /**
+     * @return true if the caller should start a fetch, false if one for the sender is in flight
+     */
+    synchronized boolean beginFetch(String senderID) {
+        if (senderID != null && senderID.equals(mInFlightSenderID)) {
+            return false;
+        }
+        mInFlightSenderID = senderID;
+        return true;
+    }
+
+    synchronized void endFetch(String senderID) {
+        if (senderID != null && senderID.equals(mInFlightSenderID)) {
+            mInFlightSenderID = null;
+        }
+    }
+
+    /**
+     * Returns the cached token, or fetches and caches a new one. Blocks on the network, so it's
+     * only called from RNPushNotificationRegistrationService's worker thread. A call made while
+     * another one for the same sender is fetching waits for it instead of fetching again. Ends
+     * the fetch started by {@link #beginFetch(String)}.
+     */
+    String fetch(String senderID) throws IOException {
+        try {
+            synchronized (this) {
+                while (senderID != null && senderID.equals(mFetchingSenderID)) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while waiting for the token fetch in flight");
+                    }
+                }
+                String token = getCachedToken(senderID);
+                if (token != null) {
+                    return token;
+                }
+                mFetchingSenderID = senderID;
+            }
+
+            String token = null;
+            try {
+                TokenProvider tokenProvider;
+                synchronized (RNPushNotificationTokenCache.class) {
+                    tokenProvider = sTokenProvider;
+                }
+                token = tokenProvider.getToken(mContext, senderID);
+            } finally {
+                synchronized (this) {
+                    if (token != null) {
+                        mPreferences.edit()
+                                .putString(KEY_TOKEN, token)
+                                .putString(KEY_SENDER_ID, senderID)
+                                .putInt(KEY_APP_VERSION, getAppVersion())
+                                .putLong(KEY_FETCHED_AT, now())
+                                .apply();
+                    }
+                    mFetchingSenderID = null;
+                    notifyAll();
+                }
+            }
+            return token;
+        } finally {
+            endFetch(senderID);
+        }
+    }
+
+    private long getValidityMs() {
+        if (mValidityMs < 0) {
+            mValidityMs = Math.max(0, new RNPushNotificationConfig(mContext).getTokenValidityDays()) * ONE_DAY;
+        }
+        return mValidityMs;
+    }
+
+    @SuppressWarnings("deprecation")
+    private int getAppVersion() {
+        if (mAppVersion < 0) {
+            try {
+                mAppVersion = mContext.getPackageManager().getPackageInfo(mContext.getPackageName(), 0).versionCode;
+            } catch (PackageManager.NameNotFoundException e) {
+                Log.w(LOG_TAG, "Unable to read the app version, cached tokens won't be invalidated on update", e);
+                mAppVersion = 0;
+            }
+        }
+        return mAppVersion;
+    }
+}
@@ -0,0 +1,259 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.messaging.FirebaseMessaging;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
+
+/**
+ * Keeps the FCM topic subscriptions in line with the set of topics JS asks for.
+ * <p>
+ * The topics subscribed through {@link #setTopics(Collection, Listener)} are persisted, so each
+ * call only subscribes to the topics that were added and unsubscribes from the ones that were
+ * removed since the last call, instead of resubscribing to every topic on every launch. The
+ * subscribe and unsubscribe calls run in parallel on a small bounded pool; calls to
+ * {@code setTopics} are applied one after the other, and so are the single topic calls of
+ * {@link #subscribe(String)} and {@link #unsubscribe(String)}, which keep the persisted set up to
+ * date too.
+ * <p>
+ * Subscriptions belong to the registration token, so when FCM issues a new one
+ * {@link #invalidate(Context)} marks the persisted set stale and the next {@code setTopics}
+ * subscribes to every topic again. The listener service may run in the push process, so the mark
+ * is a random id in a file of its own, written by the listener process only, and the set records
+ * the id it was written under.
+ */
+class RNPushNotificationTopics {
+    static final String PREFERENCES_KEY = "rn_push_notification_topics";
+    static final String TOKEN_PREFERENCES_KEY = "rn_push_notification_topics_token";
+    private static final String KEY_SUBSCRIBED = "subscribed";
+    private static final String KEY_TOKEN_ID = "tokenId";
+    private static final int MAX_CONCURRENT_CALLS = 4;
+    private static final long CALL_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Blocking subscribe and unsubscribe calls. Replaceable so the diffing can be exercised
+     * without Firebase.
+     */
+    interface Messaging {
+        void subscribe(String topic) throws Exception;
+
+        void unsubscribe(String topic) throws Exception;
+    }
+
+    interface Listener {
+        void onTopicsSet(List<String> subscribed, List<String> unsubscribed, List<String> failed);
+    }
+
+    private static final Messaging FIREBASE_MESSAGING = new Messaging() {
+        @Override
+        public void subscribe(String topic) throws Exception {
+            Tasks.await(FirebaseMessaging.getInstance().subscribeToTopic(topic), CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void unsubscribe(String topic) throws Exception {
+            Tasks.await(FirebaseMessaging.getInstance().unsubscribeFromTopic(topic), CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    };
+
+    private static RNPushNotificationTopics sInstance;
+    private static volatile Messaging sMessaging = FIREBASE_MESSAGING;
+
+    private final Context mContext;
+    private final SharedPreferences mPreferences;
+    private final ExecutorService mCoordinator = Executors.newSingleThreadExecutor();
+    private final ThreadPoolExecutor mCalls;
+
+    static synchronized RNPushNotificationTopics getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new RNPushNotificationTopics(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    static void setMessaging(Messaging messaging) {
+        sMessaging = messaging != null ? messaging : FIREBASE_MESSAGING;
+    }
+
+    /**
+     * Called when FCM issued a new token: the persisted subscriptions no longer apply.
+     */
+    static void invalidate(Context context) {
+        RNPushNotificationProcess.getSharedPreferences(context.getApplicationContext(), TOKEN_PREFERENCES_KEY)
+                .edit()
+                .putString(KEY_TOKEN_ID, UUID.randomUUID().toString())
+                .apply();
+    }
+
+    private RNPushNotificationTopics(Context context) {
+        mContext = context;
+        mPreferences = context.getSharedPreferences(PREFERENCES_KEY, Context.MODE_PRIVATE);
+        mCalls = new ThreadPoolExecutor(MAX_CONCURRENT_CALLS, MAX_CONCURRENT_CALLS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>());
+        mCalls.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Subscribes to the topics that aren't subscribed yet and unsubscribes from the subscribed
+     * topics that aren't listed. Topics whose call failed are reported and retried by the next
+     * call.
+     */
+    void setTopics(Collection<String> topics, final Listener listener) {
+        final Set<String> wanted = new HashSet<>(topics);
+        mCoordinator.execute(new Runnable() {
+            @Override
+            public void run() {
+                apply(wanted, listener);
+            }
+        });
+    }
+
+    /**
+     * Subscribes to a single topic, leaving the other subscriptions alone.
+     */
+    void subscribe(final String topic) {
+        mCoordinator.execute(new Runnable() {
+            @Override
+            public void run() {
+                Set<String> subscribed = readSubscribed();
+                try {
+                    sMessaging.subscribe(topic);
+                } catch (Exception e) {
+                    Log.w(LOG_TAG, "Unable to subscribe to topic " + topic, e);
+                    return;
+                }
+                subscribed.add(topic);
+                writeSubscribed(subscribed);
+            }
+        });
+    }
+
+    /**
+     * Unsubscribes from a single topic, leaving the other subscriptions alone.
+     */
+    void unsubscribe(final String topic) {
+        mCoordinator.execute(new Runnable() {
+            @Override
+            public void run() {
+                Set<String> subscribed = readSubscribed();
+                try {
+                    sMessaging.unsubscribe(topic);
+                } catch (Exception e) {
+                    Log.w(LOG_TAG, "Unable to unsubscribe from topic " + topic, e);
+                    return;
+                }
+                subscribed.remove(topic);
+                writeSubscribed(subscribed);
+            }
+        });
+    }
+
+    private void apply(Set<String> wanted, Listener listener) {
+        Set<String> subscribed = readSubscribed();
+
+        final List<String> toSubscribe = new ArrayList<>();
+        for (String topic : wanted) {
+            if (!subscribed.contains(topic)) {
+                toSubscribe.add(topic);
+            }
+        }
+        final List<String> toUnsubscribe = new ArrayList<>();
+        for (String topic : subscribed) {
+            if (!wanted.contains(topic)) {
+                toUnsubscribe.add(topic);
+            }
+        }
+
+        final List<String> added = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> removed = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> failed = Collections.synchronizedList(new ArrayList<String>());
+        final Messaging messaging = sMessaging;
+        final CountDownLatch done = new CountDownLatch(toSubscribe.size() + toUnsubscribe.size());
+
+        for (final String topic : toSubscribe) {
+            mCalls.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        messaging.subscribe(topic);
+                        added.add(topic);
+                    } catch (Exception e) {
+                        Log.w(LOG_TAG, "Unable to subscribe to topic " + topic, e);
+                        failed.add(topic);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        for (final String topic : toUnsubscribe) {
+            mCalls.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        messaging.unsubscribe(topic);
+                        removed.add(topic);
+                    } catch (Exception e) {
+                        Log.w(LOG_TAG, "Unable to unsubscribe from topic " + topic, e);
+                        failed.add(topic);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Every call has completed, the lists are no longer written to
+        subscribed.addAll(added);
+        subscribed.removeAll(removed);
+        writeSubscribed(subscribed);
+
+        listener.onTopicsSet(new ArrayList<>(added), new ArrayList<>(removed), new ArrayList<>(failed));
+    }
+
+    /**
+     * @return the persisted subscriptions, or none if they were made with a previous token
+     */
+    private Set<String> readSubscribed() {
+        if (!tokenId().equals(mPreferences.getString(KEY_TOKEN_ID, ""))) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(mPreferences.getStringSet(KEY_SUBSCRIBED, Collections.<String>emptySet()));
+    }
+
+    private void writeSubscribed(Set<String> subscribed) {
+        mPreferences.edit()
+                .putStringSet(KEY_SUBSCRIBED, subscribed)
+                .putString(KEY_TOKEN_ID, tokenId())
+                .apply();
+    }
+
+    // Written by the process of the listener service, so fetched again for each call
+    private String tokenId() {
+        return RNPushNotificationProcess.getSharedPreferences(mContext, TOKEN_PREFERENCES_KEY).getString(KEY_TOKEN_ID, "");
+    }
+}
@@ -0,0 +1,107 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Trace;
+import android.util.Log;
+import android.util.SparseIntArray;
+
+import java.lang.reflect.Method;
+
+import static com.dieam.reactnativepushnotification.modules.RNPushNotification.LOG_TAG;
+
+/**
+ * Optional systrace/Perfetto markers for the push pipeline, enabled with the
+ * {@code trace_sections} manifest meta-data.
+ * <p>
+ * Synchronous sections ({@code RNPN:parse}, {@code RNPN:resources}, {@code RNPN:build}, ...) show
+ * where time goes on each thread. The {@code RNPN:push} async slice, keyed by notification id,
+ * spans the whole journey of a push from receipt to {@code notify} even when it hops threads. Its
+ * cookie is the numeric id, see {@link RNPushNotificationPayload#parseInt(String)}.
+ * <p>
+ * Async slices are only public API from Android Q, so they go through reflection like
+ * {@code TraceCompat} does. Whether tracing is on is decided once per process so that sections
+ * always stay balanced. The paths that end the slice are shared with local and scheduled
+ * notifications, which never began one, so only the slices begun in this process are ended.
+ */
+final class RNPushNotificationTrace {
+    static final String PUSH = "RNPN:push";
+
+    private static volatile boolean sConfigured;
+    private static boolean sEnabled;
+    private static Method sAsyncBegin;
+    private static Method sAsyncEnd;
+    private static long sTraceTagApp;
+    // Number of slices begun and not yet ended, by cookie
+    private static final SparseIntArray sOpenAsyncSections = new SparseIntArray();
+
+    private RNPushNotificationTrace() {
+    }
+
+    static synchronized void configure(Context context) {
+        if (sConfigured) {
+            return;
+        }
+        sEnabled = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2
+                && new RNPushNotificationConfig(context).getTraceSectionsEnabled();
+        if (sEnabled) {
+            try {
+                sTraceTagApp = Trace.class.getField("TRACE_TAG_APP").getLong(null);
+                sAsyncBegin = Trace.class.getMethod("asyncTraceBegin", long.class, String.class, int.class);
+                sAsyncEnd = Trace.class.getMethod("asyncTraceEnd", long.class, String.class, int.class);
+            } catch (Exception e) {
+                Log.w(LOG_TAG, "Async trace sections are unavailable", e);
+            }
+        }
+        sConfigured = true;
+    }
+
+    static void beginSection(String name) {
+        if (sEnabled) {
+            Trace.beginSection(name);
+        }
+    }
+
+    static void endSection() {
+        if (sEnabled) {
+            Trace.endSection();
+        }
+    }
+
+    static void beginAsyncSection(String name, int cookie) {
+        if (sEnabled && sAsyncBegin != null) {
+            synchronized (sOpenAsyncSections) {
+                sOpenAsyncSections.put(cookie, sOpenAsyncSections.get(cookie) + 1);
+            }
+            try {
+                sAsyncBegin.invoke(null, sTraceTagApp, name, cookie);
+            } catch (Exception e) {
+                sAsyncBegin = null;
+            }
+        }
+    }
+
+    /**
+     * Ends the slice of the cookie if one was begun, does nothing otherwise.
+     */
+    static void endAsyncSection(String name, int cookie) {
+        if (sEnabled && sAsyncEnd != null) {
+            synchronized (sOpenAsyncSections) {
+                int open = sOpenAsyncSections.get(cookie);
+                if (open == 0) {
+                    return;
+                }
+                if (open == 1) {
+                    sOpenAsyncSections.delete(cookie);
+                } else {
+                    sOpenAsyncSections.put(cookie, open - 1);
+                }
+            }
+            try {
+                sAsyncEnd.invoke(null, sTraceTagApp, name, cookie);
+            } catch (Exception e) {
+                sAsyncEnd = null;
+            }
+        }
+    }
+}
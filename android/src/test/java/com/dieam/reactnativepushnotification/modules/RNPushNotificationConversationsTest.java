@@ -0,0 +1,192 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.app.Activity;
+import android.app.Application;
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Bundle;
+import android.service.notification.StatusBarNotification;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowPackageManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Group chat messages delivered concurrently, as the FCM and GCM listeners and the publisher do,
+ * must all end up in the conversation of their notification, in the order each sender delivered
+ * them.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class RNPushNotificationConversationsTest {
+    private static final int THREADS = 8;
+    private static final int MESSAGES_PER_THREAD = 50;
+    private static final int CONVERSATIONS = 3;
+
+    private Application mApplication;
+    private RNPushNotificationHelper mHelper;
+    private NotificationManager mNotificationManager;
+
+    @Before
+    public void setUp() throws Exception {
+        mApplication = RuntimeEnvironment.application;
+        // getMainActivityClass() resolves the launcher activity of the package
+        ShadowPackageManager packageManager = shadowOf(mApplication.getPackageManager());
+        ComponentName launcher = new ComponentName(mApplication, Activity.class);
+        packageManager.addActivityIfNotPresent(launcher);
+        IntentFilter filter = new IntentFilter(Intent.ACTION_MAIN);
+        filter.addCategory(Intent.CATEGORY_LAUNCHER);
+        packageManager.addIntentFilterForActivity(launcher, filter);
+
+        mHelper = new RNPushNotificationHelper(mApplication);
+        mNotificationManager = (NotificationManager) mApplication.getSystemService(Context.NOTIFICATION_SERVICE);
+    }
+
+    @After
+    public void tearDown() {
+        // The conversations and the other indexes are process-wide
+        mHelper.clearNotifications();
+    }
+
+    @Test
+    public void concurrentAppendsAreNotLost() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < MESSAGES_PER_THREAD; i++) {
+                            send(2000 + i % CONVERSATIONS, "t" + thread, thread + ":" + i, thread * MESSAGES_PER_THREAD + i);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(String.valueOf(failure.get()), failure.get());
+
+        int total = 0;
+        for (int c = 0; c < CONVERSATIONS; c++) {
+            ArrayList<String> messages = messagesOf(2000 + c);
+            assertNotNull("No notification for conversation " + c, messages);
+            total += messages.size();
+
+            // Each sender's messages keep their order within the conversation
+            Map<String, Integer> last = new HashMap<>();
+            for (String message : messages) {
+                String[] parts = message.split(":");
+                int index = Integer.parseInt(parts[1]);
+                Integer previous = last.put(parts[0], index);
+                assertTrue(message + " after " + previous, previous == null || previous < index);
+                assertEquals(c, index % CONVERSATIONS);
+            }
+        }
+        assertEquals(THREADS * MESSAGES_PER_THREAD, total);
+    }
+
+    @Test
+    public void appendsToWhatWasRenderedWhileTheTrayLags() {
+        send(3000, "a", "first", 1);
+        // What getActiveNotifications() returns until the system server applies the first post
+        Notification stale = new Notification.Builder(mApplication, RNPushNotificationChannels.DEFAULT_CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.ic_dialog_info)
+                .build();
+        mNotificationManager.notify(3000, stale);
+
+        send(3000, "b", "second", 2);
+
+        assertEquals(list("first", "second"), messagesOf(3000));
+    }
+
+    @Test
+    public void restoresTheConversationFromTheTray() {
+        send(4000, "a", "first", 1);
+        // A new process only has what is in the tray
+        RNPushNotificationConversations.clear();
+
+        send(4000, "b", "second", 2);
+
+        assertEquals(list("first", "second"), messagesOf(4000));
+    }
+
+    @Test
+    public void dismissedConversationStartsOver() {
+        send(5000, "a", "first", 1);
+        mNotificationManager.cancel(5000);
+        mHelper.onNotificationDismissed(5000);
+
+        send(5000, "b", "second", 2);
+
+        assertEquals(list("second"), messagesOf(5000));
+    }
+
+    private void send(int groupId, String sender, String chatMessage, int sequence) {
+        Map<String, String> data = new HashMap<>();
+        data.put("id", String.valueOf(100000 + sequence));
+        data.put("notification_type", String.valueOf(RNPushNotificationHelper.RB_GROUP_MSG_TYPE));
+        data.put("group_id", String.valueOf(groupId));
+        data.put("bundle_id", String.valueOf(groupId));
+        data.put("bundle_title", "Group " + groupId);
+        data.put("title", "Group " + groupId);
+        data.put("message", chatMessage);
+        data.put("sender", sender);
+        data.put("chat_message", chatMessage);
+        data.put("chat_timestamp", String.valueOf(1571502112000L + sequence));
+
+        Bundle bundle = new Bundle();
+        RNPushNotificationPayload.putData(bundle, data);
+        RNPushNotificationPayload.normalize(bundle);
+        mHelper.sendToNotificationCentre(bundle);
+    }
+
+    private ArrayList<String> messagesOf(int notificationID) {
+        for (StatusBarNotification notif : mNotificationManager.getActiveNotifications()) {
+            if (notif.getId() == notificationID) {
+                return notif.getNotification().extras.getStringArrayList("chatMessages");
+            }
+        }
+        return null;
+    }
+
+    private static List<String> list(String... values) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, values);
+        return list;
+    }
+}
@@ -0,0 +1,106 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Local HTTP server standing in for an image CDN in the harnesses. {@code GET /<name>/<w>x<h>.png}
+ * answers a generated PNG of that size after {@code delayMs}, anything else a 404.
+ */
+class RNPushNotificationHttpStub {
+    private static final Pattern PATH = Pattern.compile("/[^/]+/(\\d+)x(\\d+)\\.png");
+
+    private final HttpServer mServer;
+    private final int mDelayMs;
+    private final ConcurrentHashMap<String, byte[]> mImages = new ConcurrentHashMap<>();
+    private final AtomicInteger mRequests = new AtomicInteger();
+
+    RNPushNotificationHttpStub(int delayMs) throws IOException {
+        mDelayMs = delayMs;
+        mServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        mServer.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                serve(exchange);
+            }
+        });
+        mServer.setExecutor(Executors.newCachedThreadPool());
+        mServer.start();
+    }
+
+    String url(String name, int width, int height) {
+        return "http://127.0.0.1:" + mServer.getAddress().getPort() + "/" + name + "/" + width + "x" + height + ".png";
+    }
+
+    int getRequests() {
+        return mRequests.get();
+    }
+
+    void stop() {
+        mServer.stop(0);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        mRequests.incrementAndGet();
+        try {
+            Matcher matcher = PATH.matcher(exchange.getRequestURI().getPath());
+            if (!matcher.matches()) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (mDelayMs > 0) {
+                try {
+                    Thread.sleep(mDelayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            byte[] image = image(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, image.length);
+            OutputStream out = exchange.getResponseBody();
+            try {
+                out.write(image);
+            } finally {
+                out.close();
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private byte[] image(int width, int height) throws IOException {
+        String key = width + "x" + height;
+        byte[] image = mImages.get(key);
+        if (image == null) {
+            BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    bufferedImage.setRGB(x, y, new Color(x * 255 / width, y * 255 / height, 128).getRGB());
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(bufferedImage, "png", out);
+            image = out.toByteArray();
+            mImages.put(key, image);
+        }
+        return image;
+    }
+}
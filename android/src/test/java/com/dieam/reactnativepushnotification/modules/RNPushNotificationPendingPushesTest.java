@@ -0,0 +1,45 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class RNPushNotificationPendingPushesTest {
+    private RNPushNotificationPendingPushes mPending;
+
+    @Before
+    public void setUp() {
+        mPending = RNPushNotificationPendingPushes.getInstance(RuntimeEnvironment.application);
+        // The instance is process-wide, start from no pushes
+        mPending.take();
+    }
+
+    @Test
+    public void takesThePushesOldestFirstOnce() {
+        mPending.add("{\"id\":\"1\"}");
+        mPending.add("{\"id\":\"2\"}");
+
+        assertArrayEquals(new String[]{"{\"id\":\"1\"}", "{\"id\":\"2\"}"}, mPending.take());
+        assertEquals(0, mPending.take().length);
+    }
+
+    @Test
+    public void dropsTheOldestPushesOverCapacity() {
+        for (int i = 0; i < RNPushNotificationPendingPushes.CAPACITY + 3; i++) {
+            mPending.add(String.valueOf(i));
+        }
+
+        String[] pushes = mPending.take();
+        assertEquals(RNPushNotificationPendingPushes.CAPACITY, pushes.length);
+        assertEquals("3", pushes[0]);
+        assertEquals(String.valueOf(RNPushNotificationPendingPushes.CAPACITY + 2), pushes[pushes.length - 1]);
+    }
+}
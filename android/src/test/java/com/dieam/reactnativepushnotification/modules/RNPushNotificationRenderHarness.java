@@ -0,0 +1,313 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentName;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Bundle;
+
+import com.google.firebase.messaging.RemoteMessage;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.shadows.ShadowPackageManager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assume.assumeTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Throughput and latency harness for the render path, run under Robolectric with its shadow
+ * NotificationManager. It is not a test: it is skipped unless {@code -Dharness=true} is passed.
+ * <pre>
+ * ./gradlew :react-native-push-notification:testReleaseUnitTest --tests '*RenderHarness' -Dharness=true \
+ *     -Dharness.scenarios=single,grouped,chat,listener -Dharness.messages=5000 \
+ *     -Dharness.rate=0 -Dharness.conversations=20
+ * </pre>
+ * Scenarios:
+ * <ul>
+ * <li>{@code single}: friend requests, each its own notification</li>
+ * <li>{@code grouped}: wager updates folded into an inbox notification per wager</li>
+ * <li>{@code chat}: group chat messages folded into a MessagingStyle notification per group</li>
+ * <li>{@code listener}: the synchronous part of {@code RNPushNotificationListenerService.onMessageReceived}
+ * for chat messages; delivery to JS needs a React host and isn't exercised</li>
+ * <li>{@code rich}: friend requests with an avatar and, one in four, a big picture, served by
+ * {@link RNPushNotificationHttpStub} after {@code harness.mediaDelay} ms; the latency is until the
+ * text notification is posted, the images are loaded and applied in the background</li>
+ * <li>{@code replay}: the payloads of a capture file recorded with the {@code capture_payloads}
+ * meta-data ({@code -Dharness.capture=path}), at their original timing sped up by
+ * {@code harness.speed} (0 replays them back to back)</li>
+ * </ul>
+ * {@code harness.rate} paces messages per second (0 sends them back to back) and
+ * {@code harness.conversations} is the number of wagers or groups messages are spread over.
+ * Throughput, p50/p99/max latency and bytes allocated per message are printed and written as JSON
+ * to {@code build/reports/harness/render.json}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class RNPushNotificationRenderHarness {
+    private static final String[] CHAT_LINES = {
+            "Anyone watching the late game?",
+            "That fourth quarter comeback was unreal, I had the under and it was looking great until the last two drives",
+            "Taking the over next week no matter the line",
+            "Who's in for a group wager on Monday night? Loser buys wings",
+            "lol",
+    };
+
+    private Application mApplication;
+    private RNPushNotificationHelper mHelper;
+    private int mMessages;
+    private int mRate;
+    private int mConversations;
+    private List<RNPushNotificationCapture.Record> mReplay;
+    private double mSpeed;
+    private RNPushNotificationHttpStub mHttpStub;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue("Pass -Dharness=true to run the render harness", Boolean.getBoolean("harness"));
+
+        mApplication = RuntimeEnvironment.application;
+        // getMainActivityClass() resolves the launcher activity of the package
+        ShadowPackageManager packageManager = shadowOf(mApplication.getPackageManager());
+        ComponentName launcher = new ComponentName(mApplication, Activity.class);
+        packageManager.addActivityIfNotPresent(launcher);
+        IntentFilter filter = new IntentFilter(Intent.ACTION_MAIN);
+        filter.addCategory(Intent.CATEGORY_LAUNCHER);
+        packageManager.addIntentFilterForActivity(launcher, filter);
+
+        mHelper = new RNPushNotificationHelper(mApplication);
+        mMessages = Integer.getInteger("harness.messages", 2000);
+        mRate = Integer.getInteger("harness.rate", 0);
+        mConversations = Math.max(1, Integer.getInteger("harness.conversations", 20));
+
+        String capture = System.getProperty("harness.capture");
+        if (capture != null) {
+            FileInputStream in = new FileInputStream(capture);
+            try {
+                mReplay = RNPushNotificationCapture.read(in);
+            } finally {
+                in.close();
+            }
+            mSpeed = Double.parseDouble(System.getProperty("harness.speed", "1"));
+        }
+    }
+
+    @Test
+    public void run() throws IOException {
+        String[] scenarios = System.getProperty("harness.scenarios",
+                mReplay != null ? "replay" : "single,grouped,chat,listener").split(",");
+        StringBuilder json = new StringBuilder("[");
+        try {
+            for (String scenario : scenarios) {
+                Result result = run(scenario.trim());
+                System.out.println(result);
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append(result.toJson());
+            }
+        } finally {
+            if (mHttpStub != null) {
+                System.out.println("rich      " + mHttpStub.getRequests() + " image requests");
+                mHttpStub.stop();
+            }
+        }
+        json.append(']');
+
+        File report = new File("build/reports/harness/render.json");
+        report.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(report);
+        try {
+            writer.write(json.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private Result run(String scenario) throws IOException {
+        if ("rich".equals(scenario) && mHttpStub == null) {
+            mHttpStub = new RNPushNotificationHttpStub(Integer.getInteger("harness.mediaDelay", 200));
+        }
+        boolean replay = "replay".equals(scenario);
+        if (replay && (mReplay == null || mReplay.isEmpty())) {
+            throw new IllegalStateException("Pass -Dharness.capture=<capture file> to replay");
+        }
+        int messages = replay ? mReplay.size() : mMessages;
+
+        boolean listener = "listener".equals(scenario);
+        RNPushNotificationListenerService service = listener
+                ? Robolectric.setupService(RNPushNotificationListenerService.class) : null;
+        if (listener) {
+            // Keep the hand-off to the React host queued, there is none
+            ShadowLooper.pauseMainLooper();
+        }
+
+        // Warm up class loading and the JIT before measuring
+        int warmup = Math.min(messages, 200);
+        for (int i = 0; i < warmup; i++) {
+            send(scenario, service, i);
+        }
+        mHelper.clearNotifications();
+
+        long[] latencies = new long[messages];
+        long intervalNanos = mRate > 0 ? 1000000000L / mRate : 0;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            long due;
+            if (replay) {
+                due = mSpeed > 0 ? start + (long) (mReplay.get(i).offset * 1e6 / mSpeed) : 0;
+            } else {
+                due = intervalNanos > 0 ? start + i * intervalNanos : 0;
+            }
+            while (System.nanoTime() < due) {
+                Thread.yield();
+            }
+            long sent = System.nanoTime();
+            // Replays start over from the first payload so they are deterministic
+            send(scenario, service, replay ? i : warmup + i);
+            latencies[i] = System.nanoTime() - sent;
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        if (listener) {
+            ShadowLooper.getShadowMainLooper().getScheduler().reset();
+            ShadowLooper.unPauseMainLooper();
+        }
+
+        Arrays.sort(latencies);
+        return new Result(scenario, messages, mRate, mConversations, elapsed, latencies,
+                allocated >= 0 ? allocated / messages : -1);
+    }
+
+    private void send(String scenario, RNPushNotificationListenerService service, int sequence) {
+        Map<String, String> data = payload(scenario, sequence);
+        if (service != null) {
+            service.onMessageReceived(new RemoteMessage.Builder("harness@gcm.googleapis.com").setData(data).build());
+            return;
+        }
+        Bundle bundle = new Bundle();
+        RNPushNotificationPayload.putData(bundle, data);
+        RNPushNotificationPayload.normalize(bundle);
+        mHelper.sendToNotificationCentre(bundle);
+    }
+
+    private Map<String, String> payload(String scenario, int sequence) {
+        if ("replay".equals(scenario)) {
+            return new HashMap<>(mReplay.get(sequence % mReplay.size()).data);
+        }
+        int conversation = 1000 + sequence % mConversations;
+        Map<String, String> data = new HashMap<>();
+        data.put("id", String.valueOf(100000 + sequence));
+        data.put("user_id", "4410");
+        switch (scenario) {
+            case "single":
+                data.put("notification_type", String.valueOf(RNPushNotificationHelper.RB_FRIENDREQ_MSG_TYPE));
+                data.put("title", "New friend request");
+                data.put("message", "Player " + sequence + " wants to be your friend");
+                break;
+            case "rich":
+                data.put("notification_type", String.valueOf(RNPushNotificationHelper.RB_FRIENDREQ_MSG_TYPE));
+                data.put("title", "New friend request");
+                data.put("message", "Player " + conversation + " wants to be your friend");
+                data.put("largeIcon", mHttpStub.url("avatar" + conversation, 512, 512));
+                if (sequence % 4 == 0) {
+                    data.put("bigPicture", mHttpStub.url("wager" + conversation, 1600, 1200));
+                }
+                break;
+            case "grouped":
+                data.put("notification_type", String.valueOf(RNPushNotificationHelper.RB_WAGER_MSG_TYPE));
+                data.put("wager_id", String.valueOf(conversation));
+                data.put("bundle_id", String.valueOf(conversation));
+                data.put("bundle_title", "Wager " + conversation);
+                data.put("title", "Wager update");
+                data.put("message", "Update " + sequence + " on wager " + conversation);
+                break;
+            case "chat":
+            case "listener":
+                data.put("notification_type", String.valueOf(RNPushNotificationHelper.RB_GROUP_MSG_TYPE));
+                data.put("group_id", String.valueOf(conversation));
+                data.put("bundle_id", String.valueOf(conversation));
+                data.put("bundle_title", "Group " + conversation);
+                data.put("sender", "Member " + sequence % 7);
+                data.put("chat_message", CHAT_LINES[sequence % CHAT_LINES.length]);
+                data.put("chat_timestamp", String.valueOf(1571502112000L + sequence * 1000L));
+                data.put("title", "Group " + conversation);
+                data.put("message", CHAT_LINES[sequence % CHAT_LINES.length]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown scenario " + scenario);
+        }
+        return data;
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static class Result {
+        final String scenario;
+        final int messages;
+        final int rate;
+        final int conversations;
+        final double throughput;
+        final double p50Us;
+        final double p99Us;
+        final double maxUs;
+        final long bytesPerMessage;
+
+        Result(String scenario, int messages, int rate, int conversations, long elapsedNanos,
+               long[] sortedLatencies, long bytesPerMessage) {
+            this.scenario = scenario;
+            this.messages = messages;
+            this.rate = rate;
+            this.conversations = conversations;
+            this.throughput = messages * 1e9 / elapsedNanos;
+            this.p50Us = percentile(sortedLatencies, 0.50) / 1000.0;
+            this.p99Us = percentile(sortedLatencies, 0.99) / 1000.0;
+            this.maxUs = sortedLatencies[sortedLatencies.length - 1] / 1000.0;
+            this.bytesPerMessage = bytesPerMessage;
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+        }
+
+        String toJson() {
+            return String.format(Locale.US,
+                    "{\"scenario\":\"%s\",\"messages\":%d,\"rate\":%d,\"conversations\":%d,"
+                            + "\"throughput\":%.1f,\"p50Us\":%.1f,\"p99Us\":%.1f,\"maxUs\":%.1f,\"bytesPerMessage\":%d}",
+                    scenario, messages, rate, conversations, throughput, p50Us, p99Us, maxUs, bytesPerMessage);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%-8s %6d msgs  %8.1f msg/s  p50 %8.1f us  p99 %8.1f us  max %8.1f us  %7d B/msg",
+                    scenario, messages, throughput, p50Us, p99Us, maxUs, bytesPerMessage);
+        }
+    }
+}
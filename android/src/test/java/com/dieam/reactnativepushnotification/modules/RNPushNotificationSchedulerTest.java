@@ -0,0 +1,216 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.app.Activity;
+import android.app.Application;
+import android.app.NotificationManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Bundle;
+import android.service.notification.StatusBarNotification;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowPackageManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * A burst of group chat messages, more than a lane holds, is rendered by the worker pool without
+ * losing or reordering the messages of a conversation, whether the messages join the queued
+ * batch of their conversation or wait on the overflow of the lane. Past the overflow capacity,
+ * the oldest overflowing notifications are shed.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class RNPushNotificationSchedulerTest {
+    private static final int MESSAGES = 400;
+    private static final int CONVERSATIONS = 4;
+    // More distinct conversations than the default lane capacity of 64
+    private static final int OVERFLOWING_CONVERSATIONS = 200;
+    // The default lane capacity and overflow capacity
+    private static final int LANE_CAPACITY = 64;
+    private static final int OVERFLOW_CAPACITY = 256;
+    // Workers, each stalled with one batch taken off the lane
+    private static final int WORKERS = 3;
+    private static final int SHED_CONVERSATIONS = 400;
+
+    private Application mApplication;
+    private NotificationManager mNotificationManager;
+
+    @Before
+    public void setUp() throws Exception {
+        mApplication = RuntimeEnvironment.application;
+        // getMainActivityClass() resolves the launcher activity of the package
+        ShadowPackageManager packageManager = shadowOf(mApplication.getPackageManager());
+        ComponentName launcher = new ComponentName(mApplication, Activity.class);
+        packageManager.addActivityIfNotPresent(launcher);
+        IntentFilter filter = new IntentFilter(Intent.ACTION_MAIN);
+        filter.addCategory(Intent.CATEGORY_LAUNCHER);
+        packageManager.addIntentFilterForActivity(launcher, filter);
+
+        mNotificationManager = (NotificationManager) mApplication.getSystemService(Context.NOTIFICATION_SERVICE);
+    }
+
+    @After
+    public void tearDown() {
+        // The conversations and the other indexes are process-wide
+        new RNPushNotificationHelper(mApplication).clearNotifications();
+    }
+
+    @Test
+    public void burstKeepsEveryConversationInOrder() throws Exception {
+        RNPushNotificationScheduler scheduler = RNPushNotificationScheduler.getInstance(mApplication);
+        for (int i = 0; i < MESSAGES; i++) {
+            scheduler.submit(chatMessage(6000 + i % CONVERSATIONS, i), null);
+        }
+
+        long deadline = System.currentTimeMillis() + 30000;
+        while (renderedMessages(6000, CONVERSATIONS) < MESSAGES && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(MESSAGES, renderedMessages(6000, CONVERSATIONS));
+
+        int total = 0;
+        for (int c = 0; c < CONVERSATIONS; c++) {
+            int previous = -1;
+            ArrayList<String> messages = messagesOf(6000 + c);
+            total += messages.size();
+            for (String message : messages) {
+                int index = Integer.parseInt(message);
+                assertTrue(index + " after " + previous, index > previous);
+                assertEquals(c, index % CONVERSATIONS);
+                previous = index;
+            }
+        }
+        assertEquals(MESSAGES, total);
+    }
+
+    @Test
+    public void fullLaneOverflowsWithoutLosingNotifications() throws Exception {
+        final RNPushNotificationScheduler scheduler = RNPushNotificationScheduler.getInstance(mApplication);
+        // Holding every render lock stalls the workers on their first batch, so the submissions
+        // fill the lane and spill onto its overflow before anything is rendered
+        holdRenderLocks(stripes(), 0, new Runnable() {
+            public void run() {
+                for (int i = 0; i < OVERFLOWING_CONVERSATIONS; i++) {
+                    scheduler.submit(chatMessage(7000 + i, 1000 + i), null);
+                }
+            }
+        });
+
+        long deadline = System.currentTimeMillis() + 30000;
+        while (renderedMessages(7000, OVERFLOWING_CONVERSATIONS) < OVERFLOWING_CONVERSATIONS
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(OVERFLOWING_CONVERSATIONS, renderedMessages(7000, OVERFLOWING_CONVERSATIONS));
+        for (int c = 0; c < OVERFLOWING_CONVERSATIONS; c++) {
+            assertEquals(Collections.singletonList(String.valueOf(1000 + c)), messagesOf(7000 + c));
+        }
+    }
+
+    @Test
+    public void fullOverflowShedsItsOldestNotifications() throws Exception {
+        final RNPushNotificationScheduler scheduler = RNPushNotificationScheduler.getInstance(mApplication);
+        holdRenderLocks(stripes(), 0, new Runnable() {
+            public void run() {
+                for (int i = 0; i < SHED_CONVERSATIONS; i++) {
+                    scheduler.submit(chatMessage(9000 + i, 2000 + i), null);
+                }
+            }
+        });
+
+        // The lane is filled first and the newest notifications fill the overflow, so both are
+        // rendered; the notifications that overflowed first are shed
+        long deadline = System.currentTimeMillis() + 30000;
+        while (!(renderedMessages(9000, LANE_CAPACITY) == LANE_CAPACITY
+                && renderedMessages(9000 + SHED_CONVERSATIONS - OVERFLOW_CAPACITY, OVERFLOW_CAPACITY) == OVERFLOW_CAPACITY)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(LANE_CAPACITY, renderedMessages(9000, LANE_CAPACITY));
+        assertEquals(OVERFLOW_CAPACITY, renderedMessages(9000 + SHED_CONVERSATIONS - OVERFLOW_CAPACITY, OVERFLOW_CAPACITY));
+        int rendered = renderedMessages(9000, SHED_CONVERSATIONS);
+        assertTrue(rendered + " rendered", rendered <= LANE_CAPACITY + WORKERS + OVERFLOW_CAPACITY);
+    }
+
+    /**
+     * The distinct stripes of {@link RNPushNotificationRenderLocks}.
+     */
+    private static List<Object> stripes() {
+        Map<Object, Boolean> stripes = new IdentityHashMap<>();
+        for (int key = 0; key < 4096; key++) {
+            stripes.put(RNPushNotificationRenderLocks.forKey(key), true);
+        }
+        return new ArrayList<>(stripes.keySet());
+    }
+
+    private static void holdRenderLocks(List<Object> locks, int index, Runnable whileHeld) {
+        if (index == locks.size()) {
+            whileHeld.run();
+            return;
+        }
+        synchronized (locks.get(index)) {
+            holdRenderLocks(locks, index + 1, whileHeld);
+        }
+    }
+
+    /**
+     * Read from the conversations, the shadow NotificationManager can't be read while the workers
+     * post to it.
+     */
+    private static int renderedMessages(int firstGroupId, int conversations) {
+        int count = 0;
+        for (int c = 0; c < conversations; c++) {
+            synchronized (RNPushNotificationRenderLocks.forKey(firstGroupId + c)) {
+                RNPushNotificationConversations.Conversation conversation = RNPushNotificationConversations.get(firstGroupId + c);
+                count += conversation != null ? conversation.size() : 0;
+            }
+        }
+        return count;
+    }
+
+    private ArrayList<String> messagesOf(int notificationID) {
+        for (StatusBarNotification notif : mNotificationManager.getActiveNotifications()) {
+            if (notif.getId() == notificationID) {
+                return notif.getNotification().extras.getStringArrayList("chatMessages");
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    private static Bundle chatMessage(int groupId, int sequence) {
+        Map<String, String> data = new HashMap<>();
+        data.put("id", String.valueOf(200000 + sequence));
+        data.put("notification_type", String.valueOf(RNPushNotificationHelper.RB_GROUP_MSG_TYPE));
+        data.put("group_id", String.valueOf(groupId));
+        data.put("bundle_id", String.valueOf(groupId));
+        data.put("bundle_title", "Group " + groupId);
+        data.put("title", "Group " + groupId);
+        data.put("message", String.valueOf(sequence));
+        data.put("sender", "Member " + sequence % 7);
+        data.put("chat_message", String.valueOf(sequence));
+        data.put("chat_timestamp", String.valueOf(1571502112000L + sequence));
+
+        Bundle bundle = new Bundle();
+        RNPushNotificationPayload.putData(bundle, data);
+        RNPushNotificationPayload.normalize(bundle);
+        return bundle;
+    }
+}
@@ -0,0 +1,139 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.app.Application;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Measures what the module adds to React Native startup, run under Robolectric. It is not a test:
+ * it is skipped unless {@code -Dharness=true} is passed.
+ * <pre>
+ * ./gradlew :react-native-push-notification:testReleaseUnitTest --tests '*StartupHarness' -Dharness=true \
+ *     -Dharness.iterations=200
+ * </pre>
+ * Steps:
+ * <ul>
+ * <li>{@code module}: {@code new RNPushNotification(reactContext)}, run by
+ * {@code createNativeModules} before JS can run, i.e. the module's share of time-to-interactive</li>
+ * <li>{@code firstUse}: the first call from JS, which now creates the helper, reading the manifest
+ * meta-data and opening the SharedPreferences</li>
+ * <li>{@code helper}: {@code new RNPushNotificationHelper} alone, what the constructor used to do
+ * eagerly</li>
+ * </ul>
+ * The cold time of each step is its first run in the process, class loading included; the warm
+ * p50 is over {@code harness.iterations} runs. Results are printed and written as JSON to
+ * {@code build/reports/harness/startup.json}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class RNPushNotificationStartupHarness {
+    private Application mApplication;
+    private int mIterations;
+
+    @Before
+    public void setUp() {
+        assumeTrue("Pass -Dharness=true to run the startup harness", Boolean.getBoolean("harness"));
+
+        mApplication = RuntimeEnvironment.application;
+        mIterations = Math.max(1, Integer.getInteger("harness.iterations", 200));
+    }
+
+    @Test
+    public void run() throws IOException {
+        Result[] results = {
+                measure("module", new Step() {
+                    @Override
+                    public void run() {
+                        new RNPushNotification(new ReactApplicationContext(mApplication));
+                    }
+                }),
+                measure("firstUse", new Step() {
+                    @Override
+                    public void run() {
+                        new RNPushNotification(new ReactApplicationContext(mApplication)).clearLocalNotification(0);
+                    }
+                }),
+                measure("helper", new Step() {
+                    @Override
+                    public void run() {
+                        new RNPushNotificationHelper(mApplication);
+                    }
+                }),
+        };
+
+        StringBuilder json = new StringBuilder("[");
+        for (Result result : results) {
+            System.out.println(result);
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(result.toJson());
+        }
+        json.append(']');
+
+        File report = new File("build/reports/harness/startup.json");
+        report.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(report);
+        try {
+            writer.write(json.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private Result measure(String step, Step runnable) {
+        long start = System.nanoTime();
+        runnable.run();
+        long cold = System.nanoTime() - start;
+
+        long[] warm = new long[mIterations];
+        for (int i = 0; i < mIterations; i++) {
+            start = System.nanoTime();
+            runnable.run();
+            warm[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(warm);
+        return new Result(step, cold, warm[warm.length / 2]);
+    }
+
+    private interface Step {
+        void run();
+    }
+
+    private static class Result {
+        final String step;
+        final double coldUs;
+        final double warmP50Us;
+
+        Result(String step, long coldNanos, long warmP50Nanos) {
+            this.step = step;
+            this.coldUs = coldNanos / 1000.0;
+            this.warmP50Us = warmP50Nanos / 1000.0;
+        }
+
+        String toJson() {
+            return String.format(Locale.US, "{\"step\":\"%s\",\"coldUs\":%.1f,\"warmP50Us\":%.1f}",
+                    step, coldUs, warmP50Us);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-8s  cold %10.1f us  warm p50 %8.1f us", step, coldUs, warmP50Us);
+        }
+    }
+}
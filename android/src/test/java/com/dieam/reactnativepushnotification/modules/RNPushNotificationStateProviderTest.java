@@ -0,0 +1,79 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentName;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Bundle;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowPackageManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * The operations the main process forwards run against the state of the process the provider
+ * lives in, and the delivered notifications make it back intact.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class RNPushNotificationStateProviderTest {
+    private Application mApplication;
+    private RNPushNotificationStateProvider mProvider;
+
+    @Before
+    public void setUp() throws Exception {
+        mApplication = RuntimeEnvironment.application;
+        // getMainActivityClass() resolves the launcher activity of the package
+        ShadowPackageManager packageManager = shadowOf(mApplication.getPackageManager());
+        ComponentName launcher = new ComponentName(mApplication, Activity.class);
+        packageManager.addActivityIfNotPresent(launcher);
+        IntentFilter filter = new IntentFilter(Intent.ACTION_MAIN);
+        filter.addCategory(Intent.CATEGORY_LAUNCHER);
+        packageManager.addIntentFilterForActivity(launcher, filter);
+
+        mProvider = Robolectric.setupContentProvider(RNPushNotificationStateProvider.class);
+    }
+
+    @After
+    public void tearDown() {
+        // The indexes are process-wide
+        new RNPushNotificationHelper(mApplication).clearNotifications();
+    }
+
+    @Test
+    public void presentedNotificationIsDeliveredThenCleared() {
+        Bundle details = new Bundle();
+        details.putString("id", "7001");
+        details.putString("title", "Wager");
+        details.putString("message", "You won");
+        mProvider.call(RNPushNotificationStateProvider.METHOD_PRESENT, null, details);
+
+        RNPushNotificationDeliveredSnapshot.Entry[] delivered = RNPushNotificationStateProvider.toEntries(
+                mProvider.call(RNPushNotificationStateProvider.METHOD_DELIVERED, null, null));
+        assertEquals(1, delivered.length);
+        assertEquals(7001, delivered[0].id);
+        assertEquals("Wager", delivered[0].title);
+        assertEquals("You won", delivered[0].message);
+
+        mProvider.call(RNPushNotificationStateProvider.METHOD_CLEAR, null,
+                RNPushNotificationStateProvider.notificationExtras(7001));
+        delivered = RNPushNotificationStateProvider.toEntries(
+                mProvider.call(RNPushNotificationStateProvider.METHOD_DELIVERED, null, null));
+        assertEquals(0, delivered.length);
+    }
+
+    @Test
+    public void unreachablePushProcessHasNothingDelivered() {
+        assertEquals(0, RNPushNotificationStateProvider.toEntries(null).length);
+    }
+}
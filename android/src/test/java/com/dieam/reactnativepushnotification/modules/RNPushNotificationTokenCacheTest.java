@@ -0,0 +1,184 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import android.app.Application;
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The cached token is served until FCM rotates it, and concurrent requests share one fetch, with
+ * a fake provider standing in for Google Play services and a fake clock.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class RNPushNotificationTokenCacheTest {
+    private static final String SENDER_ID = "1234567890";
+    private static final int CALLERS = 8;
+
+    private Application mApplication;
+    private FakeTokenProvider mTokenProvider;
+    private FakeClock mClock;
+
+    @Before
+    public void setUp() {
+        mApplication = RuntimeEnvironment.application;
+        mTokenProvider = new FakeTokenProvider();
+        mClock = new FakeClock();
+        RNPushNotificationTokenCache.setTokenProvider(mTokenProvider);
+        RNPushNotificationTokenCache.setClock(mClock);
+        // The cache is process-wide, start each test without a token
+        mApplication.getSharedPreferences(RNPushNotificationTokenCache.PREFERENCES_KEY, Context.MODE_PRIVATE)
+                .edit().clear().commit();
+        mApplication.getSharedPreferences(RNPushNotificationTokenCache.ROTATION_PREFERENCES_KEY, Context.MODE_PRIVATE)
+                .edit().clear().commit();
+    }
+
+    @After
+    public void tearDown() {
+        RNPushNotificationTokenCache.setTokenProvider(null);
+        RNPushNotificationTokenCache.setClock(null);
+    }
+
+    @Test
+    public void newTokenInvalidatesTheCachedOne() throws Exception {
+        RNPushNotificationTokenCache tokenCache = RNPushNotificationTokenCache.getInstance(mApplication);
+
+        assertEquals("token-1", fetch(tokenCache));
+        assertEquals("token-1", tokenCache.getCachedToken(SENDER_ID));
+        assertEquals("token-1", fetch(tokenCache));
+        assertEquals(1, mTokenProvider.calls.get());
+
+        mClock.now += 1000;
+        Robolectric.setupService(RNPushNotificationListenerService.class).onNewToken("rotated");
+
+        assertNull(tokenCache.getCachedToken(SENDER_ID));
+        mClock.now += 1000;
+        assertEquals("token-2", fetch(tokenCache));
+        assertEquals("token-2", tokenCache.getCachedToken(SENDER_ID));
+        assertEquals(2, mTokenProvider.calls.get());
+    }
+
+    @Test
+    public void tokenExpiresAfterTheValidityPeriod() throws Exception {
+        RNPushNotificationTokenCache tokenCache = RNPushNotificationTokenCache.getInstance(mApplication);
+
+        assertEquals("token-1", fetch(tokenCache));
+        mClock.now += TimeUnit.DAYS.toMillis(7) - 1;
+        assertEquals("token-1", tokenCache.getCachedToken(SENDER_ID));
+        mClock.now += 1;
+        assertNull(tokenCache.getCachedToken(SENDER_ID));
+    }
+
+    @Test
+    public void concurrentCallersShareOneFetch() throws Exception {
+        final RNPushNotificationTokenCache tokenCache = RNPushNotificationTokenCache.getInstance(mApplication);
+        mTokenProvider.release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            final CountDownLatch ready = new CountDownLatch(CALLERS);
+            final AtomicInteger started = new AtomicInteger();
+            List<Future<String>> tokens = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                tokens.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        ready.countDown();
+                        ready.await();
+                        if (tokenCache.beginFetch(SENDER_ID)) {
+                            started.incrementAndGet();
+                        }
+                        return tokenCache.fetch(SENDER_ID);
+                    }
+                }));
+            }
+
+            // Every caller is either fetching or waiting for the fetch in flight
+            assertTrue(mTokenProvider.entered.await(10, TimeUnit.SECONDS));
+            ready.await();
+            for (Future<String> token : tokens) {
+                assertFalse(token.isDone());
+            }
+            mTokenProvider.release.countDown();
+
+            for (Future<String> token : tokens) {
+                assertEquals("token-1", token.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, mTokenProvider.calls.get());
+            assertTrue(started.get() >= 1);
+        } finally {
+            mTokenProvider.release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void onlyTheFirstRequestStartsAFetch() {
+        RNPushNotificationTokenCache tokenCache = RNPushNotificationTokenCache.getInstance(mApplication);
+
+        assertTrue(tokenCache.beginFetch(SENDER_ID));
+        assertFalse(tokenCache.beginFetch(SENDER_ID));
+        tokenCache.endFetch(SENDER_ID);
+        assertTrue(tokenCache.beginFetch(SENDER_ID));
+        tokenCache.endFetch(SENDER_ID);
+    }
+
+    private static String fetch(RNPushNotificationTokenCache tokenCache) throws IOException {
+        tokenCache.beginFetch(SENDER_ID);
+        return tokenCache.fetch(SENDER_ID);
+    }
+
+    private static class FakeTokenProvider implements RNPushNotificationTokenCache.TokenProvider {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch entered = new CountDownLatch(1);
+        // Holds the fetch until released, when set
+        volatile CountDownLatch release;
+
+        @Override
+        public String getToken(Context context, String senderID) throws IOException {
+            int call = calls.incrementAndGet();
+            entered.countDown();
+            CountDownLatch release = this.release;
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            return "token-" + call;
+        }
+    }
+
+    private static class FakeClock implements RNPushNotificationTokenCache.Clock {
+        volatile long now = 1571502112000L;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.dieam.reactnativepushnotification.modules;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Topic subscriptions are diffed against what is persisted, with a fake messaging backend in place
+ * of Firebase.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class RNPushNotificationTopicsTest {
+    private FakeMessaging mMessaging;
+    private RNPushNotificationTopics mTopics;
+
+    @Before
+    public void setUp() throws Exception {
+        mMessaging = new FakeMessaging();
+        RNPushNotificationTopics.setMessaging(mMessaging);
+        mTopics = RNPushNotificationTopics.getInstance(RuntimeEnvironment.application);
+        // The instance is process-wide, start from no subscriptions
+        setTopics();
+        mMessaging.reset();
+    }
+
+    @After
+    public void tearDown() {
+        RNPushNotificationTopics.setMessaging(null);
+    }
+
+    @Test
+    public void onlyAddedAndRemovedTopicsAreCalled() throws Exception {
+        Result first = setTopics("wagers", "groups");
+        assertEquals(set("wagers", "groups"), set(first.subscribed));
+        assertEquals(set("wagers", "groups"), mMessaging.subscribed());
+
+        mMessaging.reset();
+        Result second = setTopics("groups", "friends");
+        assertEquals(set("friends"), set(second.subscribed));
+        assertEquals(set("wagers"), set(second.unsubscribed));
+        assertEquals(set("friends"), mMessaging.subscribed());
+        assertEquals(set("wagers"), mMessaging.unsubscribed());
+
+        mMessaging.reset();
+        Result unchanged = setTopics("friends", "groups");
+        assertTrue(unchanged.subscribed.isEmpty());
+        assertTrue(unchanged.unsubscribed.isEmpty());
+        assertTrue(mMessaging.subscribed().isEmpty());
+        assertTrue(mMessaging.unsubscribed().isEmpty());
+    }
+
+    @Test
+    public void failedSubscribeIsRetriedByTheNextCall() throws Exception {
+        mMessaging.failNext("wagers");
+        Result failed = setTopics("wagers", "groups");
+        assertEquals(set("groups"), set(failed.subscribed));
+        assertEquals(set("wagers"), set(failed.failed));
+
+        mMessaging.reset();
+        Result retried = setTopics("wagers", "groups");
+        assertEquals(set("wagers"), set(retried.subscribed));
+        assertTrue(retried.failed.isEmpty());
+        assertEquals(set("wagers"), mMessaging.subscribed());
+    }
+
+    @Test
+    public void failedUnsubscribeIsRetriedByTheNextCall() throws Exception {
+        setTopics("wagers");
+
+        mMessaging.failNext("wagers");
+        Result failed = setTopics();
+        assertEquals(set("wagers"), set(failed.failed));
+
+        mMessaging.reset();
+        Result retried = setTopics();
+        assertEquals(set("wagers"), set(retried.unsubscribed));
+        assertEquals(set("wagers"), mMessaging.unsubscribed());
+    }
+
+    @Test
+    public void newTokenSubscribesToEveryTopicAgain() throws Exception {
+        setTopics("wagers", "groups");
+
+        RNPushNotificationTopics.invalidate(RuntimeEnvironment.application);
+        mMessaging.reset();
+        Result resubscribed = setTopics("wagers", "groups");
+        assertEquals(set("wagers", "groups"), set(resubscribed.subscribed));
+        assertEquals(set("wagers", "groups"), mMessaging.subscribed());
+
+        mMessaging.reset();
+        Result unchanged = setTopics("wagers", "groups");
+        assertTrue(unchanged.subscribed.isEmpty());
+        assertTrue(mMessaging.subscribed().isEmpty());
+    }
+
+    @Test
+    public void singleTopicCallsAreRemembered() throws Exception {
+        mTopics.subscribe("wagers");
+        mTopics.subscribe("groups");
+        mTopics.unsubscribe("groups");
+        // Applied after the single topic calls
+        Result result = setTopics("wagers");
+        assertTrue(result.subscribed.isEmpty());
+        assertTrue(result.unsubscribed.isEmpty());
+        assertEquals(set("wagers", "groups"), mMessaging.subscribed());
+        assertEquals(set("groups"), mMessaging.unsubscribed());
+    }
+
+    private Result setTopics(String... topics) throws InterruptedException {
+        final BlockingQueue<Result> results = new LinkedBlockingQueue<>();
+        mTopics.setTopics(Arrays.asList(topics), new RNPushNotificationTopics.Listener() {
+            @Override
+            public void onTopicsSet(List<String> subscribed, List<String> unsubscribed, List<String> failed) {
+                results.add(new Result(subscribed, unsubscribed, failed));
+            }
+        });
+        Result result = results.poll(10, TimeUnit.SECONDS);
+        assertNotNull("setTopics didn't complete", result);
+        return result;
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+
+    private static Set<String> set(List<String> values) {
+        return new HashSet<>(values);
+    }
+
+    private static class Result {
+        final List<String> subscribed;
+        final List<String> unsubscribed;
+        final List<String> failed;
+
+        Result(List<String> subscribed, List<String> unsubscribed, List<String> failed) {
+            this.subscribed = subscribed;
+            this.unsubscribed = unsubscribed;
+            this.failed = failed;
+        }
+    }
+
+    private static class FakeMessaging implements RNPushNotificationTopics.Messaging {
+        private final List<String> mSubscribed = new ArrayList<>();
+        private final List<String> mUnsubscribed = new ArrayList<>();
+        private final Set<String> mFailNext = new HashSet<>();
+
+        @Override
+        public void subscribe(String topic) throws Exception {
+            call(topic, mSubscribed);
+        }
+
+        @Override
+        public void unsubscribe(String topic) throws Exception {
+            call(topic, mUnsubscribed);
+        }
+
+        private synchronized void call(String topic, List<String> calls) throws Exception {
+            if (mFailNext.remove(topic)) {
+                throw new Exception("SERVICE_NOT_AVAILABLE");
+            }
+            calls.add(topic);
+        }
+
+        synchronized void failNext(String topic) {
+            mFailNext.add(topic);
+        }
+
+        synchronized Set<String> subscribed() {
+            return new HashSet<>(mSubscribed);
+        }
+
+        synchronized Set<String> unsubscribed() {
+            return new HashSet<>(mUnsubscribed);
+        }
+
+        synchronized void reset() {
+            mSubscribed.clear();
+            mUnsubscribed.clear();
+            mFailNext.clear();
+        }
+    }
+}
@@ -34,6 +34,22 @@ NotificationsComponent.prototype.subscribeToTopic = function(topic: string) {
 	RNPushNotification.subscribeToTopic(topic);
 };
 
+NotificationsComponent.prototype.unsubscribeFromTopic = function(topic: string) {
+	RNPushNotification.unsubscribeFromTopic(topic);
+};
+
+NotificationsComponent.prototype.replayPendingNotifications = function() {
+	RNPushNotification.replayPendingNotifications();
+};
+
+NotificationsComponent.prototype.setTopics = function(topics: Array<string>) {
+	return RNPushNotification.setTopics(topics);
+};
+
+NotificationsComponent.prototype.setNotificationTemplates = function(templates: Object) {
+	return RNPushNotification.setNotificationTemplates(JSON.stringify(templates));
+};
+
 NotificationsComponent.prototype.cancelLocalNotifications = function(details: Object) {
 	RNPushNotification.cancelLocalNotifications(details);
 };
@@ -116,6 +132,46 @@ NotificationsComponent.prototype.clearAllNotifications = function() {
 	RNPushNotification.clearAllNotifications()
 }
 
+NotificationsComponent.prototype.getNotificationHistory = function(query: Object) {
+	return RNPushNotification.getNotificationHistory(query || {});
+}
+
+NotificationsComponent.prototype.getScheduledLocalNotifications = function(query: Object) {
+	return RNPushNotification.getScheduledLocalNotifications(query || {});
+}
+
+NotificationsComponent.prototype.getDeliveredNotifications = function(options: Object) {
+	return RNPushNotification.getDeliveredNotifications(options || {});
+}
+
+NotificationsComponent.prototype.clearNotificationsForEntity = function(type: number, id: number) {
+	RNPushNotification.clearNotificationsForEntity(type, id);
+}
+
+NotificationsComponent.prototype.claimNotification = function(id: string) {
+	return RNPushNotification.claimNotification(id);
+}
+
+NotificationsComponent.prototype.registerNotificationChannels = function(channels: Array) {
+	RNPushNotification.registerNotificationChannels(channels);
+}
+
+NotificationsComponent.prototype.getPipelineMetrics = function(reset: boolean) {
+	return RNPushNotification.getPipelineMetrics(!!reset);
+}
+
+NotificationsComponent.prototype.setPipelineMetricsEnabled = function(enabled: boolean) {
+	RNPushNotification.setPipelineMetricsEnabled(!!enabled);
+}
+
+NotificationsComponent.prototype.dumpFlightRecorder = function() {
+	return RNPushNotification.dumpFlightRecorder();
+}
+
+NotificationsComponent.prototype.getNotificationLaneMetrics = function() {
+	return RNPushNotification.getNotificationLaneMetrics();
+}
+
 module.exports = {
 	state: false,
 	component: new NotificationsComponent()
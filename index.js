@@ -84,6 +84,8 @@ Notifications.configure = function(options: Object) {
 		this.callNative( 'addEventListener', [ 'notification', this._onNotification ] );
 		this.callNative( 'addEventListener', [ 'localNotification', this._onNotification ] );
 		Platform.OS === 'android' ? this.callNative( 'addEventListener', [ 'remoteFetch', this._onRemoteFetch ] ) : null
+		// Pushes the Android push process received while the app wasn't running
+		this.callNative( 'replayPendingNotifications', [] );
 
 		this.isLoaded = true;
 	}
@@ -280,6 +282,20 @@ Notifications.subscribeToTopic = function() {
 	return this.callNative('subscribeToTopic', arguments);
 };
 
+Notifications.unsubscribeFromTopic = function() {
+	return this.callNative('unsubscribeFromTopic', arguments);
+};
+
+Notifications.setTopics = function() {
+	// Only available for Android
+	return this.callNative('setTopics', arguments)
+}
+
+Notifications.setNotificationTemplates = function() {
+	// Only available for Android
+	return this.callNative('setNotificationTemplates', arguments)
+}
+
 Notifications.presentLocalNotification = function() {
 	return this.callNative('presentLocalNotification', arguments);
 };
@@ -331,4 +347,54 @@ Notifications.clearAllNotifications = function() {
 	return this.callNative('clearAllNotifications', arguments)
 }
 
+Notifications.getNotificationHistory = function() {
+	// Only available for Android
+	return this.callNative('getNotificationHistory', arguments)
+}
+
+Notifications.getScheduledLocalNotifications = function() {
+	// Only available for Android
+	return this.callNative('getScheduledLocalNotifications', arguments)
+}
+
+Notifications.getDeliveredNotifications = function() {
+	// Only available for Android
+	return this.callNative('getDeliveredNotifications', arguments)
+}
+
+Notifications.clearNotificationsForEntity = function() {
+	// Only available for Android
+	return this.callNative('clearNotificationsForEntity', arguments)
+}
+
+Notifications.claimNotification = function() {
+	// Only available for Android
+	return this.callNative('claimNotification', arguments)
+}
+
+Notifications.registerNotificationChannels = function() {
+	// Only available for Android
+	return this.callNative('registerNotificationChannels', arguments)
+}
+
+Notifications.getPipelineMetrics = function() {
+	// Only available for Android
+	return this.callNative('getPipelineMetrics', arguments)
+}
+
+Notifications.setPipelineMetricsEnabled = function() {
+	// Only available for Android
+	return this.callNative('setPipelineMetricsEnabled', arguments)
+}
+
+Notifications.dumpFlightRecorder = function() {
+	// Only available for Android
+	return this.callNative('dumpFlightRecorder', arguments)
+}
+
+Notifications.getNotificationLaneMetrics = function() {
+	// Only available for Android
+	return this.callNative('getNotificationLaneMetrics', arguments)
+}
+
 module.exports = Notifications;